@@ -0,0 +1,87 @@
+package com.bank.transaction.benchmark;
+
+import com.bank.transaction.cache.AccountHistoryCache;
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.config.CacheProperties;
+import com.bank.transaction.dto.TransactionPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存命中与未命中路径的开销：CacheConfig 创建的 Spring 缓存，以及账户交易历史缓存。
+ * 未命中时每次使用新的 key，包含加载和超出容量后的淘汰开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class CacheBenchmark {
+
+    private static final int HOT_KEYS = 1024;
+    private static final TransactionPage PAGE = new TransactionPage(Collections.emptyList(), null);
+
+    private Cache springCache;
+    private AccountHistoryCache accountHistoryCache;
+
+    @State(Scope.Thread)
+    public static class Keys {
+        long next;
+
+        long hot() {
+            return next++ & (HOT_KEYS - 1);
+        }
+
+        // 每个线程使用不同的区间，保证一直未命中
+        long cold() {
+            return HOT_KEYS + Thread.currentThread().threadId() * 1_000_000_000L + next++;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        CacheProperties properties = new CacheProperties();
+        springCache = new CacheConfig().cacheManager(properties, ForkJoinPool.commonPool()).getCache("benchmark");
+        accountHistoryCache = new AccountHistoryCache(properties);
+        for (long key = 0; key < HOT_KEYS; key++) {
+            springCache.put(key, PAGE);
+            accountHistoryCache.get(key, "c:null:20", () -> PAGE);
+        }
+    }
+
+    @Benchmark
+    public Object springCacheHit(Keys keys) {
+        return springCache.get(keys.hot(), () -> PAGE);
+    }
+
+    @Benchmark
+    public Object springCacheMiss(Keys keys) {
+        return springCache.get(keys.cold(), () -> PAGE);
+    }
+
+    @Benchmark
+    public TransactionPage accountHistoryHit(Keys keys) {
+        return accountHistoryCache.get(keys.hot(), "c:null:20", () -> PAGE);
+    }
+
+    @Benchmark
+    public TransactionPage accountHistoryMiss(Keys keys) {
+        return accountHistoryCache.get(keys.cold(), "c:null:20", () -> PAGE);
+    }
+}
@@ -0,0 +1,49 @@
+package com.bank.transaction.benchmark;
+
+import com.bank.transaction.id.SnowflakeIdGenerator;
+import com.bank.transaction.token.TokenGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 512 个线程同时生成交易ID和 token 的吞吐量。
+ * uuidToken 为原先 UUID.randomUUID().toString() 的方式，所有线程竞争同一个 SecureRandom。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(512)
+public class IdBenchmark {
+
+    private final SnowflakeIdGenerator ids = new SnowflakeIdGenerator(0);
+    private final TokenGenerator tokens = new TokenGenerator();
+
+    @Benchmark
+    public long snowflakeId() {
+        return ids.nextId();
+    }
+
+    @Benchmark
+    public String compactToken() {
+        return tokens.next().encode();
+    }
+
+    @Benchmark
+    public String uuidToken() {
+        return UUID.randomUUID().toString();
+    }
+}
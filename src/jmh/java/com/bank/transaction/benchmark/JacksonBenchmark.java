@@ -0,0 +1,93 @@
+package com.bank.transaction.benchmark;
+
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交易列表的序列化耗时：实体 JSON、TransactionView JSON 与 Smile，ObjectMapper 与 Spring MVC 配置一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JacksonBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private ObjectWriter writer;
+    private ObjectWriter viewWriter;
+    private ObjectWriter smileWriter;
+    private List<Transaction> transactions;
+    private List<TransactionView> views;
+
+    @Setup
+    public void setUp() {
+        // 与 Spring Boot 默认的 ObjectMapper 一致：时间输出为 ISO 字符串
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(new SimpleFilterProvider().addFilter(TransactionView.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+        ObjectMapper objectMapper = builder.build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Transaction.class));
+        viewWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, TransactionView.class));
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        smileWriter = smileMapper.writerFor(smileMapper.getTypeFactory().constructCollectionType(List.class, TransactionView.class));
+        transactions = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId((long) i + 1);
+            transaction.setTransactionType(TransactionType.TRANSFER);
+            transaction.setInAccount(1L);
+            transaction.setOutAccount(2L + i);
+            transaction.setAmount(new BigDecimal("100.00").add(BigDecimal.valueOf(i)));
+            transaction.setDelFlag(false);
+            transaction.setCreatedAt(start.plusSeconds(i));
+            transactions.add(transaction);
+        }
+        views = transactions.stream().map(TransactionView::of).toList();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(transactions);
+    }
+
+    @Benchmark
+    public byte[] serializeView() throws JsonProcessingException {
+        return viewWriter.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] serializeViewSmile() throws JsonProcessingException {
+        return smileWriter.writeValueAsBytes(views);
+    }
+}
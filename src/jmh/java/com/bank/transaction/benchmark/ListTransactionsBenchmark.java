@@ -0,0 +1,118 @@
+package com.bank.transaction.benchmark;
+
+import com.bank.transaction.TransactionApplication;
+import com.bank.transaction.dto.TransactionCursor;
+import com.bank.transaction.dto.TransactionPage;
+import com.bank.transaction.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 账户交易历史分页查询在不同历史规模下的耗时。
+ * 使用 H2 内存库启动完整的 Spring 上下文，并关闭账户缓存，每次调用都会访问数据库。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ListTransactionsBenchmark {
+
+    private static final long ACCOUNT_ID = 1L;
+    private static final int PAGE_SIZE = 20;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"100", "10000", "100000"})
+    public int historySize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private int lastPage;
+    private String lastCursor;
+
+    @Setup
+    public void setUp() {
+        // 以命令行参数传入，优先级高于 application.yml
+        context = new SpringApplicationBuilder(TransactionApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + historySize + ";DB_CLOSE_DELAY=-1",
+                        "--transaction.cache.account-history.max-pages-per-account=0",
+                        "--transaction.ingest.async.enabled=false",
+                        "--logging.level.root=WARN");
+        transactionService = context.getBean(TransactionService.class);
+        seed(context.getBean(JdbcTemplate.class));
+
+        lastPage = (historySize - 1) / PAGE_SIZE;
+        // 最后一页之前一条记录的游标，对应偏移分页的最后一页
+        int before = lastPage * PAGE_SIZE - 1;
+        lastCursor = before < 0 ? null
+                : new TransactionCursor(START.plusSeconds(historySize - 1 - before), (long) (historySize - before)).encode();
+
+        // 两种分页方式的末页应当是同一批数据
+        int expected = historySize - lastPage * PAGE_SIZE;
+        if (lastPageByOffset().getContent().size() != expected || lastPageByCursor().getContent().size() != expected) {
+            throw new IllegalStateException("测试数据与预期的分页结果不一致");
+        }
+    }
+
+    // 第 i 条交易的创建时间为 START + i 秒，一半转入一半转出，另有同等数量的其他账户交易
+    private void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>(historySize * 2);
+        for (int i = 0; i < historySize; i++) {
+            Timestamp createdAt = Timestamp.valueOf(START.plusSeconds(i));
+            long inAccount = i % 2 == 0 ? ACCOUNT_ID : 1000 + i;
+            long outAccount = i % 2 == 0 ? 1000 + i : ACCOUNT_ID;
+            rows.add(new Object[]{(long) i + 1, inAccount, outAccount, createdAt});
+            rows.add(new Object[]{(long) historySize + i + 1, 2000L + i, 3000L + i, createdAt});
+        }
+        jdbcTemplate.batchUpdate("insert into transactions "
+                + "(transaction_id, transaction_type, in_account, out_account, amount, del_flag, created_at) "
+                + "values (?, 'TRANSFER', ?, ?, 100.00, false, ?)", rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionPage firstPageByOffset() {
+        return transactionService.listTransactions(ACCOUNT_ID, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TransactionPage lastPageByOffset() {
+        return transactionService.listTransactions(ACCOUNT_ID, lastPage, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TransactionPage firstPageByCursor() {
+        return transactionService.listTransactionsByCursor(ACCOUNT_ID, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TransactionPage lastPageByCursor() {
+        return transactionService.listTransactionsByCursor(ACCOUNT_ID, lastCursor, PAGE_SIZE);
+    }
+}
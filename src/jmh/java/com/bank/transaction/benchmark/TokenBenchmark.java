@@ -0,0 +1,55 @@
+package com.bank.transaction.benchmark;
+
+import com.bank.transaction.token.InMemoryTokenStore;
+import com.bank.transaction.token.TokenClaim;
+import com.bank.transaction.util.TokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * token 获取与占用在多线程竞争下的吞吐量，所有线程共享同一个 TokenUtil
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+public class TokenBenchmark {
+
+    private TokenUtil tokenUtil;
+
+    // 每轮重建存储，有效期取 2 秒，避免长时间运行后存储写满
+    @Setup(Level.Iteration)
+    public void setUp() {
+        tokenUtil = new TokenUtil(new InMemoryTokenStore(2, 1, 20_000_000, 64), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenUtil.generateToken();
+    }
+
+    // 一次幂等写入的完整 token 开销：获取、占用、完成
+    @Benchmark
+    public TokenClaim generateAndClaim() {
+        TokenClaim claim = tokenUtil.claimToken(tokenUtil.generateToken());
+        claim.succeed(1L);
+        tokenUtil.completeToken(claim);
+        return claim;
+    }
+}
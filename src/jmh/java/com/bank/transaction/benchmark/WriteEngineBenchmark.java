@@ -0,0 +1,83 @@
+package com.bank.transaction.benchmark;
+
+import com.bank.transaction.TransactionApplication;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.service.TransactionService;
+import com.bank.transaction.util.TokenUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单笔创建交易的吞吐量：direct 为调用线程各自开启事务写入，sharded 为按转出账户分片的单写线程组提交。
+ * accounts 为转出账户数，1 时所有请求落在同一个分片，用于观察热点账户下的表现。
+ * 使用 H2 内存库启动完整的 Spring 上下文，包含 token 占用、事件发布等完整的写入路径。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+public class WriteEngineBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Param({"direct", "sharded"})
+    public String engine;
+
+    @Param({"1", "1024"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private TokenUtil tokenUtil;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(TransactionApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:write-" + engine + "-" + accounts + ";DB_CLOSE_DELAY=-1",
+                        "--transaction.ingest.sharded.enabled=" + engine.equals("sharded"),
+                        "--transaction.ingest.async.enabled=false",
+                        "--transaction.token.memory.max-tokens=20000000",
+                        "--logging.level.root=WARN");
+        transactionService = context.getBean(TransactionService.class);
+        tokenUtil = context.getBean(TokenUtil.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long createTransaction() {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionType(TransactionType.TRANSFER);
+        request.setOutAccount(1L + ThreadLocalRandom.current().nextInt(accounts));
+        request.setInAccount(100_000L);
+        request.setAmount(AMOUNT);
+        request.setToken(tokenUtil.generateToken());
+        return transactionService.createTransaction(request);
+    }
+}
@@ -1,11 +1,14 @@
 package com.bank.transaction;
 
+import com.bank.transaction.config.TransactionRuntimeHints;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(TransactionRuntimeHints.class)
 @OpenAPIDefinition(
     info = @Info(
         title = "BANK Transaction API",
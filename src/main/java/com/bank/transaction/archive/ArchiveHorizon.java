@@ -0,0 +1,56 @@
+package com.bank.transaction.archive;
+
+import com.bank.transaction.config.ArchiveProperties;
+import com.bank.transaction.repository.ArchivedTransactionRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 热表与归档表的时间边界：归档表中未删除的交易都早于 horizon，查询范围不早于 horizon 时只查热表。
+ * horizon 取 "当前时间 - 保留期" 与归档表中最新交易时间两者的较大值：前者保证其他实例归档的数据也能被查到，
+ * 后者保证调大保留期后，之前按较短保留期归档的数据仍然可见。
+ */
+@Component
+public class ArchiveHorizon {
+
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final ArchiveProperties properties;
+    // 为空表示尚未从归档表加载
+    private final AtomicReference<LocalDateTime> latestArchived = new AtomicReference<>();
+    private volatile boolean loaded;
+
+    public ArchiveHorizon(ArchivedTransactionRepository archivedTransactionRepository, ArchiveProperties properties) {
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.properties = properties;
+    }
+
+    public LocalDateTime horizon() {
+        LocalDateTime byAge = LocalDateTime.now().minus(properties.getMaxAge());
+        LocalDateTime archived = latestArchived();
+        return archived != null && archived.isAfter(byAge) ? archived.plusNanos(1000) : byAge;
+    }
+
+    // 查询范围的下界早于 horizon 时需要合并归档表，from 为空表示不限
+    public boolean reaches(LocalDateTime from) {
+        return from == null || from.isBefore(horizon());
+    }
+
+    // 本实例归档后更新，只会向后推进
+    public void advance(LocalDateTime createdAt) {
+        latestArchived();
+        latestArchived.accumulateAndGet(createdAt, (current, next) -> current == null || next.isAfter(current) ? next : current);
+    }
+
+    private LocalDateTime latestArchived() {
+        if (!loaded) {
+            LocalDateTime latest = archivedTransactionRepository.findLatestCreatedAt();
+            if (latest != null) {
+                latestArchived.accumulateAndGet(latest, (current, next) -> current == null || next.isAfter(current) ? next : current);
+            }
+            loaded = true;
+        }
+        return latestArchived.get();
+    }
+}
@@ -0,0 +1,132 @@
+package com.bank.transaction.archive;
+
+import com.bank.transaction.config.ArchiveProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 把超过保留期的交易和已软删除的交易从 transactions 移到 transactions_archive。
+ * 按主键顺序分块处理，每块一个事务：先按版本号删除热表中的行，只把删除成功的行写入归档表，
+ * 与并发的修改、删除互不覆盖；被并发修改的行留到下一次归档。
+ */
+@Component
+public class TransactionArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    private static final String SELECT_SQL = "SELECT transaction_id, transaction_type, in_account, out_account, amount, "
+            + "del_flag, created_at, version FROM transactions "
+            + "WHERE transaction_id > ? AND (del_flag = true OR created_at < ?) ORDER BY transaction_id LIMIT ?";
+    private static final String DELETE_SQL = "DELETE FROM transactions WHERE transaction_id = ? AND version = ?";
+    private static final String INSERT_SQL = "INSERT INTO transactions_archive (transaction_id, transaction_type, in_account, "
+            + "out_account, amount, del_flag, created_at, version, archive_month, archived_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties properties;
+    private final ArchiveHorizon archiveHorizon;
+    private final Counter movedLive;
+    private final Counter movedDeleted;
+    private final Timer runTimer;
+    private final ReentrantLock running = new ReentrantLock();
+
+    public TransactionArchiver(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                               ArchiveProperties properties, ArchiveHorizon archiveHorizon, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.archiveHorizon = archiveHorizon;
+        this.movedLive = meterRegistry.counter("transaction.archive.rows", "reason", "aged");
+        this.movedDeleted = meterRegistry.counter("transaction.archive.rows", "reason", "deleted");
+        this.runTimer = Timer.builder("transaction.archive.run")
+                .description("一次归档任务的耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 执行一次归档，返回移动的行数；上一次归档尚未结束时直接返回 0
+     */
+    public long archive() {
+        if (!running.tryLock()) {
+            return 0;
+        }
+        try {
+            return runTimer.record(() -> archiveBefore(LocalDateTime.now().minus(properties.getMaxAge())));
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private long archiveBefore(LocalDateTime cutoff) {
+        long afterId = Long.MIN_VALUE;
+        long moved = 0;
+        while (true) {
+            long from = afterId;
+            Chunk chunk = transactionTemplate.execute(status -> moveChunk(from, cutoff));
+            if (chunk == null || chunk.lastId == null) {
+                break;
+            }
+            moved += chunk.moved;
+            afterId = chunk.lastId;
+        }
+        if (moved > 0) {
+            logger.info("交易归档完成，截止时间：{}，移动：{}", cutoff, moved);
+        }
+        return moved;
+    }
+
+    private Chunk moveChunk(long afterId, LocalDateTime cutoff) {
+        List<Object[]> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Object[]{
+                rs.getLong("transaction_id"), rs.getString("transaction_type"), rs.getLong("in_account"),
+                rs.getLong("out_account"), rs.getBigDecimal("amount"), rs.getBoolean("del_flag"),
+                rs.getTimestamp("created_at"), rs.getLong("version")
+        }, afterId, Timestamp.valueOf(cutoff), properties.getChunkSize());
+        if (rows.isEmpty()) {
+            return new Chunk(null, 0);
+        }
+
+        int[] deleted = jdbcTemplate.batchUpdate(DELETE_SQL, rows.stream().map(row -> new Object[]{row[0], row[7]}).toList());
+        Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> archived = new ArrayList<>(rows.size());
+        LocalDateTime latestLive = null;
+        for (int i = 0; i < rows.size(); i++) {
+            if (deleted[i] == 0) {
+                continue;
+            }
+            Object[] row = rows.get(i);
+            LocalDateTime createdAt = ((Timestamp) row[6]).toLocalDateTime();
+            Object[] values = new Object[]{row[0], row[1], row[2], row[3], row[4], row[5], row[6], row[7],
+                    createdAt.getYear() * 100 + createdAt.getMonthValue(), archivedAt};
+            archived.add(values);
+            if ((Boolean) row[5]) {
+                movedDeleted.increment();
+            } else {
+                movedLive.increment();
+                if (latestLive == null || createdAt.isAfter(latestLive)) {
+                    latestLive = createdAt;
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, archived);
+        if (latestLive != null) {
+            archiveHorizon.advance(latestLive);
+        }
+        return new Chunk((Long) rows.get(rows.size() - 1)[0], archived.size());
+    }
+
+    private record Chunk(Long lastId, int moved) {
+    }
+}
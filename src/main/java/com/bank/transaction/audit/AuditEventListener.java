@@ -0,0 +1,75 @@
+package com.bank.transaction.audit;
+
+import com.bank.transaction.config.AuditProperties;
+import com.bank.transaction.event.TransactionChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把交易变更事件转换为审计记录。同一个事务内的记录先收集起来：
+ * SYNC 模式在事务提交前一次批量写入，ASYNC 模式在事务提交后放入缓冲区，回滚的变更不会留下审计记录。
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditEventListener {
+
+    private final AuditLogWriter auditLogWriter;
+    private final AuditProperties properties;
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        AuditRecord record = AuditRecord.of(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(List.of(record));
+            return;
+        }
+        PendingRecords pending = (PendingRecords) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingRecords();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.records.add(record);
+    }
+
+    private void dispatch(List<AuditRecord> records) {
+        if (properties.getDurability() == AuditProperties.Durability.SYNC) {
+            auditLogWriter.write(records);
+        } else {
+            auditLogWriter.enqueue(records);
+        }
+    }
+
+    // 当前事务内产生的审计记录
+    private class PendingRecords implements TransactionSynchronization {
+        private final List<AuditRecord> records = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (properties.getDurability() == AuditProperties.Durability.SYNC) {
+                auditLogWriter.write(records);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (properties.getDurability() == AuditProperties.Durability.ASYNC) {
+                auditLogWriter.enqueue(records);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(AuditEventListener.this);
+        }
+    }
+}
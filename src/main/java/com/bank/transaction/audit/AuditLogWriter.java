@@ -0,0 +1,181 @@
+package com.bank.transaction.audit;
+
+import com.bank.transaction.config.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志写入：ASYNC 模式下请求线程只把记录放入环形缓冲区，由单个后台线程按批写入 transaction_logs；
+ * SYNC 模式及 CALLER_RUNS 溢出时由调用线程直接批量写入。
+ */
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+    private static final String INSERT_SQL =
+            "INSERT INTO transaction_logs (transaction_id, message, del_flag, logged_at) VALUES (?, ?, false, ?)";
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long BLOCK_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditProperties properties;
+    private final AuditRingBuffer buffer;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final DistributionSummary batchSize;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate, AuditProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.buffer = new AuditRingBuffer(properties.getBufferSize());
+        this.written = meterRegistry.counter("transaction.audit.written");
+        this.dropped = meterRegistry.counter("transaction.audit.dropped");
+        this.failed = meterRegistry.counter("transaction.audit.failed");
+        this.batchSize = DistributionSummary.builder("transaction.audit.batch.size")
+                .description("每次批量写入的审计记录数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("transaction.audit.flush")
+                .description("审计记录批量写入耗时")
+                .register(meterRegistry);
+        Gauge.builder("transaction.audit.queue.size", buffer, AuditRingBuffer::size)
+                .description("环形缓冲区中等待写入的审计记录数")
+                .register(meterRegistry);
+        Gauge.builder("transaction.audit.queue.capacity", buffer, AuditRingBuffer::capacity)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 放入缓冲区等待后台写入，缓冲区已满时按溢出策略处理
+     */
+    public void enqueue(List<AuditRecord> records) {
+        for (AuditRecord record : records) {
+            if (buffer.offer(record)) {
+                continue;
+            }
+            switch (properties.getOverflowPolicy()) {
+                case CALLER_RUNS -> write(List.of(record));
+                case BLOCK -> {
+                    if (!offerWithin(record, properties.getOfferTimeout().toNanos())) {
+                        dropped.increment();
+                    }
+                }
+                default -> dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * 由调用线程直接批量写入，异常向上抛出（SYNC 模式下使业务事务回滚）
+     */
+    public void write(List<AuditRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, records, records.size(), (ps, record) -> {
+            ps.setLong(1, record.transactionId());
+            ps.setString(2, record.message());
+            ps.setTimestamp(3, Timestamp.valueOf(record.loggedAt()));
+        }));
+        batchSize.record(records.size());
+        written.increment(records.size());
+    }
+
+    private boolean offerWithin(AuditRecord record, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(BLOCK_BACKOFF_NANOS);
+            if (buffer.offer(record)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 攒满一批或距本批第一条记录超过 flushInterval 时写入，空闲时短暂休眠
+    private void consume() {
+        int max = properties.getBatchSize();
+        long flushNanos = properties.getFlushInterval().toNanos();
+        long idleNanos = Math.min(Math.max(flushNanos / 2, 1), MAX_IDLE_NANOS);
+        List<AuditRecord> batch = new ArrayList<>(max);
+        long batchStart = 0;
+        while (running || buffer.size() > 0 || !batch.isEmpty()) {
+            boolean wasEmpty = batch.isEmpty();
+            int drained = buffer.drainTo(batch, max - batch.size());
+            if (wasEmpty && drained > 0) {
+                batchStart = System.nanoTime();
+            }
+            if (!batch.isEmpty() && (batch.size() >= max || !running || System.nanoTime() - batchStart >= flushNanos)) {
+                flush(batch);
+                batch.clear();
+            } else if (drained == 0) {
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+    }
+
+    private void flush(List<AuditRecord> batch) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            logger.error("审计日志写入失败，丢弃 {} 条记录", batch.size(), e);
+            failed.increment(batch.size());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running || properties.getDurability() != AuditProperties.Durability.ASYNC) {
+            return;
+        }
+        running = true;
+        consumer = Thread.ofPlatform().name("audit-writer").daemon().start(this::consume);
+        logger.info("审计日志写线程已启动，缓冲区容量：{}，单批上限：{}", buffer.capacity(), properties.getBatchSize());
+    }
+
+    // 在数据源关闭之前停止，把缓冲区中剩余的记录写完
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            consumer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("审计日志写线程已停止，未写入：{}", buffer.size());
+    }
+
+    // 晚于异步交易写入线程停止，保证其最后一批交易的审计记录也能写入
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,29 @@
+package com.bank.transaction.audit;
+
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.event.TransactionChangedEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一条待写入 transaction_logs 的审计记录，在事件发生时生成，写入时不再访问实体
+ */
+public record AuditRecord(Long transactionId, String message, LocalDateTime loggedAt) {
+
+    public static AuditRecord of(TransactionChangedEvent event) {
+        Transaction after = event.getAfter();
+        String message = switch (event.getChangeType()) {
+            case CREATED -> "CREATED " + describe(after);
+            case MODIFIED -> "MODIFIED " + describe(event.getBefore()) + " -> " + describe(after);
+            case DELETED -> "DELETED " + describe(event.getBefore());
+        };
+        return new AuditRecord(after.getTransactionId(), message, LocalDateTime.now());
+    }
+
+    private static String describe(Transaction transaction) {
+        return "[type=" + transaction.getTransactionType()
+                + ", in=" + transaction.getInAccount()
+                + ", out=" + transaction.getOutAccount()
+                + ", amount=" + transaction.getAmount().toPlainString() + "]";
+    }
+}
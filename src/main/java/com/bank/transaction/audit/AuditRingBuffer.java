@@ -0,0 +1,85 @@
+package com.bank.transaction.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界无锁环形缓冲区：多个生产者、单个消费者。
+ * 每个槽位带一个序号，生产者通过 CAS 竞争写入位置，写完后发布序号；消费者按序号判断槽位是否可读。
+ */
+public class AuditRingBuffer {
+
+    private final AuditRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    public AuditRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 2);
+        this.records = new AuditRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入一条记录，缓冲区已满时返回 false，可由多个线程并发调用
+     */
+    public boolean offer(AuditRecord record) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    records[index] = record;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出最多 max 条记录，只能由消费者线程调用
+     */
+    public int drainTo(List<AuditRecord> target, int max) {
+        long position = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add(records[index]);
+            records[index] = null;
+            // 槽位在下一圈可写
+            sequences.set(index, position + records.length);
+            position++;
+            drained++;
+        }
+        head.set(position);
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return records.length;
+    }
+}
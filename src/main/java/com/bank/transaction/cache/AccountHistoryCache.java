@@ -0,0 +1,274 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.config.CacheProperties;
+import com.bank.transaction.datasource.ReadRoutingContext;
+import com.bank.transaction.dto.TransactionPage;
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 账户交易历史缓存：以账户为单位缓存该账户的各个分页。
+ * 写入只失效涉及到的转入、转出账户，其他账户的缓存不受影响。
+ * 本地缓存未命中时先查多实例共享的 {@link SharedPageCache}（如已配置），再查询数据库；
+ * 写入提交后先失效共享缓存，再通过 {@link InvalidationBus} 通知其他实例失效本地缓存。
+ */
+@Component
+public class AccountHistoryCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountHistoryCache.class);
+    static final String CACHE_NAME = "accountHistory";
+    static final String SHARED_CACHE_NAME = "accountHistoryShared";
+
+    private final Cache<Long, AccountPages> accounts;
+    private final int maxPagesPerAccount;
+    // 未配置共享缓存时为 null
+    private final SharedPageCache sharedCache;
+    private final InvalidationBus invalidationBus;
+    // 查询数据库时使用的只读事务，缓存命中不开启事务、不占用连接
+    private final TransactionOperations readOnlyTransaction;
+    // 共享缓存失效和发布失效消息在此执行，见 CacheConfig.INVALIDATION_EXECUTOR
+    private final Executor invalidationExecutor;
+    // 本实例已提交、共享缓存尚未失效的账户及次数，期间这些账户跳过共享缓存
+    private final ConcurrentHashMap<Long, Integer> pendingInvalidations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder sharedMisses = new LongAdder();
+    private final LongAdder sharedFailures = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder receivedInvalidations = new LongAdder();
+
+    public AccountHistoryCache(CacheProperties properties) {
+        this(properties, null, new LocalInvalidationBus());
+    }
+
+    // 测试时多个实例共用同一个共享缓存和总线，模拟多个节点
+    public AccountHistoryCache(CacheProperties properties, SharedPageCache sharedCache, InvalidationBus invalidationBus) {
+        this(properties, ForkJoinPool.commonPool(), sharedCache, invalidationBus,
+                TransactionOperations.withoutTransaction(), Runnable::run);
+    }
+
+    @Autowired
+    public AccountHistoryCache(CacheProperties properties, @Qualifier(CacheConfig.CACHE_EXECUTOR) Executor executor,
+                               ObjectProvider<SharedPageCache> sharedCache, InvalidationBus invalidationBus,
+                               PlatformTransactionManager transactionManager,
+                               @Qualifier(CacheConfig.INVALIDATION_EXECUTOR) Executor invalidationExecutor) {
+        this(properties, executor, sharedCache.getIfAvailable(), invalidationBus,
+                readOnly(transactionManager), invalidationExecutor);
+    }
+
+    private AccountHistoryCache(CacheProperties properties, Executor executor, SharedPageCache sharedCache,
+                                InvalidationBus invalidationBus, TransactionOperations readOnlyTransaction,
+                                Executor invalidationExecutor) {
+        CacheProperties.AccountHistory config = properties.getAccountHistory();
+        this.accounts = Caffeine.from(config.getSpec()).executor(executor).recordStats().build();
+        this.maxPagesPerAccount = config.getMaxPagesPerAccount();
+        this.sharedCache = sharedCache;
+        this.invalidationBus = invalidationBus;
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.invalidationExecutor = invalidationExecutor;
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    private static TransactionOperations readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    /**
+     * 读取账户的某一页，未命中时调用 loader 加载；同一分页的并发未命中只会加载一次
+     */
+    public TransactionPage get(Long accountId, String pageKey, Supplier<TransactionPage> loader) {
+        AccountPages pages = accounts.get(accountId, id -> new AccountPages());
+        CompletableFuture<TransactionPage> cached = pages.get(pageKey);
+        if (cached != null) {
+            hits.increment();
+            return join(cached);
+        }
+        misses.increment();
+        if (pages.size() >= maxPagesPerAccount) {
+            return load(accountId, pageKey, loader);
+        }
+        CompletableFuture<TransactionPage> loading = new CompletableFuture<>();
+        CompletableFuture<TransactionPage> existing = pages.putIfAbsent(pageKey, loading);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            TransactionPage page = load(accountId, pageKey, loader);
+            loading.complete(page);
+            return page;
+        } catch (RuntimeException e) {
+            pages.remove(pageKey, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // 先按代数查共享缓存，未命中再查询数据库并写回；共享缓存不可用时按未命中处理
+    private TransactionPage load(Long accountId, String pageKey, Supplier<TransactionPage> loader) {
+        if (sharedCache == null || pendingInvalidations.containsKey(accountId)) {
+            return query(loader);
+        }
+        long generation;
+        try {
+            generation = sharedCache.generation(accountId);
+            TransactionPage shared = sharedCache.get(accountId, generation, pageKey);
+            if (shared != null) {
+                sharedHits.increment();
+                return shared;
+            }
+        } catch (RuntimeException e) {
+            sharedFailures.increment();
+            logger.warn("读取共享缓存失败，账户：{}", accountId, e);
+            return query(loader);
+        }
+        sharedMisses.increment();
+        // 代数在查询数据库之前读取，写入的分页不会比所在代数更新
+        TransactionPage page = query(loader);
+        try {
+            sharedCache.put(accountId, generation, pageKey, page);
+        } catch (RuntimeException e) {
+            sharedFailures.increment();
+            logger.warn("写入共享缓存失败，账户：{}", accountId, e);
+        }
+        return page;
+    }
+
+    // 加载的分页会写入缓存，固定从主库读取：失效后从库可能尚未同步该写入，
+    // 从从库读到的旧分页会一直缓存到下一次写入或过期
+    private TransactionPage query(Supplier<TransactionPage> loader) {
+        return ReadRoutingContext.onPrimary(() -> readOnlyTransaction.execute(status -> loader.get()));
+    }
+
+    public void evict(Collection<Long> accountIds) {
+        accounts.invalidateAll(accountIds);
+        invalidations.add(accountIds.size());
+    }
+
+    // 事务提交后再失效，避免提交前被并发读请求用旧数据重新填充
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        Collection<Long> accountIds = event.affectedAccounts();
+        evict(accountIds);
+        for (Long accountId : accountIds) {
+            pendingInvalidations.merge(accountId, 1, Integer::sum);
+        }
+        invalidationExecutor.execute(() -> propagate(accountIds));
+        logger.debug("账户交易缓存已失效，账户：{}", accountIds);
+    }
+
+    // 失效共享缓存后再通知其他实例，否则其他实例可能从共享缓存重新读到旧分页。
+    // 等待期间本实例可能已用旧代数的分页填充本地缓存，完成后再失效一次
+    private void propagate(Collection<Long> accountIds) {
+        try {
+            if (sharedCache != null) {
+                sharedCache.invalidate(accountIds);
+            }
+        } catch (RuntimeException e) {
+            sharedFailures.increment();
+            logger.warn("共享缓存失效失败，将在过期后刷新，账户：{}", accountIds, e);
+        } finally {
+            for (Long accountId : accountIds) {
+                pendingInvalidations.computeIfPresent(accountId, (id, count) -> count > 1 ? count - 1 : null);
+            }
+            accounts.invalidateAll(accountIds);
+        }
+        try {
+            invalidationBus.publish(accountIds);
+        } catch (RuntimeException e) {
+            logger.warn("发布缓存失效消息失败，其他实例的缓存将在过期后刷新，账户：{}", accountIds, e);
+        }
+    }
+
+    // 收到的失效消息只失效本地缓存，共享缓存已由发布方失效
+    private void onInvalidation(Collection<Long> accountIds) {
+        accounts.invalidateAll(accountIds);
+        receivedInvalidations.add(accountIds.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", CACHE_NAME, "result", "hit")
+                .description("The number of times cache lookup methods have returned a cached value.")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", CACHE_NAME, "result", "miss")
+                .description("The number of times cache lookup methods have returned an uncached value.")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", accounts, c -> c.stats().evictionCount())
+                .tags("cache", CACHE_NAME)
+                .description("The number of accounts evicted because of size or expiry.")
+                .register(registry);
+        FunctionCounter.builder("cache.invalidations", invalidations, LongAdder::sum)
+                .tags("cache", CACHE_NAME)
+                .description("The number of accounts invalidated by transaction writes.")
+                .register(registry);
+        FunctionCounter.builder("cache.invalidations.received", receivedInvalidations, LongAdder::sum)
+                .tags("cache", CACHE_NAME)
+                .description("The number of accounts invalidated by messages from the invalidation bus.")
+                .register(registry);
+        if (sharedCache != null) {
+            FunctionCounter.builder("cache.gets", sharedHits, LongAdder::sum)
+                    .tags("cache", SHARED_CACHE_NAME, "result", "hit")
+                    .description("The number of local misses served by the shared cache.")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", sharedMisses, LongAdder::sum)
+                    .tags("cache", SHARED_CACHE_NAME, "result", "miss")
+                    .description("The number of local misses loaded from the database.")
+                    .register(registry);
+            FunctionCounter.builder("cache.failures", sharedFailures, LongAdder::sum)
+                    .tags("cache", SHARED_CACHE_NAME)
+                    .description("The number of failed shared cache operations.")
+                    .register(registry);
+        }
+        Gauge.builder("cache.size", accounts, Cache::estimatedSize)
+                .tags("cache", CACHE_NAME)
+                .description("The number of accounts currently cached.")
+                .register(registry);
+    }
+
+    private static TransactionPage join(CompletableFuture<TransactionPage> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // 单个账户已缓存的分页，value 为加载中或已加载完成的结果
+    private static class AccountPages extends ConcurrentHashMap<String, CompletableFuture<TransactionPage>> {
+    }
+}
@@ -0,0 +1,55 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.dto.TransactionPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * 进程内的共享缓存实现，测试时多个 {@link AccountHistoryCache} 共用一个实例模拟多个节点
+ */
+public class InMemorySharedPageCache implements SharedPageCache {
+
+    private final Cache<PageKey, TransactionPage> pages;
+    // 代数只按写入时间过期，不按容量淘汰：过期时该账户所有分页都已过期，代数重新从 0 开始也不会读到旧分页
+    private final Cache<Long, Long> generations;
+
+    public InMemorySharedPageCache(Duration ttl, long maximumSize) {
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.generations = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public long generation(long accountId) {
+        Long generation = generations.getIfPresent(accountId);
+        return generation != null ? generation : 0;
+    }
+
+    @Override
+    public TransactionPage get(long accountId, long generation, String pageKey) {
+        return pages.getIfPresent(new PageKey(accountId, generation, pageKey));
+    }
+
+    @Override
+    public void put(long accountId, long generation, String pageKey, TransactionPage page) {
+        pages.put(new PageKey(accountId, generation, pageKey), page);
+    }
+
+    @Override
+    public void invalidate(Collection<Long> accountIds) {
+        // 旧代数的分页不再可读，等待过期或按容量淘汰
+        for (Long accountId : accountIds) {
+            generations.asMap().merge(accountId, 1L, Long::sum);
+        }
+    }
+
+    private record PageKey(long accountId, long generation, String pageKey) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.transaction.cache;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效总线：交易写入后通知各实例失效涉及账户的本地缓存。消息可能重复，订阅方的失效操作需要幂等。
+ */
+public interface InvalidationBus {
+
+    void publish(Collection<Long> accountIds);
+
+    /**
+     * 订阅其他实例发布的失效消息，本实例发布的消息是否回送由实现决定
+     */
+    void subscribe(Consumer<Collection<Long>> subscriber);
+}
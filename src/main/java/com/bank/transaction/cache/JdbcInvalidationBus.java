@@ -0,0 +1,169 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.config.CacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 基于数据库的失效总线：发布时向 cache_invalidations 表插入消息（见 V10 迁移脚本），
+ * 各实例的后台线程按 id 递增轮询其他实例的消息。
+ * id 在插入时分配、提交顺序可能不同，遇到空缺时水位线停在空缺之前，最多等待 gapTimeout 后跳过。
+ */
+public class JdbcInvalidationBus implements InvalidationBus, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcInvalidationBus.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cache_invalidations (account_id, origin, created_at) VALUES (?, ?, ?)";
+    private static final String POLL_SQL =
+            "SELECT id, account_id, origin FROM cache_invalidations WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheProperties.Bus properties;
+    private final String origin = UUID.randomUUID().toString();
+    private final List<Consumer<Collection<Long>>> subscribers = new CopyOnWriteArrayList<>();
+
+    // 水位线之前（含）的消息都已处理；水位线之后已处理的 id，只由轮询线程访问
+    private long watermark = -1;
+    private final Set<Long> delivered = new HashSet<>();
+    private long gapSince;
+
+    private volatile ScheduledExecutorService poller;
+
+    public JdbcInvalidationBus(JdbcTemplate jdbcTemplate, CacheProperties.Bus properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    @Override
+    public void publish(Collection<Long> accountIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(accountIds.size());
+        for (Long accountId : accountIds) {
+            rows.add(new Object[]{accountId, origin, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Override
+    public void subscribe(Consumer<Collection<Long>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * 读取一批新消息并通知订阅方，返回通知的账户数
+     */
+    public int poll() {
+        if (watermark < 0) {
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cache_invalidations", Long.class);
+            watermark = max != null ? max : 0;
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>();
+        List<Long> accountIds = new ArrayList<>();
+        jdbcTemplate.query(POLL_SQL, rs -> {
+            long id = rs.getLong(1);
+            ids.add(id);
+            if (delivered.add(id) && !origin.equals(rs.getString(3))) {
+                accountIds.add(rs.getLong(2));
+            }
+        }, watermark, properties.getBatchSize());
+        if (!accountIds.isEmpty()) {
+            for (Consumer<Collection<Long>> subscriber : subscribers) {
+                subscriber.accept(accountIds);
+            }
+        }
+        advance(ids);
+        return accountIds.size();
+    }
+
+    // 水位线推进到第一个空缺之前；空缺超过 gapTimeout 仍未补上时视为已回滚，直接跳过
+    private void advance(List<Long> ids) {
+        for (long id : ids) {
+            if (id != watermark + 1) {
+                long now = System.nanoTime();
+                if (gapSince == 0) {
+                    gapSince = now;
+                    return;
+                }
+                if (now - gapSince < properties.getGapTimeout().toNanos()) {
+                    return;
+                }
+                logger.debug("跳过失效消息空缺 ({}, {})", watermark, id);
+            }
+            gapSince = 0;
+            watermark = id;
+            delivered.remove(id);
+        }
+        if (ids.isEmpty()) {
+            gapSince = 0;
+        }
+    }
+
+    /**
+     * 删除超过保留时间的消息
+     */
+    public int purge() {
+        return jdbcTemplate.update("DELETE FROM cache_invalidations WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(properties.getRetention())));
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            logger.warn("读取缓存失效消息失败", e);
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            logger.debug("已清理 {} 条过期缓存失效消息", purge());
+        } catch (RuntimeException e) {
+            logger.warn("缓存失效消息清理失败", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cache-invalidation").daemon().factory());
+        long pollMillis = properties.getPollInterval().toMillis();
+        poller.scheduleWithFixedDelay(this::pollQuietly, 0, pollMillis, TimeUnit.MILLISECONDS);
+        long purgeMillis = properties.getRetention().toMillis();
+        poller.scheduleWithFixedDelay(this::purgeQuietly, purgeMillis, purgeMillis, TimeUnit.MILLISECONDS);
+        logger.info("缓存失效总线已启动，实例：{}", origin);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = poller;
+        if (executor != null) {
+            executor.shutdownNow();
+            poller = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return poller != null;
+    }
+}
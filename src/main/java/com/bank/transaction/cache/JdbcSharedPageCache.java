@@ -0,0 +1,110 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.dto.TransactionPage;
+import com.bank.transaction.dto.TransactionView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 基于数据库的共享缓存，多个实例共用 cache_generations、cache_pages 表（见 V10 迁移脚本）。
+ * 分页以 JSON 保存，同一代数下的分页内容相同，并发写入时主键冲突直接忽略。
+ */
+public class JdbcSharedPageCache implements SharedPageCache {
+
+    private static final String SELECT_SQL =
+            "SELECT payload FROM cache_pages WHERE account_id = ? AND generation = ? AND page_key = ? AND expires_at > ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO cache_pages (account_id, generation, page_key, payload, expires_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public JdbcSharedPageCache(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    // TransactionPage 没有无参构造方法，以 record 读写
+    private record StoredPage(List<TransactionView> content, String nextCursor) {
+    }
+
+    @Override
+    public long generation(long accountId) {
+        List<Long> rows = jdbcTemplate.queryForList(
+                "SELECT generation FROM cache_generations WHERE account_id = ?", Long.class, accountId);
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+
+    @Override
+    public TransactionPage get(long accountId, long generation, String pageKey) {
+        List<String> rows = jdbcTemplate.queryForList(SELECT_SQL, String.class,
+                accountId, generation, pageKey, Timestamp.valueOf(LocalDateTime.now()));
+        if (rows.isEmpty()) {
+            return null;
+        }
+        StoredPage stored = read(rows.get(0));
+        return new TransactionPage(stored.content(), stored.nextCursor());
+    }
+
+    @Override
+    public void put(long accountId, long generation, String pageKey, TransactionPage page) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, accountId, generation, pageKey,
+                    write(new StoredPage(page.getContent(), page.getNextCursor())),
+                    Timestamp.valueOf(LocalDateTime.now().plus(ttl)));
+        } catch (DuplicateKeyException e) {
+            // 其他实例已写入同一代数的分页
+        }
+    }
+
+    @Override
+    public void invalidate(Collection<Long> accountIds) {
+        for (Long accountId : accountIds) {
+            int updated = jdbcTemplate.update(
+                    "UPDATE cache_generations SET generation = generation + 1 WHERE account_id = ?", accountId);
+            if (updated == 0) {
+                try {
+                    jdbcTemplate.update("INSERT INTO cache_generations (account_id, generation) VALUES (?, 1)", accountId);
+                } catch (DuplicateKeyException e) {
+                    jdbcTemplate.update("UPDATE cache_generations SET generation = generation + 1 WHERE account_id = ?", accountId);
+                }
+            }
+            jdbcTemplate.update("DELETE FROM cache_pages WHERE account_id = ? AND generation < ?",
+                    accountId, generation(accountId));
+        }
+    }
+
+    /**
+     * 删除已过期的分页
+     */
+    public int purge() {
+        return jdbcTemplate.update("DELETE FROM cache_pages WHERE expires_at <= ?", Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private String write(StoredPage page) {
+        try {
+            return objectMapper.writeValueAsString(page);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private StoredPage read(String payload) {
+        try {
+            return objectMapper.readValue(payload, StoredPage.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.transaction.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内总线：单实例部署时使用，测试时多个 {@link AccountHistoryCache} 共用一个实例模拟多个节点
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<Collection<Long>>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Collection<Long> accountIds) {
+        for (Consumer<Collection<Long>> subscriber : subscribers) {
+            subscriber.accept(accountIds);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Collection<Long>> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.transaction.cache;
+
+import com.bank.transaction.dto.TransactionPage;
+
+import java.util.Collection;
+
+/**
+ * 多个实例共享的二级分页缓存。每个账户有一个递增的代数，分页按 (账户, 代数, 分页键) 存放，
+ * 失效只需把账户的代数加 1：旧代数下的分页不再被读到，失效前开始、失效后才写入的旧数据也只会写进旧代数。
+ * 读取方先取代数再查询数据库，保证写入的分页不会比它所在的代数更新。
+ */
+public interface SharedPageCache {
+
+    /**
+     * 账户当前的代数，从未失效过的账户为 0
+     */
+    long generation(long accountId);
+
+    /**
+     * 读取分页，不存在或已过期时返回 null
+     */
+    TransactionPage get(long accountId, long generation, String pageKey);
+
+    void put(long accountId, long generation, String pageKey, TransactionPage page);
+
+    /**
+     * 账户代数加 1，旧代数的分页不再可读
+     */
+    void invalidate(Collection<Long> accountIds);
+}
@@ -0,0 +1,33 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.archive.TransactionArchiver;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Configuration
+@EnableConfigurationProperties(ArchiveProperties.class)
+public class ArchiveConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public ArchiveScheduler archiveScheduler(TransactionArchiver transactionArchiver) {
+        return new ArchiveScheduler(transactionArchiver);
+    }
+
+    // 定期执行归档，热表只保留保留期内未删除的交易
+    static class ArchiveScheduler {
+        private final TransactionArchiver transactionArchiver;
+
+        ArchiveScheduler(TransactionArchiver transactionArchiver) {
+            this.transactionArchiver = transactionArchiver;
+        }
+
+        @Scheduled(initialDelayString = "${transaction.archive.interval:PT1H}", fixedDelayString = "${transaction.archive.interval:PT1H}")
+        public void archive() {
+            transactionArchiver.archive();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transaction.archive")
+public class ArchiveProperties {
+
+    // 关闭后不再执行归档任务，已归档的数据仍然可以查询
+    private boolean enabled = true;
+
+    // 创建时间早于该保留期的交易移入归档表，归档后只读
+    private Duration maxAge = Duration.ofDays(365);
+
+    // 每个事务移动的行数
+    private int chunkSize = 1000;
+
+    // 归档任务执行间隔，用于 @Scheduled，配置时使用 ISO-8601 格式（如 PT1H）
+    private Duration interval = Duration.ofHours(1);
+}
@@ -0,0 +1,39 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transaction.audit")
+public class AuditProperties {
+
+    public enum Durability {
+        SYNC, // 在业务事务提交前写入，与交易同时提交或回滚
+        ASYNC // 业务事务提交后进入环形缓冲区，由后台线程批量写入；进程异常退出时最多丢失缓冲区中未写入的记录
+    }
+
+    public enum OverflowPolicy {
+        DROP,        // 缓冲区满时丢弃并计数
+        BLOCK,       // 最多等待 offerTimeout，仍无空间再丢弃
+        CALLER_RUNS  // 由请求线程直接写入数据库
+    }
+
+    private boolean enabled = true;
+
+    private Durability durability = Durability.ASYNC;
+
+    // 环形缓冲区容量，向上取整为 2 的幂
+    private int bufferSize = 8192;
+
+    // 单次批量写入的最大条数
+    private int batchSize = 500;
+
+    // 缓冲区中的记录最长多久写入一次，与 bufferSize 一起决定 ASYNC 模式下的最大丢失窗口
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    private Duration offerTimeout = Duration.ofMillis(10);
+}
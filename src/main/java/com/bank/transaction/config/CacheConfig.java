@@ -1,24 +1,123 @@
 package com.bank.transaction.config;
 
+import com.bank.transaction.cache.InMemorySharedPageCache;
+import com.bank.transaction.cache.InvalidationBus;
+import com.bank.transaction.cache.JdbcInvalidationBus;
+import com.bank.transaction.cache.JdbcSharedPageCache;
+import com.bank.transaction.cache.LocalInvalidationBus;
+import com.bank.transaction.cache.SharedPageCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
 
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 @EnableCaching
+@EnableScheduling
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
 
+    public static final String CACHE_EXECUTOR = "cacheExecutor";
+    public static final String INVALIDATION_EXECUTOR = "cacheInvalidationExecutor";
+
+    // Caffeine 的清理、移除通知等维护任务默认在 ForkJoinPool.commonPool 中执行
+    @Bean(CACHE_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Executor platformCacheExecutor() {
+        return ForkJoinPool.commonPool();
+    }
+
+    // 虚拟线程模式下维护任务也交给虚拟线程，不占用公共 ForkJoinPool
+    @Bean(CACHE_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualCacheExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(CacheProperties properties, @Qualifier(CACHE_EXECUTOR) Executor executor) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .maximumSize(1000));
+        cacheManager.setCaffeine(Caffeine.from(properties.getDefaultSpec()).executor(executor).recordStats());
+        // 单独配置的缓存在启动时创建，便于 Actuator 在启动时绑定命中率等指标
+        properties.getSpecs().forEach((name, spec) ->
+                cacheManager.registerCustomCache(name, Caffeine.from(spec).executor(executor).recordStats().build()));
         return cacheManager;
     }
-}
\ No newline at end of file
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.cache.shared", name = "store", havingValue = "memory")
+    public SharedPageCache inMemorySharedPageCache(CacheProperties properties) {
+        CacheProperties.Shared shared = properties.getShared();
+        return new InMemorySharedPageCache(shared.getTtl(), shared.getMaximumSize());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.cache.shared", name = "store", havingValue = "jdbc")
+    public JdbcSharedPageCache jdbcSharedPageCache(CacheProperties properties, JdbcTemplate jdbcTemplate,
+                                                   ObjectMapper objectMapper) {
+        return new JdbcSharedPageCache(jdbcTemplate, objectMapper, properties.getShared().getTtl());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.cache.shared", name = "store", havingValue = "jdbc")
+    public SharedPageSweeper sharedPageSweeper(JdbcSharedPageCache sharedPageCache) {
+        return new SharedPageSweeper(sharedPageCache);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.cache.bus", name = "type", havingValue = "local", matchIfMissing = true)
+    public InvalidationBus localInvalidationBus() {
+        return new LocalInvalidationBus();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.cache.bus", name = "type", havingValue = "jdbc")
+    public JdbcInvalidationBus jdbcInvalidationBus(CacheProperties properties, JdbcTemplate jdbcTemplate) {
+        return new JdbcInvalidationBus(jdbcTemplate, properties.getBus());
+    }
+
+    // 数据库实现的失效要写表，放到虚拟线程中执行：提交回调中仍占用着事务的连接，同步执行既写不进新事务，
+    // 另取连接又可能在连接池耗尽时互相等待。内存实现直接在提交回调中执行
+    @Bean(INVALIDATION_EXECUTOR)
+    public Executor cacheInvalidationExecutor(CacheProperties properties) {
+        boolean jdbc = properties.getShared().getStore() == CacheProperties.Shared.Store.JDBC
+                || properties.getBus().getType() == CacheProperties.Bus.Type.JDBC;
+        if (!jdbc) {
+            return Runnable::run;
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-invalidation-", 0).factory());
+    }
+
+    // 后台定期清理共享缓存中过期的分页
+    static class SharedPageSweeper {
+        private static final Logger logger = LoggerFactory.getLogger(SharedPageSweeper.class);
+
+        private final JdbcSharedPageCache sharedPageCache;
+
+        SharedPageSweeper(JdbcSharedPageCache sharedPageCache) {
+            this.sharedPageCache = sharedPageCache;
+        }
+
+        @Scheduled(fixedDelayString = "${transaction.cache.shared.purge-interval:PT1M}")
+        public void sweep() {
+            logger.debug("已清理 {} 个过期的共享缓存分页", sharedPageCache.purge());
+        }
+    }
+}
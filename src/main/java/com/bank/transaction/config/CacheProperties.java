@@ -0,0 +1,80 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存配置，规格字符串使用 Caffeine spec 语法，例如 maximumSize=1000,expireAfterWrite=10m
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.cache")
+public class CacheProperties {
+
+    // CacheManager 中未单独配置的缓存使用的默认规格
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m";
+
+    // 按缓存名单独配置的规格
+    private Map<String, String> specs = new LinkedHashMap<>();
+
+    private AccountHistory accountHistory = new AccountHistory();
+
+    private Shared shared = new Shared();
+
+    private Bus bus = new Bus();
+
+    @Data
+    public static class AccountHistory {
+        // 以账户为单位的规格，maximumSize 表示最多缓存的账户数
+        private String spec = "maximumSize=10000,expireAfterWrite=10m";
+
+        // 单个账户最多缓存的分页数，超出后不再缓存新的分页
+        private int maxPagesPerAccount = 32;
+    }
+
+    @Data
+    public static class Shared {
+
+        public enum Store {
+            NONE,   // 只使用本地缓存
+            MEMORY, // 进程内共享缓存，用于测试和单机验证
+            JDBC    // 多实例共享 cache_generations、cache_pages 表（需先执行 V10 迁移脚本）
+        }
+
+        private Store store = Store.NONE;
+
+        // 共享缓存中分页的有效期
+        private Duration ttl = Duration.ofMinutes(10);
+
+        // memory 存储最多缓存的分页数
+        private long maximumSize = 100_000;
+
+        // jdbc 存储清理过期分页的间隔
+        private Duration purgeInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Bus {
+
+        public enum Type {
+            LOCAL, // 只通知本实例
+            JDBC   // 通过 cache_invalidations 表通知其他实例（需先执行 V10 迁移脚本）
+        }
+
+        private Type type = Type.LOCAL;
+
+        // jdbc 总线读取其他实例失效消息的间隔，即其他实例本地缓存最长的过期时间
+        private Duration pollInterval = Duration.ofMillis(200);
+
+        private int batchSize = 1000;
+
+        // 消息 ID 出现空缺（插入事务尚未提交或已回滚）时最多等待多久再跳过
+        private Duration gapTimeout = Duration.ofSeconds(5);
+
+        // 失效消息保留时间
+        private Duration retention = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,36 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.id.TransactionIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IdProperties.class)
+public class IdGeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    // 主键生成器由 Hibernate 创建，实例号通过 Hibernate 配置传入
+    @Bean
+    public HibernatePropertiesCustomizer transactionIdCustomizer(IdProperties properties) {
+        int workerId = workerId(properties);
+        return hibernateProperties -> hibernateProperties.put(TransactionIdGenerator.WORKER_ID_SETTING, workerId);
+    }
+
+    // 多个实例都按默认值 0 启动时会生成重复的交易ID，要求显式配置的环境下未配置直接启动失败
+    private static int workerId(IdProperties properties) {
+        if (properties.getWorkerId() != null) {
+            return properties.getWorkerId();
+        }
+        if (properties.isRequireWorkerId()) {
+            throw new IllegalStateException("未配置 transaction.id.worker-id（环境变量 TRANSACTION_ID_WORKER_ID），"
+                    + "多实例部署时每个实例必须配置不同的实例号 0-31");
+        }
+        logger.warn("未配置 transaction.id.worker-id，使用实例号 0，只适用于单实例部署");
+        return 0;
+    }
+}
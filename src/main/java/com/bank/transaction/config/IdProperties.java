@@ -0,0 +1,18 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 交易ID生成配置
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.id")
+public class IdProperties {
+
+    // 实例号 0-31，写入ID中保证多个实例生成的ID不重复，多实例部署时每个实例需配置不同的值；未配置时为 null
+    private Integer workerId;
+
+    // 为 true 时必须显式配置 worker-id，否则启动失败；为 false 时未配置按 0 处理，只适用于单实例的本地环境
+    private boolean requireWorkerId = false;
+}
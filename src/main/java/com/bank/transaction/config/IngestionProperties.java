@@ -0,0 +1,92 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 交易写入配置
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.ingest")
+public class IngestionProperties {
+
+    private Batch batch = new Batch();
+
+    private Async async = new Async();
+
+    private ConflictRetry conflictRetry = new ConflictRetry();
+
+    private Sharded sharded = new Sharded();
+
+    @Data
+    public static class Batch {
+        // 单次批量请求最多包含的交易数
+        private int maxItems = 10_000;
+
+        // 每个数据库事务写入的交易数，与 hibernate.jdbc.batch_size 配合使用
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class Async {
+
+        public enum OverflowPolicy {
+            REJECT, // 队列已满时立即拒绝
+            BLOCK   // 队列已满时最多等待 offerTimeout，仍无空间再拒绝
+        }
+
+        // 关闭后异步写入接口直接拒绝
+        private boolean enabled = true;
+
+        // 等待写入的请求队列容量
+        private int queueCapacity = 10_000;
+
+        // 一次组提交最多包含的交易数
+        private int maxBatchSize = 500;
+
+        // 队列中请求不足一批时，最多再等待多久凑批
+        private Duration maxWait = Duration.ofMillis(5);
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+
+        // BLOCK 策略下入队的最长等待时间
+        private Duration offerTimeout = Duration.ofMillis(100);
+
+        // 处理状态的保留时间和最大条数，超出后查询返回不存在
+        private Duration statusRetention = Duration.ofMinutes(10);
+
+        private int statusMaxEntries = 100_000;
+    }
+
+    @Data
+    public static class ConflictRetry {
+        // 修改、删除遇到并发版本冲突时的最多尝试次数（含第一次），用尽后返回 409
+        private int maxAttempts = 3;
+
+        // 第 n 次重试前等待 n * backoff，再加上不超过 backoff 的随机抖动
+        private Duration backoff = Duration.ofMillis(10);
+    }
+
+    @Data
+    public static class Sharded {
+        // 开启后单笔和批量创建、修改、删除按转出账户（存款为转入账户）分片，由各分片的写线程依次执行；异步写入不再受理
+        private boolean enabled = false;
+
+        // 分片数，即写线程数和写入最多占用的连接数；0 表示使用 CPU 核数
+        private int shards = 0;
+
+        // 每个分片等待执行的请求数上限
+        private int queueCapacity = 1024;
+
+        // 一次提交最多包含的连续创建请求数
+        private int maxBatchSize = 256;
+
+        // 分片队列已满时最多等待多久，仍无空间返回 503
+        private Duration offerTimeout = Duration.ofMillis(100);
+
+        // 调用方等待分片执行结果的最长时间，超时返回 503；请求仍可能执行，客户端使用原token重试即可得到结果
+        private Duration resultTimeout = Duration.ofSeconds(30);
+    }
+}
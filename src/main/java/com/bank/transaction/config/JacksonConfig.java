@@ -0,0 +1,39 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.dto.TransactionView;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * JSON、Smile、CBOR 三种格式共用 Spring Boot 的 Jackson 配置（时间格式、过滤器等）。
+ * 二进制格式只在 Accept 明确要求时使用，未指定 Accept 或接受任意类型时仍输出 JSON。
+ */
+@Configuration
+public class JacksonConfig {
+
+    // 默认输出 TransactionView 的全部字段，?fields= 时由 FieldSelectionAdvice 替换为按字段过滤
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer transactionViewFilter() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(TransactionView.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    // 与 Spring MVC 默认注册的同类转换器位置相同（排在 JSON 之后），只替换其中的 ObjectMapper
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
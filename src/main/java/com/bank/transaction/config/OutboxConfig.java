@@ -0,0 +1,17 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.outbox.LocalOutboxSink;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    // 进程内发布目标，供 SSE 推送使用；接入消息队列时再声明一个 OutboxSink bean，中继会依次发布到所有目标
+    @Bean
+    public LocalOutboxSink localOutboxSink() {
+        return new LocalOutboxSink();
+    }
+}
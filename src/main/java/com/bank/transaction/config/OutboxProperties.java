@@ -0,0 +1,48 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transaction.outbox")
+public class OutboxProperties {
+
+    // 关闭后交易变更不再写入 outbox 表
+    private boolean enabled = true;
+
+    private Relay relay = new Relay();
+
+    private Stream stream = new Stream();
+
+    @Data
+    public static class Relay {
+        // 多个实例同时开启时通过 outbox_relay_lock 行锁逐批串行发布，position 从表中最大值继续分配
+        private boolean enabled = true;
+
+        // 单次读取、发布的最大条数
+        private int batchSize = 500;
+
+        // 没有新提交唤醒时的轮询间隔，也是发布失败后的重试间隔
+        private Duration pollInterval = Duration.ofMillis(500);
+
+        // 已发布的记录保留多久，SSE 客户端断线后可以在保留期内用 since 续传
+        private Duration retention = Duration.ofHours(24);
+
+        // 清理已过保留期记录的间隔
+        private Duration purgeInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Stream {
+        // 单个 SSE 连接的最长时间，超时后客户端带 Last-Event-ID 重连
+        private Duration timeout = Duration.ofMinutes(30);
+
+        // 单个连接待发送的最大变更数，超过时断开慢客户端，由其重连后从 outbox 表续传
+        private int queueCapacity = 10_000;
+
+        // 续传时每次从 outbox 表读取的条数
+        private int replayBatchSize = 500;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.ratelimit.RateLimitEndpoint;
+import com.bank.transaction.ratelimit.RateLimitInterceptor;
+import com.bank.transaction.ratelimit.TransactionRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitProperties properties;
+    private final TransactionRateLimiter rateLimiter;
+
+    public RateLimitConfig(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.rateLimiter = new TransactionRateLimiter(properties, meterRegistry);
+    }
+
+    @Bean
+    public TransactionRateLimiter transactionRateLimiter() {
+        return rateLimiter;
+    }
+
+    @Bean
+    public RateLimitEndpoint rateLimitEndpoint() {
+        return new RateLimitEndpoint(rateLimiter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.isEnabled()) {
+            registry.addInterceptor(new RateLimitInterceptor(rateLimiter)).addPathPatterns("/api/v1/transactions/**");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bank.transaction.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 写接口和 token 发放限流配置
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.rate-limit")
+public class RateLimitProperties {
+
+    // 关闭后不做任何限流
+    private boolean enabled = true;
+
+    // 客户端标识请求头，未携带时按客户端地址
+    private String clientHeader = "X-Client-Id";
+
+    // 每个客户端的写请求
+    private Bucket client = new Bucket(200, 400, 100_000, Duration.ofMinutes(10));
+
+    // 每个客户端获取 token（GET /api/v1/transactions/token），每次写请求通常先获取一个 token
+    private Bucket token = new Bucket(200, 400, 100_000, Duration.ofMinutes(10));
+
+    // 每个账户作为转入或转出方的交易数，批量请求按其中涉及该账户的交易条数计
+    private Bucket account = new Bucket(50, 100, 100_000, Duration.ofMinutes(10));
+
+    private Adaptive adaptive = new Adaptive();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        // 每秒补充的令牌数
+        private double rate;
+
+        // 令牌桶容量，即允许的瞬时突发量
+        private int burst;
+
+        // 最多跟踪的令牌桶数，超出后淘汰最久未使用的
+        private int maxTracked;
+
+        // 令牌桶空闲该时间后淘汰，不短于 burst / rate 时淘汰不会放宽限流
+        private Duration idleTimeout;
+    }
+
+    @Data
+    public static class Adaptive {
+        // 关闭后不限制写请求并发
+        private boolean enabled = true;
+
+        private int initialLimit = 200;
+
+        private int minLimit = 20;
+
+        private int maxLimit = 1000;
+
+        // 写请求耗时超过该值视为过载，并发上限乘以 backoffRatio
+        private Duration latencyThreshold = Duration.ofMillis(500);
+
+        private double backoffRatio = 0.9;
+
+        // 超出并发上限被拒绝时返回的 Retry-After
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transaction.datasource.replica")
+public class ReplicaProperties {
+
+    // 关闭时所有请求都使用 spring.datasource 的单一连接池
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String driverClassName;
+
+    // 客户端写入成功后，在该时间窗口内的读请求仍走主库，保证读到自己的写入
+    private Duration stickiness = Duration.ofSeconds(5);
+
+    // 从库获取连接失败后，在该时间内直接回退到主库，不再逐个请求等待从库超时
+    private Duration failureCooldown = Duration.ofSeconds(5);
+
+    // 识别客户端的请求头，未携带时按客户端地址区分
+    private String clientHeader = "X-Client-Id";
+
+    // 同时跟踪的最近写入客户端数量上限
+    private int maxTrackedClients = 100_000;
+}
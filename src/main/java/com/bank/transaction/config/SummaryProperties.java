@@ -0,0 +1,20 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "transaction.summary")
+public class SummaryProperties {
+
+    private final Rebuild rebuild = new Rebuild();
+
+    @Data
+    public static class Rebuild {
+        // 每个分片覆盖的账户ID区间长度，一个分片在一个事务内删除并重新计算
+        private long chunkAccounts = 1000;
+
+        // 并行处理的分片数，需小于连接池大小，给在线请求留出连接
+        private int parallelism = 4;
+    }
+}
@@ -0,0 +1,39 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 一次性token配置
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.token")
+public class TokenProperties {
+
+    public enum StoreType {
+        MEMORY,
+        JDBC
+    }
+
+    // token存储方式，多实例部署时使用 jdbc 共享token
+    private StoreType store = StoreType.MEMORY;
+
+    // token有效期
+    private Duration validity = Duration.ofMinutes(5);
+
+    private Memory memory = new Memory();
+
+    @Data
+    public static class Memory {
+        // 有效期内最多同时存在的token数量
+        private int maxTokens = 1_000_000;
+
+        // 按过期时间分桶的粒度，整桶过期后一次性清理
+        private Duration bucketSize = Duration.ofSeconds(30);
+
+        // 每个时间桶的分段数，分段越多锁竞争越小
+        private int stripes = 64;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.token.InMemoryTokenStore;
+import com.bank.transaction.token.JdbcTokenStore;
+import com.bank.transaction.token.TokenStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(TokenProperties.class)
+public class TokenStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.token", name = "store", havingValue = "memory", matchIfMissing = true)
+    public TokenStore inMemoryTokenStore(TokenProperties properties) {
+        TokenProperties.Memory memory = properties.getMemory();
+        return new InMemoryTokenStore(properties.getValidity().toSeconds(), memory.getBucketSize().toSeconds(),
+                memory.getMaxTokens(), memory.getStripes());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.token", name = "store", havingValue = "jdbc")
+    public TokenStore jdbcTokenStore(TokenProperties properties, JdbcTemplate jdbcTemplate) {
+        return new JdbcTokenStore(jdbcTemplate, properties.getValidity().toSeconds());
+    }
+
+    @Bean
+    public TokenSweeper tokenSweeper(TokenStore tokenStore) {
+        return new TokenSweeper(tokenStore);
+    }
+
+    // 后台定期清理过期token，避免发放后从未使用的token一直占用内存
+    static class TokenSweeper {
+        private final TokenStore tokenStore;
+
+        TokenSweeper(TokenStore tokenStore) {
+            this.tokenStore = tokenStore;
+        }
+
+        @Scheduled(fixedDelayString = "${transaction.token.sweep-interval:PT10S}")
+        public void sweep() {
+            tokenStore.sweep(Instant.now().getEpochSecond());
+        }
+    }
+}
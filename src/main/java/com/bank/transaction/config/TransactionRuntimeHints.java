@@ -0,0 +1,73 @@
+package com.bank.transaction.config;
+
+import com.bank.transaction.dto.AccountSummary;
+import com.bank.transaction.dto.BatchItemResult;
+import com.bank.transaction.dto.IngestionStatus;
+import com.bank.transaction.dto.SummaryRebuildResult;
+import com.bank.transaction.dto.TransactionChange;
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.AccountTypeSummary;
+import com.bank.transaction.entity.ArchivedTransaction;
+import com.bank.transaction.entity.OutboxEvent;
+import com.bank.transaction.entity.OutboxRelayLock;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.entity.TransactionLog;
+import com.bank.transaction.id.TransactionIdGenerator;
+import com.bank.transaction.ratelimit.TransactionRateLimiter;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * GraalVM native image 所需的反射提示。控制器参数和返回值、JPA 实体由 Spring AOT 自动登记，这里补充：
+ * <ul>
+ *     <li>不经过控制器、由 ObjectMapper 直接读写的类型（outbox 变更、导出的交易、异常响应、Actuator 端点返回值、共享缓存分页）</li>
+ *     <li>Lombok 生成访问方法的实体，Hibernate 通过字段和构造方法访问</li>
+ *     <li>Hibernate 通过反射构造的自定义主键生成器</li>
+ *     <li>Caffeine 按缓存配置通过 Class.forName 加载的生成类，新增不同组合的缓存配置时需要补充</li>
+ * </ul>
+ */
+public class TransactionRuntimeHints implements RuntimeHintsRegistrar {
+
+    // 缓存实现：S 强引用键值、S 统计、MS 容量上限、A 访问后过期、W 写入后过期
+    static final List<String> CAFFEINE_CACHES = List.of("SS", "SSMS", "SSMSA", "SSMSW", "SSS", "SSSMS", "SSSMSW", "SSW");
+
+    // 缓存节点：P 强引用键、S 强引用值、A/W 过期时间、MS 容量上限
+    static final List<String> CAFFEINE_NODES = List.of("PS", "PSA", "PSAMS", "PSW", "PSWMS");
+
+    private static final String CAFFEINE_PACKAGE = "com.github.benmanes.caffeine.cache.";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        bindings.registerReflectionHints(hints.reflection(),
+                TransactionChange.class, TransactionView.class, Transaction.class,
+                AccountSummary.class, BatchItemResult.class, IngestionStatus.class, SummaryRebuildResult.class,
+                TransactionRateLimiter.Snapshot.class, TransactionRateLimiter.BucketState.class);
+        hints.reflection().registerType(TypeReference.of("com.bank.transaction.exception.ErrorResponse"),
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(TypeReference.of("com.bank.transaction.cache.JdbcSharedPageCache$StoredPage"),
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        hints.reflection().registerType(TransactionIdGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        for (Class<?> entity : List.of(Transaction.class, ArchivedTransaction.class, TransactionLog.class,
+                AccountTypeSummary.class, OutboxEvent.class, OutboxRelayLock.class)) {
+            hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        for (String name : CAFFEINE_CACHES) {
+            hints.reflection().registerType(TypeReference.of(CAFFEINE_PACKAGE + name),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+        }
+        for (String name : CAFFEINE_NODES) {
+            hints.reflection().registerType(TypeReference.of(CAFFEINE_PACKAGE + name),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.dto.AccountSummary;
+import com.bank.transaction.dto.SummaryRebuildResult;
+import com.bank.transaction.service.TransactionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/accounts")
+@RequiredArgsConstructor
+@Tag(name = "Account Summary", description = "API For Account Balance And Totals")
+public class AccountController {
+
+    private final TransactionService transactionService;
+
+    @GetMapping("/{accountId}/summary")
+    @Operation(summary = "查询账户汇总", description = "返回余额及按交易类型的入账、出账金额和笔数，读取随交易写入维护的汇总，不扫描交易记录")
+    public ResponseEntity<AccountSummary> getAccountSummary(@PathVariable Long accountId) {
+        return ResponseEntity.ok(transactionService.getAccountSummary(accountId));
+    }
+
+    @PostMapping("/summaries/rebuild")
+    @Operation(summary = "重建账户汇总", description = "从交易记录按账户区间分片并行重新计算全部汇总；已有重建在执行时返回 409")
+    public ResponseEntity<SummaryRebuildResult> rebuildAccountSummaries() {
+        return ResponseEntity.ok(transactionService.rebuildAccountSummaries());
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.ratelimit.TransactionRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 账户限流：读取交易请求体后，按其中的转入、转出账户取令牌；批量请求按每个账户涉及的交易条数计，
+ * 超过令牌桶容量的批量请求直接拒绝
+ */
+@ControllerAdvice(assignableTypes = TransactionController.class)
+@RequiredArgsConstructor
+public class AccountRateLimitAdvice extends RequestBodyAdviceAdapter {
+
+    private final TransactionRateLimiter rateLimiter;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        Class<?> type = methodParameter.getParameterType();
+        return rateLimiter.isEnabled() && (type == TransactionRequest.class || type == List.class);
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        Map<Long, Integer> permits = new LinkedHashMap<>();
+        if (body instanceof TransactionRequest request) {
+            count(request, permits);
+        } else if (body instanceof List<?> requests) {
+            for (Object item : requests) {
+                if (item instanceof TransactionRequest request) {
+                    count(request, permits);
+                }
+            }
+        }
+        if (!permits.isEmpty()) {
+            rateLimiter.acquireAccounts(permits);
+        }
+        return body;
+    }
+
+    // 存款的转出账户、取款的转入账户按约定传 -1 占位，不是真实账户，不计入限流，否则所有存取款共用一个令牌桶
+    private static void count(TransactionRequest request, Map<Long, Integer> permits) {
+        Long in = request.getInAccount();
+        Long out = request.getOutAccount();
+        if (isAccount(in)) {
+            permits.merge(in, 1, Integer::sum);
+        }
+        if (isAccount(out) && !out.equals(in)) {
+            permits.merge(out, 1, Integer::sum);
+        }
+    }
+
+    private static boolean isAccount(Long accountId) {
+        return accountId != null && accountId > 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.exception.InvalidTransactionException;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 查询接口的字段选择：?fields=transactionId,amount 时只序列化 TransactionView 的这些字段，
+ * 对 JSON、Smile、CBOR 输出同样有效。未知字段返回 400。
+ */
+@ControllerAdvice(assignableTypes = TransactionController.class)
+public class FieldSelectionAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    static final String FIELDS_PARAM = "fields";
+
+    private static final Set<String> FIELDS = Arrays.stream(TransactionView.class.getRecordComponents())
+            .map(RecordComponent::getName)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue container, MediaType contentType, MethodParameter returnType,
+                                           ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String fields = servletRequest.getServletRequest().getParameter(FIELDS_PARAM);
+        if (fields == null || fields.isBlank()) {
+            return;
+        }
+        container.setFilters(new SimpleFilterProvider()
+                .addFilter(TransactionView.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(parse(fields))));
+    }
+
+    private static Set<String> parse(String fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!FIELDS.contains(name)) {
+                throw new InvalidTransactionException("不支持的字段：" + name + "，可选字段：" + FIELDS);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+}
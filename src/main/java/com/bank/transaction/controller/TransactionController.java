@@ -1,15 +1,31 @@
 package com.bank.transaction.controller;
 
+import com.bank.transaction.dto.BatchItemResult;
+import com.bank.transaction.dto.IngestionStatus;
+import com.bank.transaction.dto.TransactionPage;
 import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.dto.TransactionSearch;
+import com.bank.transaction.dto.TransactionView;
 import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.ExportFormat;
+import com.bank.transaction.exception.InvalidTransactionException;
 import com.bank.transaction.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,38 +34,131 @@ import java.util.List;
 @Tag(name = "Transaction Management", description = "API For Transaction Management")
 public class TransactionController {
 
+    // 游标分页时下一页游标通过响应头返回，响应体保持交易列表不变
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // EventSource 断线重连时自动带上最后收到的事件 id
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     private final TransactionService transactionService;
 
     @PostMapping
     @Operation(summary = "创建交易")
-    public ResponseEntity<Void> createTransaction(@Validated @RequestBody TransactionRequest request) {
-        transactionService.createTransaction(request);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Long> createTransaction(@Validated @RequestBody TransactionRequest request) {
+        return ResponseEntity.ok(transactionService.createTransaction(request));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "批量创建交易", description = "逐条校验后分片批量写入，按请求顺序返回每条交易的处理结果")
+    public ResponseEntity<List<BatchItemResult>> createTransactions(@RequestBody List<TransactionRequest> requests) {
+        return ResponseEntity.ok(transactionService.createTransactions(requests));
+    }
+
+    @PostMapping("/async")
+    @Operation(summary = "异步创建交易", description = "入队后返回 202 和受理ID，写入结果通过 GET /async/{requestId} 查询；队列已满时返回 503")
+    public ResponseEntity<IngestionStatus> submitTransaction(@Validated @RequestBody TransactionRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(transactionService.submitTransaction(request));
+    }
+
+    @GetMapping("/async/{requestId}")
+    @Operation(summary = "查询异步创建的处理状态")
+    public ResponseEntity<IngestionStatus> getIngestionStatus(@PathVariable String requestId) {
+        return ResponseEntity.ok(transactionService.getIngestionStatus(requestId));
+    }
+
+    @GetMapping("/{transactionId}")
+    @Operation(summary = "查询交易", description = "响应头 ETag 为交易版本号，修改、删除时可通过 If-Match 带回；If-None-Match 未变化时返回 304；"
+            + "fields 为逗号分隔的字段名，只返回这些字段")
+    public ResponseEntity<TransactionView> getTransaction(@PathVariable Long transactionId, WebRequest webRequest) {
+        Transaction transaction = transactionService.getTransaction(transactionId);
+        String etag = etag(transaction.getVersion());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(TransactionView.of(transaction));
     }
 
     @DeleteMapping("/{transactionId}")
-    @Operation(summary = "删除交易")
-    public ResponseEntity<Void> deleteTransaction(@PathVariable Long transactionId) {
-        transactionService.deleteTransaction(transactionId);
+    @Operation(summary = "删除交易", description = "带 If-Match 时仅在版本一致时删除，否则返回 412")
+    public ResponseEntity<Void> deleteTransaction(
+            @PathVariable Long transactionId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        transactionService.deleteTransaction(transactionId, expectedVersion(ifMatch));
         return ResponseEntity.ok().build();
     }
 
     @PutMapping("/{transactionId}")
-    @Operation(summary = "更新交易")
+    @Operation(summary = "更新交易", description = "带 If-Match 时仅在版本一致时修改，否则返回 412；响应头 ETag 为修改后的版本号")
     public ResponseEntity<Void> modifyTransaction(
             @PathVariable Long transactionId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Validated @RequestBody TransactionRequest request) {
-        transactionService.modifyTransaction(transactionId, request);
-        return ResponseEntity.ok().build();
+        Long version = transactionService.modifyTransaction(transactionId, request, expectedVersion(ifMatch));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (version != null) {
+            response.eTag(etag(version));
+        }
+        return response.build();
     }
 
     @GetMapping("/all")
-    @Operation(summary = "查询所有交易")
-    public ResponseEntity<List<Transaction>> listTransactions(
+    @Operation(summary = "查询所有交易", description = "传 page 时按偏移分页；不传 page 时按游标分页，下一页游标见响应头 X-Next-Cursor；"
+            + "fields 为逗号分隔的字段名，只返回这些字段；Accept 为 application/x-jackson-smile 或 application/cbor 时以二进制格式返回")
+    public ResponseEntity<List<TransactionView>> listTransactions(
             @RequestParam Long accountId,
-            @RequestParam Integer page,
-            @RequestParam Integer size) {
-        return ResponseEntity.ok(transactionService.listTransactions(accountId, page, size));
+            @RequestParam(required = false) Integer page,
+            @RequestParam Integer size,
+            @RequestParam(required = false) String cursor) {
+        TransactionPage result = page != null
+                ? transactionService.listTransactions(accountId, page, size)
+                : transactionService.listTransactionsByCursor(accountId, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, result.getNextCursor());
+        }
+        return response.body(result.getContent());
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "搜索交易", description = "accountId 必填；direction 为 IN、OUT 或 BOTH（默认）；transactionType、minAmount、maxAmount（闭区间）、"
+            + "from、to（[from, to)）不传表示不限；按时间倒序游标分页，下一页游标见响应头 X-Next-Cursor")
+    public ResponseEntity<List<TransactionView>> searchTransactions(
+            @Validated TransactionSearch search,
+            @RequestParam Integer size,
+            @RequestParam(required = false) String cursor) {
+        TransactionPage result = transactionService.searchTransactions(search, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, result.getNextCursor());
+        }
+        return response.body(result.getContent());
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "导出账户全部交易", description = "按时间正序流式输出 [from, to) 内的交易，format 为 ndjson 或 csv；请求头带 Accept-Encoding: gzip 时压缩输出")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        // 参数在开始输出之前校验，输出开始后响应状态已无法修改
+        ExportFormat exportFormat = ExportFormat.of(format);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidTransactionException("导出开始时间必须早于结束时间");
+        }
+        String filename = "transactions-" + accountId + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(out -> transactionService.exportTransactions(accountId, from, to, exportFormat, out));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅交易变更", description = "SSE 推送交易新增、修改、删除，事件 id 为连续递增的变更位置；"
+            + "since 或重连时的 Last-Event-ID 为最后收到的位置，从其后续传，都不传时只推送订阅之后的变更")
+    public SseEmitter streamTransactionChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        return transactionService.streamTransactionChanges(since != null ? since : lastEventId);
     }
 
     @GetMapping("/token")
@@ -57,4 +166,27 @@ public class TransactionController {
     public ResponseEntity<String> getTransactionToken() {
         return ResponseEntity.ok(transactionService.generateTransactionToken());
     }
+
+    private static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // 解析 If-Match 中的版本号，为空或 * 时不做版本校验
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidTransactionException("无效的 If-Match：" + ifMatch);
+        }
+    }
 }
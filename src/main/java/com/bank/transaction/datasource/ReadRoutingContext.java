@@ -0,0 +1,42 @@
+package com.bank.transaction.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的读路由约束：刚写入过的客户端在粘滞窗口内的只读事务也要走主库，
+ * 查询结果会写入缓存时也走主库，避免把从库延迟期间的旧数据缓存下来
+ */
+public final class ReadRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadRoutingContext() {
+    }
+
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * 在主库上执行 action（只读事务也不路由到从库），结束后恢复原来的约束
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (isPrimaryRequired()) {
+            return action.get();
+        }
+        requirePrimary();
+        try {
+            return action.get();
+        } finally {
+            clear();
+        }
+    }
+}
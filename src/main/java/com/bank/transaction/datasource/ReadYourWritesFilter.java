@@ -0,0 +1,59 @@
+package com.bank.transaction.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 读写粘滞：客户端写入成功后，在粘滞窗口内它的读请求都走主库，避免因从库复制延迟读不到自己刚写入的数据。
+ * 最近写入的客户端记录在本实例内存中，多实例部署时需要负载均衡按客户端保持会话。
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final Cache<String, Boolean> recentWriters;
+    private final String clientHeader;
+
+    public ReadYourWritesFilter(Duration stickiness, int maxTrackedClients, String clientHeader) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickiness)
+                .maximumSize(maxTrackedClients)
+                .build();
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = clientKey(request);
+        if (recentWriters.getIfPresent(client) != null) {
+            ReadRoutingContext.requirePrimary();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRoutingContext.clear();
+            if (isWrite(request) && response.getStatus() < 400) {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client != null && !client.isEmpty() ? client : request.getRemoteAddr();
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        return method == HttpMethod.POST || method == HttpMethod.PUT
+                || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+    }
+}
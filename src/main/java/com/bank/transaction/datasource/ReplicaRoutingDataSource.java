@@ -0,0 +1,83 @@
+package com.bank.transaction.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * 只读事务使用的数据源：优先从库，需要读到自己的写入或从库不可用时回退到主库。
+ * 由 LazyConnectionDataSourceProxy 在只读事务第一次真正访问数据库时调用，读写事务不会经过这里。
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long cooldownNanos;
+
+    // 从库最近一次失败后允许再次尝试的时间点，0 表示从库可用
+    private volatile long replicaRetryAt;
+
+    private final Counter replicaRoutes;
+    private final Counter stickyRoutes;
+    private final Counter cooldownRoutes;
+    private final Counter fallbackRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration failureCooldown, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.cooldownNanos = failureCooldown.toNanos();
+        this.replicaRoutes = meterRegistry.counter("transaction.datasource.route", "target", "replica", "reason", "read_only");
+        this.stickyRoutes = meterRegistry.counter("transaction.datasource.route", "target", "primary", "reason", "read_your_writes");
+        this.cooldownRoutes = meterRegistry.counter("transaction.datasource.route", "target", "primary", "reason", "replica_cooldown");
+        this.fallbackRoutes = meterRegistry.counter("transaction.datasource.route", "target", "primary", "reason", "replica_failure");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    // 指定用户时按相同规则路由，用户名、密码原样传给所选的连接池
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(target -> target.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (ReadRoutingContext.isPrimaryRequired()) {
+            stickyRoutes.increment();
+            return source.connect(primary);
+        }
+        long retryAt = replicaRetryAt;
+        if (retryAt != 0 && System.nanoTime() - retryAt < 0) {
+            cooldownRoutes.increment();
+            return source.connect(primary);
+        }
+        try {
+            Connection connection = source.connect(replica);
+            replicaRetryAt = 0;
+            replicaRoutes.increment();
+            return connection;
+        } catch (SQLException e) {
+            // 冷却期内的只读请求直接走主库，冷却结束后的第一个请求再次探测从库
+            replicaRetryAt = System.nanoTime() + cooldownNanos;
+            fallbackRoutes.increment();
+            logger.warn("从库获取连接失败，{} 内回退到主库：{}", Duration.ofNanos(cooldownNanos), e.getMessage());
+            return source.connect(primary);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection connect(DataSource target) throws SQLException;
+    }
+}
@@ -0,0 +1,49 @@
+package com.bank.transaction.dto;
+
+import com.bank.transaction.entity.AccountTypeSummary;
+import com.bank.transaction.enums.TransactionType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 账户汇总：余额及按交易类型的入账、出账合计；没有交易的账户各项为 0，updatedAt 为空
+ */
+@Data
+public class AccountSummary {
+    private final Long accountId;
+    private final BigDecimal balance;
+    private final Map<TransactionType, Totals> totals;
+    private final LocalDateTime updatedAt;
+
+    @Data
+    public static class Totals {
+        private final BigDecimal creditAmount;
+        private final BigDecimal debitAmount;
+        private final long creditCount;
+        private final long debitCount;
+    }
+
+    public static AccountSummary of(Long accountId, List<AccountTypeSummary> rows) {
+        BigDecimal balance = BigDecimal.ZERO;
+        LocalDateTime updatedAt = null;
+        Map<TransactionType, Totals> totals = new EnumMap<>(TransactionType.class);
+        for (AccountTypeSummary row : rows) {
+            balance = balance.add(row.getCreditAmount()).subtract(row.getDebitAmount());
+            if (updatedAt == null || row.getUpdatedAt().isAfter(updatedAt)) {
+                updatedAt = row.getUpdatedAt();
+            }
+            // 交易全部删除后留下的空行不展示，与重建后的结果一致
+            if (row.getCreditCount() == 0 && row.getDebitCount() == 0) {
+                continue;
+            }
+            totals.put(row.getTransactionType(), new Totals(row.getCreditAmount(), row.getDebitAmount(),
+                    row.getCreditCount(), row.getDebitCount()));
+        }
+        return new AccountSummary(accountId, balance, totals, updatedAt);
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.transaction.dto;
+
+import lombok.Data;
+
+/**
+ * 批量创建交易时单条交易的处理结果，index 为该交易在请求列表中的下标
+ */
+@Data
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED,  // 创建成功
+        REPLAYED, // token已处理过，返回原交易ID
+        REJECTED, // 校验未通过或token无效，未写入
+        FAILED    // 写入数据库失败，所在分片整体回滚，token已释放可重试
+    }
+
+    private final int index;
+    private final Status status;
+    private final Long transactionId;
+    private final String message;
+
+    public static BatchItemResult created(int index, Long transactionId) {
+        return new BatchItemResult(index, Status.CREATED, transactionId, null);
+    }
+
+    public static BatchItemResult replayed(int index, Long transactionId) {
+        return new BatchItemResult(index, Status.REPLAYED, transactionId, null);
+    }
+
+    public static BatchItemResult rejected(int index, String message) {
+        return new BatchItemResult(index, Status.REJECTED, null, message);
+    }
+
+    public static BatchItemResult failed(int index, String message) {
+        return new BatchItemResult(index, Status.FAILED, null, message);
+    }
+}
@@ -0,0 +1,33 @@
+package com.bank.transaction.dto;
+
+import lombok.Data;
+
+/**
+ * 异步写入请求的处理状态，transactionId 在提交成功后才有值
+ */
+@Data
+public class IngestionStatus {
+
+    public enum Status {
+        PENDING,   // 已受理，等待写入
+        COMMITTED, // 已写入
+        FAILED     // 写入失败，token已释放可重试
+    }
+
+    private final String requestId;
+    private final Status status;
+    private final Long transactionId;
+    private final String message;
+
+    public static IngestionStatus pending(String requestId) {
+        return new IngestionStatus(requestId, Status.PENDING, null, null);
+    }
+
+    public static IngestionStatus committed(String requestId, Long transactionId) {
+        return new IngestionStatus(requestId, Status.COMMITTED, transactionId, null);
+    }
+
+    public static IngestionStatus failed(String requestId, String message) {
+        return new IngestionStatus(requestId, Status.FAILED, null, message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.transaction.dto;
+
+import lombok.Data;
+
+/**
+ * 汇总投影重建结果
+ */
+@Data
+public class SummaryRebuildResult {
+    private final int chunks;
+    private final long rows;
+    private final long elapsedMillis;
+}
@@ -0,0 +1,28 @@
+package com.bank.transaction.dto;
+
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.bank.transaction.event.TransactionChangedEvent.ChangeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 对下游发布的交易变更。position 由 outbox 中继在发布时按顺序分配，从 1 开始连续递增，
+ * 写入 outbox 时为空；客户端以最后收到的 position 作为 since 续传。
+ */
+public record TransactionChange(Long position,
+                                ChangeType changeType,
+                                Long transactionId,
+                                TransactionView before,
+                                TransactionView after,
+                                LocalDateTime occurredAt) {
+
+    public static TransactionChange of(TransactionChangedEvent event) {
+        return new TransactionChange(null, event.getChangeType(), event.getAfter().getTransactionId(),
+                event.getBefore() != null ? TransactionView.of(event.getBefore()) : null,
+                TransactionView.of(event.getAfter()), LocalDateTime.now());
+    }
+
+    public TransactionChange withPosition(long position) {
+        return new TransactionChange(position, changeType, transactionId, before, after, occurredAt);
+    }
+}
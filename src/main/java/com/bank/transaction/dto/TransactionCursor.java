@@ -0,0 +1,44 @@
+package com.bank.transaction.dto;
+
+import com.bank.transaction.exception.InvalidTransactionException;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页的续传位置：按 (createdAt desc, transactionId desc) 排序时，上一页最后一条记录的排序键。
+ * 对外以 Base64URL 编码的不透明字符串传递，客户端原样回传即可。
+ */
+@Data
+public class TransactionCursor {
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime createdAt;
+    private final Long transactionId;
+
+    public static TransactionCursor of(TransactionView transaction) {
+        return new TransactionCursor(transaction.createdAt(), transaction.transactionId());
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                throw new InvalidTransactionException("无效的分页游标");
+            }
+            return new TransactionCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.parseLong(raw.substring(index + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidTransactionException("无效的分页游标");
+        }
+    }
+}
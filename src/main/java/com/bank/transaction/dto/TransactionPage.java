@@ -0,0 +1,14 @@
+package com.bank.transaction.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 分页查询结果，nextCursor 为空表示已经没有更多数据
+ */
+@Data
+public class TransactionPage {
+    private final List<TransactionView> content;
+    private final String nextCursor;
+}
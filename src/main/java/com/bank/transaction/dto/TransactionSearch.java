@@ -0,0 +1,34 @@
+package com.bank.transaction.dto;
+
+import com.bank.transaction.enums.TransactionDirection;
+import com.bank.transaction.enums.TransactionType;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 交易搜索条件：账户必填，保证每个方向的查询都能走 (账户, delFlag, createdAt) 索引；
+ * 其余条件为空表示不限，金额区间为闭区间，时间区间为 [from, to)
+ */
+@Data
+public class TransactionSearch {
+    @NotNull(message = "账户ID不能为空")
+    private Long accountId;
+
+    private TransactionDirection direction = TransactionDirection.BOTH;
+
+    private TransactionType transactionType;
+
+    private BigDecimal minAmount;
+
+    private BigDecimal maxAmount;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+}
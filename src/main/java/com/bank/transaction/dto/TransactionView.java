@@ -0,0 +1,35 @@
+package com.bank.transaction.dto;
+
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 对外返回的交易视图：查询时由 JPQL 构造器投影直接生成，不经过实体和持久化上下文，
+ * 也不包含 delFlag 等内部字段。version 与 GET /{id} 返回的 ETag 一致。
+ * 序列化时通过 {@link #FILTER} 支持 ?fields= 只输出部分字段。
+ */
+@JsonFilter(TransactionView.FILTER)
+public record TransactionView(Long transactionId,
+                              TransactionType transactionType,
+                              Long inAccount,
+                              Long outAccount,
+                              BigDecimal amount,
+                              LocalDateTime createdAt,
+                              Long version) {
+
+    public static final String FILTER = "transactionView";
+
+    // JPQL 构造器投影的 select 子句，各查询保持一致
+    public static final String PROJECTION = "select new com.bank.transaction.dto.TransactionView("
+            + "t.transactionId, t.transactionType, t.inAccount, t.outAccount, t.amount, t.createdAt, t.version) ";
+
+    public static TransactionView of(Transaction transaction) {
+        return new TransactionView(transaction.getTransactionId(), transaction.getTransactionType(),
+                transaction.getInAccount(), transaction.getOutAccount(), transaction.getAmount(),
+                transaction.getCreatedAt(), transaction.getVersion());
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.transaction.entity;
+
+import com.bank.transaction.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 账户汇总投影：每个账户、每种交易类型一行，随交易写入在同一事务内增量更新。
+ * 以 inAccount 为入账、outAccount 为出账，余额 = 各类型入账合计 - 出账合计。
+ */
+@Data
+@Entity
+@Table(name = "account_summaries")
+@IdClass(AccountTypeSummary.Key.class)
+public class AccountTypeSummary {
+
+    @Id
+    private Long accountId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private TransactionType transactionType;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal creditAmount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal debitAmount;
+
+    @Column(nullable = false)
+    private Long creditCount;
+
+    @Column(nullable = false)
+    private Long debitCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long accountId;
+        private TransactionType transactionType;
+    }
+}
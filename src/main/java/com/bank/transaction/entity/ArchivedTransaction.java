@@ -0,0 +1,65 @@
+package com.bank.transaction.entity;
+
+import com.bank.transaction.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 归档交易：超过保留期的交易和已软删除的交易从 Transactions 移到这里，只读。
+ * archive_month 为交易创建月份（yyyyMM），生产库按该列做分区，见 V8 迁移脚本。
+ */
+@Data
+@Entity
+@Table(name = "transactions_archive", indexes = {
+        @Index(name = "idx_transactions_archive_in_account", columnList = "inAccount, delFlag, createdAt"),
+        @Index(name = "idx_transactions_archive_out_account", columnList = "outAccount, delFlag, createdAt"),
+        @Index(name = "idx_transactions_archive_month", columnList = "archiveMonth")
+})
+public class ArchivedTransaction {
+    @Id
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType transactionType;
+
+    @Column(nullable = false)
+    private Long inAccount;
+
+    @Column(nullable = false)
+    private Long outAccount;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private Boolean delFlag;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private Long version;
+
+    @Column(nullable = false)
+    private Integer archiveMonth;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    // 转换为交易对象，与热表的查询结果一起返回
+    public Transaction toTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setTransactionType(transactionType);
+        transaction.setInAccount(inAccount);
+        transaction.setOutAccount(outAccount);
+        transaction.setAmount(amount);
+        transaction.setDelFlag(delFlag);
+        transaction.setCreatedAt(createdAt);
+        transaction.setVersion(version);
+        return transaction;
+    }
+}
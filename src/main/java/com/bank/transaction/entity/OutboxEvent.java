@@ -0,0 +1,39 @@
+package com.bank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 事务性 outbox：交易变更与交易在同一事务内写入，由中继按 eventId 顺序发布后填写 position。
+ * 读写都通过 OutboxStore 的 JDBC 完成，实体只用于描述表结构，与 V9__create_outbox.sql 保持一致。
+ */
+@Data
+@Entity
+@Table(name = "outbox", indexes = {
+        @Index(name = "idx_outbox_position", columnList = "position", unique = true)
+})
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long eventId;
+
+    @Column(nullable = false)
+    private Long transactionId;
+
+    @Column(nullable = false, length = 16)
+    private String changeType;
+
+    // TransactionChange 的 JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // 发布顺序，未发布时为空
+    private Long position;
+
+    private LocalDateTime publishedAt;
+}
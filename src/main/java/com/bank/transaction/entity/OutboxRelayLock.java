@@ -0,0 +1,18 @@
+package com.bank.transaction.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * outbox 中继锁，只有一行，每批发布时由 OutboxStore 以 SELECT ... FOR UPDATE 锁定。
+ * 实体只用于描述表结构，与 V13__create_outbox_relay_lock.sql 保持一致。
+ */
+@Data
+@Entity
+@Table(name = "outbox_relay_lock")
+public class OutboxRelayLock {
+    @Id
+    private Integer lockId;
+}
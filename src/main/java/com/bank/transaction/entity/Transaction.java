@@ -1,6 +1,7 @@
 package com.bank.transaction.entity;
 
 import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.id.SnowflakeId;
 import lombok.Data;
 
 import jakarta.persistence.*;
@@ -9,11 +10,20 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "Transactions")
+@Table(name = "Transactions", indexes = {
+        // 账户交易历史和搜索按方向分别走索引，包含 TransactionView 的全部字段，查询不回表；
+        // 与 V12__add_covering_search_indexes.sql 保持一致
+        @Index(name = "idx_transactions_in_account_cover",
+                columnList = "inAccount, delFlag, createdAt, transactionType, amount, outAccount, version"),
+        @Index(name = "idx_transactions_out_account_cover",
+                columnList = "outAccount, delFlag, createdAt, transactionType, amount, inAccount, version")
+})
 public class Transaction {
+    // 插入前在本地生成时间有序的ID，不访问数据库序列，Hibernate 可以批量插入；
+    // 不超过 2^53，且大于此前 INT 自增列分配过的ID
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @Column(insertable = false, updatable = false)
+    @SnowflakeId
+    @Column(updatable = false)
     private Long transactionId;
 
     @Enumerated(EnumType.STRING)
@@ -34,4 +44,8 @@ public class Transaction {
 
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // 乐观锁版本号，新增时为空由 Hibernate 置为 0，每次更新加 1；对外作为 ETag
+    @Version
+    private Long version;
 } 
\ No newline at end of file
@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "TransactionLogs")
+@Table(name = "transaction_logs")
 public class TransactionLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,33 @@
+package com.bank.transaction.enums;
+
+import com.bank.transaction.exception.InvalidTransactionException;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"), // 每行一个 JSON 对象
+    CSV("text/csv", "csv");                   // 首行为表头
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat of(String format) {
+        for (ExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new InvalidTransactionException("不支持的导出格式：" + format);
+    }
+}
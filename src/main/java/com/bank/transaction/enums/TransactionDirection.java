@@ -0,0 +1,7 @@
+package com.bank.transaction.enums;
+
+public enum TransactionDirection {
+    IN,   // 转入：账户为 inAccount
+    OUT,  // 转出：账户为 outAccount
+    BOTH  // 转入和转出
+}
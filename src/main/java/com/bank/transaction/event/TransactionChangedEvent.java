@@ -0,0 +1,63 @@
+package com.bank.transaction.event;
+
+import com.bank.transaction.entity.Transaction;
+import lombok.Data;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 交易变更事件，在交易写入的数据库事务内发布。
+ * before 为变更前的快照（新增时为空），after 为变更后的交易（删除时为软删除后的记录）。
+ */
+@Data
+public class TransactionChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        MODIFIED,
+        DELETED
+    }
+
+    private final ChangeType changeType;
+    private final Transaction before;
+    private final Transaction after;
+
+    public static TransactionChangedEvent created(Transaction transaction) {
+        return new TransactionChangedEvent(ChangeType.CREATED, null, transaction);
+    }
+
+    public static TransactionChangedEvent modified(Transaction before, Transaction after) {
+        return new TransactionChangedEvent(ChangeType.MODIFIED, before, after);
+    }
+
+    public static TransactionChangedEvent deleted(Transaction before, Transaction after) {
+        return new TransactionChangedEvent(ChangeType.DELETED, before, after);
+    }
+
+    // 修改前先复制一份，避免托管实体被原地修改后丢失旧值
+    public static Transaction snapshot(Transaction transaction) {
+        Transaction copy = new Transaction();
+        copy.setTransactionId(transaction.getTransactionId());
+        copy.setTransactionType(transaction.getTransactionType());
+        copy.setInAccount(transaction.getInAccount());
+        copy.setOutAccount(transaction.getOutAccount());
+        copy.setAmount(transaction.getAmount());
+        copy.setDelFlag(transaction.getDelFlag());
+        copy.setCreatedAt(transaction.getCreatedAt());
+        copy.setVersion(transaction.getVersion());
+        return copy;
+    }
+
+    // 本次变更涉及的所有账户（包括修改前后的转入、转出账户）
+    public Set<Long> affectedAccounts() {
+        Set<Long> accounts = new LinkedHashSet<>();
+        if (before != null) {
+            accounts.add(before.getInAccount());
+            accounts.add(before.getOutAccount());
+        }
+        accounts.add(after.getInAccount());
+        accounts.add(after.getOutAccount());
+        return accounts;
+    }
+}
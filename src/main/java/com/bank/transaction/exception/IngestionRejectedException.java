@@ -0,0 +1,7 @@
+package com.bank.transaction.exception;
+
+public class IngestionRejectedException extends RuntimeException {
+    public IngestionRejectedException(String message) {
+        super(message);
+    }
+}
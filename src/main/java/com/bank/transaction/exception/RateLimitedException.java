@@ -0,0 +1,16 @@
+package com.bank.transaction.exception;
+
+import java.time.Duration;
+
+public class RateLimitedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public RateLimitedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
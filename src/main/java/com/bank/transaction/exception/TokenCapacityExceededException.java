@@ -0,0 +1,19 @@
+package com.bank.transaction.exception;
+
+import java.time.Duration;
+
+/**
+ * token存储已满，暂时无法发放新的token；与客户端请求本身无关，返回 503 和 Retry-After
+ */
+public class TokenCapacityExceededException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public TokenCapacityExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.transaction.metrics;
+
+import com.bank.transaction.dto.TransactionView;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 交易历史查询的领域指标：每次查询返回的行数，以及游标分页在内存中归并的耗时。
+ * 与 spring.data.repository.invocations 的查询耗时一起，可以区分慢在数据库还是慢在应用内。
+ * 另外记录修改、删除时的并发版本冲突，按处理结果区分。
+ */
+@Component
+public class TransactionMetrics {
+
+    public enum HistoryQuery {
+        OFFSET, INCOMING, OUTGOING, ARCHIVE, SEARCH
+    }
+
+    public enum ConflictOutcome {
+        RETRIED,             // 内部重试
+        PRECONDITION_FAILED, // If-Match 与当前版本不一致，返回 412
+        CONFLICT             // 重试用尽，返回 409
+    }
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final Map<HistoryQuery, DistributionSummary> rows = new EnumMap<>(HistoryQuery.class);
+    private final Timer merge;
+    private final MeterRegistry meterRegistry;
+
+    public TransactionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (HistoryQuery query : HistoryQuery.values()) {
+            rows.put(query, DistributionSummary.builder("transaction.history.rows")
+                    .tag("query", query.name().toLowerCase())
+                    .description("账户交易历史单次查询返回的行数")
+                    .publishPercentiles(PERCENTILES)
+                    .register(meterRegistry));
+        }
+        this.merge = Timer.builder("transaction.history.merge")
+                .description("游标分页归并转入、转出两个方向结果的耗时")
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+    }
+
+    // 记录查询返回的行数，原样返回结果便于直接包裹查询调用
+    public List<TransactionView> rows(HistoryQuery query, List<TransactionView> result) {
+        rows.get(query).record(result.size());
+        return result;
+    }
+
+    public List<TransactionView> timeMerge(Supplier<List<TransactionView>> merger) {
+        return merge.record(merger);
+    }
+
+    // operation 为 modify 或 delete
+    public void conflict(String operation, ConflictOutcome outcome) {
+        meterRegistry.counter("transaction.conflicts", "operation", operation,
+                "outcome", outcome.name().toLowerCase()).increment();
+    }
+}
@@ -0,0 +1,40 @@
+package com.bank.transaction.outbox;
+
+import com.bank.transaction.dto.TransactionChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内发布：把每批变更依次交给本实例的订阅者（SSE 连接、测试），订阅者不能阻塞中继线程
+ */
+public class LocalOutboxSink implements OutboxSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalOutboxSink.class);
+
+    private final List<Consumer<List<TransactionChange>>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<TransactionChange> changes) {
+        for (Consumer<List<TransactionChange>> subscriber : subscribers) {
+            try {
+                subscriber.accept(changes);
+            } catch (RuntimeException e) {
+                logger.warn("变更订阅者处理失败", e);
+            }
+        }
+    }
+
+    // 返回取消订阅的操作
+    public Runnable subscribe(Consumer<List<TransactionChange>> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+}
@@ -0,0 +1,66 @@
+package com.bank.transaction.outbox;
+
+import com.bank.transaction.config.OutboxProperties;
+import com.bank.transaction.dto.TransactionChange;
+import com.bank.transaction.event.TransactionChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把交易变更写入 outbox 表：同一事务内的变更先收集，提交前一次批量写入，与交易一起提交或回滚；
+ * 提交后唤醒中继，尽快发布。
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxEventListener {
+
+    private final OutboxStore outboxStore;
+    private final OutboxRelay outboxRelay;
+    private final OutboxProperties properties;
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        TransactionChange change = TransactionChange.of(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            outboxStore.append(List.of(change));
+            outboxRelay.wakeUp();
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(change);
+    }
+
+    // 当前事务内产生的变更
+    private class PendingChanges implements TransactionSynchronization {
+        private final List<TransactionChange> changes = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            outboxStore.append(changes);
+        }
+
+        @Override
+        public void afterCommit() {
+            outboxRelay.wakeUp();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(OutboxEventListener.this);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.bank.transaction.outbox;
+
+import com.bank.transaction.config.OutboxProperties;
+import com.bank.transaction.dto.TransactionChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * outbox 中继：单个后台线程按 event_id 顺序读取未发布的变更，分配连续的 position 后发布到所有 {@link OutboxSink}，
+ * 全部成功后才在 outbox 表中记录 position。发布失败时整批在 pollInterval 后以相同的 position 重试，
+ * 下游至少收到一次、按 position 有序。多个实例都开启中继时通过 outbox_relay_lock 行锁逐批串行发布。
+ */
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final OutboxStore outboxStore;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties.Relay properties;
+
+    private final Counter published;
+    private final Counter failures;
+    private final DistributionSummary batchSize;
+    private final Timer relayTimer;
+
+    // 本实例最后一次记录到 outbox 表的 position，只用于监控，只由中继线程修改
+    private volatile long position;
+    private volatile boolean running;
+    private volatile Thread relay;
+
+    public OutboxRelay(OutboxStore outboxStore, List<OutboxSink> sinks, TransactionTemplate transactionTemplate,
+                       OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.outboxStore = outboxStore;
+        this.sinks = sinks;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties.getRelay();
+        this.published = meterRegistry.counter("transaction.outbox.published");
+        this.failures = meterRegistry.counter("transaction.outbox.failures");
+        this.batchSize = DistributionSummary.builder("transaction.outbox.batch.size")
+                .description("每次发布的变更数")
+                .register(meterRegistry);
+        this.relayTimer = Timer.builder("transaction.outbox.relay")
+                .description("单批变更从读取到记录发布位置的耗时")
+                .register(meterRegistry);
+        Gauge.builder("transaction.outbox.position", this, OutboxRelay::position)
+                .description("最后发布的变更位置")
+                .register(meterRegistry);
+    }
+
+    public long position() {
+        return position;
+    }
+
+    // 有新的变更提交，唤醒中继线程立即发布
+    public void wakeUp() {
+        Thread thread = relay;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 发布一批未发布的变更，返回本批条数；发布失败时抛出异常，本批不会记录 position。
+     * 读取、发布、记录 position 在同一事务内并持有中继锁，多个实例同时运行中继时串行执行，
+     * 起始 position 每批都从表中读取，不依赖本实例上次发布的位置
+     */
+    public int relayOnce() throws Exception {
+        long start = System.nanoTime();
+        List<TransactionChange> changes;
+        try {
+            changes = transactionTemplate.execute(status -> relayLocked());
+        } catch (SinkFailedException e) {
+            throw (Exception) e.getCause();
+        }
+        if (changes == null || changes.isEmpty()) {
+            return 0;
+        }
+        position = changes.get(changes.size() - 1).position();
+        published.increment(changes.size());
+        batchSize.record(changes.size());
+        relayTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return changes.size();
+    }
+
+    private List<TransactionChange> relayLocked() {
+        outboxStore.lockRelay();
+        List<OutboxStore.Pending> pending = outboxStore.pending(properties.getBatchSize());
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        long first = outboxStore.maxPosition() + 1;
+        List<TransactionChange> changes = new ArrayList<>(pending.size());
+        List<Long> eventIds = new ArrayList<>(pending.size());
+        for (OutboxStore.Pending item : pending) {
+            changes.add(item.change().withPosition(first + changes.size()));
+            eventIds.add(item.eventId());
+        }
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.publish(changes);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SinkFailedException(e);
+            }
+        }
+        outboxStore.markPublished(eventIds, first, LocalDateTime.now());
+        return changes;
+    }
+
+    // 在事务回调中传递发布目标抛出的受检异常
+    private static final class SinkFailedException extends RuntimeException {
+        SinkFailedException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * 删除已过保留期的已发布变更
+     */
+    public int purge() {
+        return outboxStore.purge(LocalDateTime.now().minus(properties.getRetention()));
+    }
+
+    // 整批发布后立即继续，不足一批或失败时等待唤醒或 pollInterval
+    private void run() {
+        long pollNanos = properties.getPollInterval().toNanos();
+        long purgeNanos = properties.getPurgeInterval().toNanos();
+        long nextPurge = System.nanoTime() + purgeNanos;
+        while (running) {
+            int count = 0;
+            try {
+                count = relayOnce();
+            } catch (Exception e) {
+                failures.increment();
+                logger.warn("outbox 变更发布失败，{} 后重试", properties.getPollInterval(), e);
+            }
+            if (System.nanoTime() - nextPurge >= 0) {
+                nextPurge = System.nanoTime() + purgeNanos;
+                try {
+                    logger.debug("已清理 {} 条过期 outbox 记录", purge());
+                } catch (RuntimeException e) {
+                    logger.warn("outbox 过期记录清理失败", e);
+                }
+            }
+            if (count < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, pollNanos);
+            }
+        }
+        // 停机前把已提交的变更发布完
+        try {
+            int count;
+            do {
+                count = relayOnce();
+            } while (count > 0);
+        } catch (Exception e) {
+            logger.warn("停机前发布 outbox 变更失败，剩余变更将在下次启动后发布", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running || !properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        relay = Thread.ofPlatform().name("outbox-relay").daemon().start(this::run);
+        logger.info("outbox 中继已启动，发布目标：{}", sinks.size());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = relay;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        relay = null;
+        logger.info("outbox 中继已停止，当前位置：{}", position);
+    }
+
+    // 晚于异步交易写入线程停止，其最后一批交易的变更也能在停机前发布
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,14 @@
+package com.bank.transaction.outbox;
+
+import com.bank.transaction.dto.TransactionChange;
+
+import java.util.List;
+
+/**
+ * outbox 中继的发布目标，例如消息队列。中继按 position 顺序逐批调用，抛出异常时整批稍后重试，
+ * 因此同一变更可能被发布多次，实现方或下游需要按 position 去重。
+ */
+public interface OutboxSink {
+
+    void publish(List<TransactionChange> changes) throws Exception;
+}
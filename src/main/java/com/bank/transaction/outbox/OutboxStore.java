@@ -0,0 +1,137 @@
+package com.bank.transaction.outbox;
+
+import com.bank.transaction.dto.TransactionChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * outbox 表的读写，写入随调用方所在的事务提交或回滚
+ */
+@Component
+public class OutboxStore {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox (transaction_id, change_type, payload, created_at) VALUES (?, ?, ?, ?)";
+    private static final String PENDING_SQL =
+            "SELECT event_id, payload FROM outbox WHERE position IS NULL ORDER BY event_id LIMIT ?";
+    // 只更新尚未发布的记录，已被其他中继发布时更新条数不足，整批回滚
+    private static final String MARK_SQL =
+            "UPDATE outbox SET position = ?, published_at = ? WHERE event_id = ? AND position IS NULL";
+    private static final String LOCK_SQL =
+            "SELECT lock_id FROM outbox_relay_lock WHERE lock_id = 1 FOR UPDATE";
+    private static final String INSERT_LOCK_SQL =
+            "INSERT INTO outbox_relay_lock (lock_id) VALUES (1)";
+    private static final String PUBLISHED_AFTER_SQL =
+            "SELECT position, payload FROM outbox WHERE position > ? ORDER BY position LIMIT ?";
+    private static final String PURGE_SQL =
+            "DELETE FROM outbox WHERE published_at < ? AND position < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OutboxStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // 一条待发布的记录
+    public record Pending(long eventId, TransactionChange change) {
+    }
+
+    public void append(List<TransactionChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(changes.size());
+        for (TransactionChange change : changes) {
+            rows.add(new Object[]{change.transactionId(), change.changeType().name(), write(change),
+                    Timestamp.valueOf(change.occurredAt())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    // 按写入顺序取尚未发布的记录
+    public List<Pending> pending(int limit) {
+        return jdbcTemplate.query(PENDING_SQL,
+                (rs, rowNum) -> new Pending(rs.getLong(1), read(rs.getString(2))), limit);
+    }
+
+    /**
+     * 锁定中继锁直到当前事务结束，需在事务内调用；锁行不存在（未执行 V13 迁移的库）时先补上
+     */
+    public void lockRelay() {
+        if (jdbcTemplate.queryForList(LOCK_SQL, Integer.class).isEmpty()) {
+            try {
+                jdbcTemplate.update(INSERT_LOCK_SQL);
+            } catch (DuplicateKeyException e) {
+                // 其他实例已插入
+            }
+            jdbcTemplate.queryForList(LOCK_SQL, Integer.class);
+        }
+    }
+
+    // 依次为 eventIds 分配从 firstPosition 开始的连续 position；任一记录已有 position 时抛出异常，调用方回滚整批
+    public void markPublished(List<Long> eventIds, long firstPosition, LocalDateTime publishedAt) {
+        Timestamp at = Timestamp.valueOf(publishedAt);
+        long[] position = {firstPosition};
+        int[][] counts = jdbcTemplate.batchUpdate(MARK_SQL, eventIds, eventIds.size(), (ps, eventId) -> {
+            ps.setLong(1, position[0]++);
+            ps.setTimestamp(2, at);
+            ps.setLong(3, eventId);
+        });
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 1 && count != Statement.SUCCESS_NO_INFO) {
+                    throw new IllegalStateException("outbox 记录已被其他中继发布，本批放弃");
+                }
+            }
+        }
+    }
+
+    // 已发布且 position 大于 since 的记录，按 position 顺序
+    public List<TransactionChange> publishedAfter(long since, int limit) {
+        return jdbcTemplate.query(PUBLISHED_AFTER_SQL,
+                (rs, rowNum) -> read(rs.getString(2)).withPosition(rs.getLong(1)), since, limit);
+    }
+
+    public long maxPosition() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(position) FROM outbox", Long.class);
+        return max != null ? max : 0;
+    }
+
+    // 仍保留的最早 position，没有已发布记录时为空
+    public Long minPosition() {
+        return jdbcTemplate.queryForObject("SELECT MIN(position) FROM outbox", Long.class);
+    }
+
+    // 删除 publishedBefore 之前发布的记录，始终保留最新一条，重启后 position 从它继续递增
+    public int purge(LocalDateTime publishedBefore) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(publishedBefore), maxPosition());
+    }
+
+    private String write(TransactionChange change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TransactionChange read(String payload) {
+        try {
+            return objectMapper.readValue(payload, TransactionChange.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
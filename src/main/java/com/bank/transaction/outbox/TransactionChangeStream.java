@@ -0,0 +1,211 @@
+package com.bank.transaction.outbox;
+
+import com.bank.transaction.config.OutboxProperties;
+import com.bank.transaction.dto.TransactionChange;
+import com.bank.transaction.exception.InvalidTransactionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 交易变更的 SSE 推送：新连接先从 outbox 表续传 since 之后已发布的变更，再接收本实例中继实时发布的变更。
+ * position 连续递增，发现跳号时从 outbox 表补齐，重复的 position 直接跳过。
+ * 每个连接在独立的虚拟线程上发送，慢客户端积压超过 queueCapacity 时断开，由其带 Last-Event-ID 重连续传。
+ */
+@Component
+public class TransactionChangeStream implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionChangeStream.class);
+
+    private final OutboxStore outboxStore;
+    private final LocalOutboxSink localSink;
+    private final OutboxProperties.Stream properties;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("transaction-stream-", 0).factory());
+
+    private final Counter disconnectedSlow;
+
+    public TransactionChangeStream(OutboxStore outboxStore, LocalOutboxSink localSink, OutboxProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.outboxStore = outboxStore;
+        this.localSink = localSink;
+        this.properties = properties.getStream();
+        this.disconnectedSlow = meterRegistry.counter("transaction.outbox.stream.disconnected", "reason", "slow");
+        Gauge.builder("transaction.outbox.stream.subscribers", localSink, LocalOutboxSink::subscriberCount)
+                .description("当前 SSE 订阅连接数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅 since 之后的变更，since 为空时只接收订阅之后发布的变更
+     */
+    public SseEmitter subscribe(Long since) {
+        if (since != null) {
+            if (since < 0) {
+                throw new InvalidTransactionException("since 不能小于0");
+            }
+            Long oldest = outboxStore.minPosition();
+            if (oldest != null && since < oldest - 1) {
+                throw new InvalidTransactionException("since 早于变更保留期，最早可续传的位置为 " + (oldest - 1));
+            }
+        }
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        Subscription subscription = new Subscription(emitter);
+        // 先订阅再读取起始位置，二者之间发布的变更会进入队列，按 position 去重
+        Runnable unsubscribe = localSink.subscribe(subscription::offer);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        subscription.last = since != null ? since : outboxStore.maxPosition();
+        executor.execute(subscription::replay);
+        return emitter;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // 队列和状态由 lock 保护；发送、关闭连接都在锁外进行，虚拟线程不会在持锁期间阻塞于网络 I/O
+    private class Subscription {
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<TransactionChange> queue = new ArrayDeque<>();
+        // 已发送的最后一个 position，只由当前发送线程访问
+        private long last;
+        private boolean replaying = true;
+        private boolean draining;
+        private boolean closed;
+
+        Subscription(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // 中继线程调用，只入队不发送
+        void offer(List<TransactionChange> changes) {
+            boolean overflow;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                overflow = queue.size() + changes.size() > properties.getQueueCapacity();
+                if (overflow) {
+                    closed = true;
+                    queue.clear();
+                } else {
+                    queue.addAll(changes);
+                    if (replaying || draining) {
+                        return;
+                    }
+                    draining = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (overflow) {
+                disconnectedSlow.increment();
+                emitter.complete();
+                return;
+            }
+            executor.execute(this::drain);
+        }
+
+        void replay() {
+            try {
+                fill(Long.MAX_VALUE);
+            } catch (IOException | RuntimeException e) {
+                close(e);
+                return;
+            }
+            lock.lock();
+            try {
+                replaying = false;
+                if (queue.isEmpty()) {
+                    return;
+                }
+                draining = true;
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        }
+
+        void drain() {
+            while (true) {
+                TransactionChange next;
+                lock.lock();
+                try {
+                    next = queue.poll();
+                    if (next == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    if (next.position() <= last) {
+                        continue;
+                    }
+                    if (next.position() > last + 1) {
+                        fill(next.position() - 1);
+                    }
+                    send(next);
+                } catch (IOException | RuntimeException e) {
+                    close(e);
+                    return;
+                }
+            }
+        }
+
+        // 从 outbox 表发送 (last, upTo] 内已发布的变更
+        private void fill(long upTo) throws IOException {
+            while (last < upTo) {
+                List<TransactionChange> changes = outboxStore.publishedAfter(last, properties.getReplayBatchSize());
+                for (TransactionChange change : changes) {
+                    if (change.position() > upTo) {
+                        return;
+                    }
+                    send(change);
+                }
+                if (changes.size() < properties.getReplayBatchSize()) {
+                    return;
+                }
+            }
+        }
+
+        private void send(TransactionChange change) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(change.position()))
+                    .name(change.changeType().name().toLowerCase())
+                    .data(change, MediaType.APPLICATION_JSON));
+            last = change.position();
+        }
+
+        private void close(Exception e) {
+            lock.lock();
+            try {
+                closed = true;
+                queue.clear();
+            } finally {
+                lock.unlock();
+            }
+            logger.debug("交易变更推送连接已断开：{}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bank.transaction.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按延迟自适应的并发上限（AIMD）：请求耗时超过阈值或以 5xx 结束时上限乘以 backoffRatio，
+ * 否则在并发达到上限一半以上时加 1。在途请求数达到上限时新请求直接拒绝。
+ * 一次下调之前开始的请求不再触发下调，避免同一波慢请求把上限连续压到最低。
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong lastDecrease;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      long latencyThresholdNanos, long nowNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = new AtomicInteger(Math.clamp(initialLimit, minLimit, maxLimit));
+        this.lastDecrease = new AtomicLong(nowNanos);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 请求结束，按耗时和结果调整上限
+     */
+    public void release(long startNanos, long endNanos, boolean failed) {
+        int current = inflight.getAndDecrement();
+        if (failed || endNanos - startNanos > latencyThresholdNanos) {
+            long last = lastDecrease.get();
+            if (startNanos - last > 0 && lastDecrease.compareAndSet(last, endNanos)) {
+                limit.updateAndGet(value -> Math.max(minLimit, (int) (value * backoffRatio)));
+            }
+        } else if (current * 2 >= limit.get()) {
+            limit.updateAndGet(value -> Math.min(maxLimit, value + 1));
+        }
+    }
+
+    // 已取得并发许可但请求被其他限流拒绝，不参与上限调整
+    public void cancel() {
+        inflight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.transaction.ratelimit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+/**
+ * /actuator/ratelimit：并发上限、跟踪的令牌桶数和各维度拒绝次数；
+ * /actuator/ratelimit/{client|account|token}/{key}：单个客户端或账户剩余的令牌，未跟踪时返回 404
+ */
+@Endpoint(id = "ratelimit")
+public class RateLimitEndpoint {
+
+    private final TransactionRateLimiter rateLimiter;
+
+    public RateLimitEndpoint(TransactionRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @ReadOperation
+    public TransactionRateLimiter.Snapshot snapshot() {
+        return rateLimiter.snapshot();
+    }
+
+    @ReadOperation
+    public TransactionRateLimiter.BucketState bucket(@Selector String scope, @Selector String key) {
+        return switch (scope) {
+            case "client" -> rateLimiter.bucket(TransactionRateLimiter.Scope.CLIENT, key);
+            case "token" -> rateLimiter.bucket(TransactionRateLimiter.Scope.TOKEN, key);
+            case "account" -> isAccountId(key) ? rateLimiter.bucket(TransactionRateLimiter.Scope.ACCOUNT, key) : null;
+            default -> null;
+        };
+    }
+
+    private static boolean isAccountId(String key) {
+        return !key.isEmpty() && key.chars().allMatch(Character::isDigit) && key.length() <= 18;
+    }
+}
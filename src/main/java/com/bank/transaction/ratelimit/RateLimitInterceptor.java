@@ -0,0 +1,67 @@
+package com.bank.transaction.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 写请求进入控制器之前检查并发上限和客户端限流，异常由 GlobalExceptionHandler 转为 429；
+ * 请求结束后按耗时和状态码调整并发上限。账户限流需要请求体，见 AccountRateLimitAdvice。
+ * 获取 token 的 GET 请求只按客户端单独限流，不计入写请求并发。
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".start";
+    private static final String TOKEN_PATH = "/api/v1/transactions/token";
+
+    private final TransactionRateLimiter rateLimiter;
+
+    public RateLimitInterceptor(TransactionRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isTokenRequest(request)) {
+            rateLimiter.acquireToken(clientKey(request));
+            return true;
+        }
+        if (!isWrite(request)) {
+            return true;
+        }
+        rateLimiter.acquireConcurrency();
+        try {
+            rateLimiter.acquireClient(clientKey(request));
+        } catch (RuntimeException e) {
+            rateLimiter.cancel();
+            throw e;
+        }
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            rateLimiter.release(start, ex != null || response.getStatus() >= 500);
+        }
+    }
+
+    // 客户端标识请求头应由网关设置，直接暴露时客户端可以通过更换标识绕过限流，账户限流不受影响
+    private String clientKey(HttpServletRequest request) {
+        String client = request.getHeader(rateLimiter.getClientHeader());
+        return client != null && !client.isEmpty() ? client : request.getRemoteAddr();
+    }
+
+    private static boolean isTokenRequest(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod())
+                && request.getRequestURI().equals(request.getContextPath() + TOKEN_PATH);
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        return method == HttpMethod.POST || method == HttpMethod.PUT
+                || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.transaction.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶：按 GCRA 只保存一个“下一个令牌的理论到达时间”（tat），取令牌就是 CAS 把 tat 向后推，
+ * 与容量为 burst、每 interval 补充一个令牌的令牌桶等价。时间由调用方传入 System.nanoTime()。
+ */
+public class TokenBucket {
+
+    private final int burst;
+    private final long intervalNanos;
+    private final AtomicLong tat;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("rate 和 burst 必须大于0");
+        }
+        this.burst = burst;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.tat = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * 取 permits 个令牌，成功返回 0，否则返回还需等待的纳秒数；permits 超过容量时永远不会成功，
+     * 返回值为按实际数量计算的超出部分的补充时间
+     */
+    public long tryAcquire(int permits, long nowNanos) {
+        long cost = permits * intervalNanos;
+        long capacity = burst * intervalNanos;
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current - nowNanos, 0) + cost;
+            if (next > capacity) {
+                return next - capacity;
+            }
+            if (tat.compareAndSet(current, nowNanos + next)) {
+                return 0;
+            }
+        }
+    }
+
+    // 归还已取的令牌，同一请求后续的限流检查被拒绝时调用
+    public void refund(int permits) {
+        tat.addAndGet(-permits * intervalNanos);
+    }
+
+    public double available(long nowNanos) {
+        long used = Math.max(tat.get() - nowNanos, 0);
+        return Math.max(burst - (double) used / intervalNanos, 0);
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+}
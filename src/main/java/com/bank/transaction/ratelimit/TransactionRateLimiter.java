@@ -0,0 +1,199 @@
+package com.bank.transaction.ratelimit;
+
+import com.bank.transaction.config.RateLimitProperties;
+import com.bank.transaction.exception.RateLimitedException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 写接口限流：每个客户端、每个账户各一个令牌桶，保存在有界的 Caffeine 缓存中；
+ * 获取 token 按客户端单独计数，不占用写请求的令牌，避免大量空发 token 占满 token 存储；
+ * 另有按延迟自适应的全局并发上限，服务变慢时先拒绝超出部分，而不是让所有请求一起排队。
+ * 被拒绝的请求抛出 {@link RateLimitedException}，返回 429 和 Retry-After。
+ */
+public class TransactionRateLimiter {
+
+    public enum Scope {
+        CLIENT, ACCOUNT, TOKEN, CONCURRENCY
+    }
+
+    private final RateLimitProperties properties;
+    private final Cache<String, TokenBucket> clients;
+    private final Cache<Long, TokenBucket> accounts;
+    private final Cache<String, TokenBucket> tokens;
+    // 未开启自适应并发时为 null
+    private final AdaptiveConcurrencyLimiter concurrency;
+
+    private final Counter clientRejected;
+    private final Counter accountRejected;
+    private final Counter tokenRejected;
+    private final Counter concurrencyRejected;
+
+    public TransactionRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clients = buckets(properties.getClient());
+        this.accounts = buckets(properties.getAccount());
+        this.tokens = buckets(properties.getToken());
+        RateLimitProperties.Adaptive adaptive = properties.getAdaptive();
+        this.concurrency = adaptive.isEnabled()
+                ? new AdaptiveConcurrencyLimiter(adaptive.getInitialLimit(), adaptive.getMinLimit(), adaptive.getMaxLimit(),
+                        adaptive.getBackoffRatio(), adaptive.getLatencyThreshold().toNanos(), System.nanoTime())
+                : null;
+        this.clientRejected = rejectedCounter(meterRegistry, Scope.CLIENT);
+        this.accountRejected = rejectedCounter(meterRegistry, Scope.ACCOUNT);
+        this.tokenRejected = rejectedCounter(meterRegistry, Scope.TOKEN);
+        this.concurrencyRejected = rejectedCounter(meterRegistry, Scope.CONCURRENCY);
+        Gauge.builder("transaction.ratelimit.tracked", clients, Cache::estimatedSize)
+                .tag("scope", "client")
+                .description("当前跟踪的令牌桶数")
+                .register(meterRegistry);
+        Gauge.builder("transaction.ratelimit.tracked", accounts, Cache::estimatedSize)
+                .tag("scope", "account")
+                .description("当前跟踪的令牌桶数")
+                .register(meterRegistry);
+        Gauge.builder("transaction.ratelimit.tracked", tokens, Cache::estimatedSize)
+                .tag("scope", "token")
+                .description("当前跟踪的令牌桶数")
+                .register(meterRegistry);
+        if (concurrency != null) {
+            Gauge.builder("transaction.ratelimit.concurrency.limit", concurrency, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("当前写请求并发上限")
+                    .register(meterRegistry);
+            Gauge.builder("transaction.ratelimit.concurrency.inflight", concurrency, AdaptiveConcurrencyLimiter::getInflight)
+                    .description("在途写请求数")
+                    .register(meterRegistry);
+        }
+    }
+
+    private static <K> Cache<K, TokenBucket> buckets(RateLimitProperties.Bucket bucket) {
+        return Caffeine.newBuilder()
+                .maximumSize(bucket.getMaxTracked())
+                .expireAfterAccess(bucket.getIdleTimeout())
+                .build();
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, Scope scope) {
+        return Counter.builder("transaction.ratelimit.rejected")
+                .tag("scope", scope.name().toLowerCase())
+                .description("被限流拒绝的写请求数")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public String getClientHeader() {
+        return properties.getClientHeader();
+    }
+
+    /**
+     * 占用一个并发许可，请求结束后必须调用 {@link #release} 或 {@link #cancel}；未开启自适应并发时直接返回
+     */
+    public void acquireConcurrency() {
+        if (concurrency != null && !concurrency.tryAcquire()) {
+            concurrencyRejected.increment();
+            throw new RateLimitedException("服务繁忙，请稍后重试", properties.getAdaptive().getRetryAfter());
+        }
+    }
+
+    public void release(long startNanos, boolean failed) {
+        if (concurrency != null) {
+            concurrency.release(startNanos, System.nanoTime(), failed);
+        }
+    }
+
+    public void cancel() {
+        if (concurrency != null) {
+            concurrency.cancel();
+        }
+    }
+
+    public void acquireClient(String client) {
+        RateLimitProperties.Bucket config = properties.getClient();
+        long now = System.nanoTime();
+        long wait = clients.get(client, key -> new TokenBucket(config.getRate(), config.getBurst(), now)).tryAcquire(1, now);
+        if (wait > 0) {
+            clientRejected.increment();
+            throw new RateLimitedException("客户端请求过于频繁，请稍后重试", Duration.ofNanos(wait));
+        }
+    }
+
+    public void acquireToken(String client) {
+        RateLimitProperties.Bucket config = properties.getToken();
+        long now = System.nanoTime();
+        long wait = tokens.get(client, key -> new TokenBucket(config.getRate(), config.getBurst(), now)).tryAcquire(1, now);
+        if (wait > 0) {
+            tokenRejected.increment();
+            throw new RateLimitedException("获取token过于频繁，请稍后重试", Duration.ofNanos(wait));
+        }
+    }
+
+    /**
+     * 按账户取令牌，permits 为每个账户涉及的交易数；任一账户被拒绝时归还已取的令牌
+     */
+    public void acquireAccounts(Map<Long, Integer> permits) {
+        RateLimitProperties.Bucket config = properties.getAccount();
+        long now = System.nanoTime();
+        List<Map.Entry<TokenBucket, Integer>> acquired = new ArrayList<>(permits.size());
+        for (Map.Entry<Long, Integer> entry : permits.entrySet()) {
+            TokenBucket bucket = accounts.get(entry.getKey(), key -> new TokenBucket(config.getRate(), config.getBurst(), now));
+            long wait = bucket.tryAcquire(entry.getValue(), now);
+            if (wait > 0) {
+                acquired.forEach(item -> item.getKey().refund(item.getValue()));
+                accountRejected.increment();
+                // 单次请求涉及的交易数超过令牌桶容量时不能按容量计费，否则大批量可以绕过账户限流
+                String message = entry.getValue() > bucket.getBurst()
+                        ? "账户 " + entry.getKey() + " 单次请求的交易数 " + entry.getValue() + " 超过限流容量 " + bucket.getBurst() + "，请拆分后提交"
+                        : "账户 " + entry.getKey() + " 交易过于频繁，请稍后重试";
+                throw new RateLimitedException(message, Duration.ofNanos(wait));
+            }
+            acquired.add(Map.entry(bucket, entry.getValue()));
+        }
+    }
+
+    /**
+     * 当前限流状态，供 Actuator 端点展示
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(properties.isEnabled(),
+                concurrency != null ? concurrency.getLimit() : null,
+                concurrency != null ? concurrency.getInflight() : null,
+                clients.estimatedSize(), accounts.estimatedSize(),
+                Map.of(Scope.CLIENT, (long) clientRejected.count(),
+                        Scope.ACCOUNT, (long) accountRejected.count(),
+                        Scope.TOKEN, (long) tokenRejected.count(),
+                        Scope.CONCURRENCY, (long) concurrencyRejected.count()));
+    }
+
+    /**
+     * 单个客户端或账户的令牌桶状态，未跟踪时返回 null（令牌桶已满）
+     */
+    public BucketState bucket(Scope scope, String key) {
+        TokenBucket bucket = switch (scope) {
+            case CLIENT -> clients.getIfPresent(key);
+            case ACCOUNT -> accounts.getIfPresent(Long.valueOf(key));
+            case TOKEN -> tokens.getIfPresent(key);
+            case CONCURRENCY -> null;
+        };
+        if (bucket == null) {
+            return null;
+        }
+        return new BucketState(scope, key, bucket.available(System.nanoTime()), bucket.getBurst());
+    }
+
+    public record Snapshot(boolean enabled, Integer concurrencyLimit, Integer inflight, long trackedClients,
+                           long trackedAccounts, Map<Scope, Long> rejected) {
+    }
+
+    public record BucketState(Scope scope, String key, double available, int burst) {
+    }
+}
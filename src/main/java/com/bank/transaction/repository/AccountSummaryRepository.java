@@ -0,0 +1,13 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.entity.AccountTypeSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AccountSummaryRepository extends JpaRepository<AccountTypeSummary, AccountTypeSummary.Key> {
+    // 按主键前缀查询，每个账户最多一行对应一种交易类型
+    List<AccountTypeSummary> findByAccountId(Long accountId);
+}
@@ -0,0 +1,72 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.ArchivedTransaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * 归档表查询，与 TransactionRepository 中的账户历史查询一一对应，只返回未删除的交易，同样使用 TransactionView 投影
+ */
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+    Optional<ArchivedTransaction> findByTransactionIdAndDelFlagFalse(Long transactionId);
+
+    @Query(TransactionView.PROJECTION + "from ArchivedTransaction t where (t.inAccount = :accountId or t.outAccount = :accountId) and t.delFlag = false " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findAccountTransactions(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query(TransactionView.PROJECTION + "from ArchivedTransaction t where t.inAccount = :accountId and t.delFlag = false " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findIncoming(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query(TransactionView.PROJECTION + "from ArchivedTransaction t where t.outAccount = :accountId and t.delFlag = false " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findOutgoing(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query(TransactionView.PROJECTION + "from ArchivedTransaction t where t.inAccount = :accountId and t.delFlag = false " +
+            "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.transactionId < :transactionId)) " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findIncomingBefore(@Param("accountId") Long accountId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("transactionId") Long transactionId,
+                                             Pageable pageable);
+
+    @Query(TransactionView.PROJECTION + "from ArchivedTransaction t where t.outAccount = :accountId and t.delFlag = false " +
+            "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.transactionId < :transactionId)) " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findOutgoingBefore(@Param("accountId") Long accountId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("transactionId") Long transactionId,
+                                             Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("select t from ArchivedTransaction t where (t.inAccount = :accountId or t.outAccount = :accountId) and t.delFlag = false " +
+            "and t.createdAt >= :from and t.createdAt < :to " +
+            "order by t.createdAt, t.transactionId")
+    Stream<ArchivedTransaction> streamAccountTransactions(@Param("accountId") Long accountId,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+
+    // 归档表中最新的未删除交易时间，用于确定需要查询归档表的时间边界
+    @Query("select max(t.createdAt) from ArchivedTransaction t where t.delFlag = false")
+    LocalDateTime findLatestCreatedAt();
+}
@@ -1,14 +1,78 @@
 package com.bank.transaction.repository;
 
+import com.bank.transaction.dto.TransactionView;
 import com.bank.transaction.entity.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Optional<Transaction> findByTransactionIdAndDelFlagFalse(Long transactionId);
-    List<Transaction> findByInAccountOrOutAccountAndDelFlagFalse(Long inAccount, Long outAccount);
-}
\ No newline at end of file
+
+    // 分片写入时选择分片的账户，规则与 ShardedTransactionWriter.shardAccount 一致：存款按转入账户；只读一列，不加载实体
+    @Query("select case when t.outAccount > 0 then t.outAccount else t.inAccount end from Transaction t where t.transactionId = :transactionId")
+    Optional<Long> findShardAccount(@Param("transactionId") Long transactionId);
+
+    // 账户历史查询都使用 TransactionView 构造器投影，结果不进入持久化上下文，不产生脏检查快照
+
+    // 偏移分页：排序、offset、limit 全部下推到数据库
+    @Query(TransactionView.PROJECTION + "from Transaction t where (t.inAccount = :accountId or t.outAccount = :accountId) and t.delFlag = false " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findAccountTransactions(@Param("accountId") Long accountId, Pageable pageable);
+
+    // 游标分页首页：转入方向，走 (in_account, del_flag, created_at) 索引
+    @Query(TransactionView.PROJECTION + "from Transaction t where t.inAccount = :accountId and t.delFlag = false " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findIncoming(@Param("accountId") Long accountId, Pageable pageable);
+
+    // 游标分页首页：转出方向，走 (out_account, del_flag, created_at) 索引
+    @Query(TransactionView.PROJECTION + "from Transaction t where t.outAccount = :accountId and t.delFlag = false " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findOutgoing(@Param("accountId") Long accountId, Pageable pageable);
+
+    // 游标分页后续页：转入方向，只取 (createdAt, transactionId) 严格小于游标的记录
+    @Query(TransactionView.PROJECTION + "from Transaction t where t.inAccount = :accountId and t.delFlag = false " +
+            "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.transactionId < :transactionId)) " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findIncomingBefore(@Param("accountId") Long accountId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("transactionId") Long transactionId,
+                                             Pageable pageable);
+
+    // 游标分页后续页：转出方向
+    @Query(TransactionView.PROJECTION + "from Transaction t where t.outAccount = :accountId and t.delFlag = false " +
+            "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.transactionId < :transactionId)) " +
+            "order by t.createdAt desc, t.transactionId desc")
+    List<TransactionView> findOutgoingBefore(@Param("accountId") Long accountId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("transactionId") Long transactionId,
+                                             Pageable pageable);
+
+    // 导出：按时间正序逐行读取 [from, to) 内的交易，只读且不进二级缓存，JDBC 按 fetch size 分批拉取；
+    // 调用方需在事务内消费并关闭 Stream。MySQL 需在连接串中加 useCursorFetch=true，fetch size 才会生效
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("select t from Transaction t where (t.inAccount = :accountId or t.outAccount = :accountId) and t.delFlag = false " +
+            "and t.createdAt >= :from and t.createdAt < :to " +
+            "order by t.createdAt, t.transactionId")
+    Stream<Transaction> streamAccountTransactions(@Param("accountId") Long accountId,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,80 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.dto.TransactionCursor;
+import com.bank.transaction.dto.TransactionSearch;
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.enums.TransactionDirection;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * 交易多条件搜索，用 Criteria API 按传入的条件拼接查询，热表和归档表共用（两者字段名一致）。
+ * 每条查询只查一个方向，以账户和 delFlag = false 作为等值条件、createdAt 作为范围和排序，
+ * 命中 (账户, delFlag, createdAt, ...) 覆盖索引；交易类型、金额在索引内过滤，不回表。
+ * 两个方向不能用 OR 合并成一条查询，否则无法使用索引。
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionSearchRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * 按 (createdAt desc, transactionId desc) 取 position 之后最多 limit 条，position 为空时从最新一条开始
+     */
+    public List<TransactionView> search(Class<?> table, TransactionDirection direction, TransactionSearch criteria,
+                                        TransactionCursor position, int limit) {
+        if (direction == TransactionDirection.BOTH) {
+            throw new IllegalArgumentException("每条查询只能查询一个方向");
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionView> query = cb.createQuery(TransactionView.class);
+        Root<?> t = query.from(table);
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(t.get(direction == TransactionDirection.IN ? "inAccount" : "outAccount"), criteria.getAccountId()));
+        where.add(cb.isFalse(t.get("delFlag")));
+        if (criteria.getFrom() != null) {
+            where.add(cb.greaterThanOrEqualTo(t.get("createdAt"), criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            where.add(cb.lessThan(t.get("createdAt"), criteria.getTo()));
+        }
+        if (position != null) {
+            where.add(cb.or(
+                    cb.lessThan(t.get("createdAt"), position.getCreatedAt()),
+                    cb.and(cb.equal(t.get("createdAt"), position.getCreatedAt()),
+                            cb.lessThan(t.get("transactionId"), position.getTransactionId()))));
+        }
+        if (criteria.getTransactionType() != null) {
+            where.add(cb.equal(t.get("transactionType"), criteria.getTransactionType()));
+        }
+        if (criteria.getMinAmount() != null) {
+            where.add(cb.greaterThanOrEqualTo(t.get("amount"), criteria.getMinAmount()));
+        }
+        if (criteria.getMaxAmount() != null) {
+            where.add(cb.lessThanOrEqualTo(t.get("amount"), criteria.getMaxAmount()));
+        }
+
+        query.select(cb.construct(TransactionView.class, t.get("transactionId"), t.get("transactionType"),
+                        t.get("inAccount"), t.get("outAccount"), t.get("amount"), t.get("createdAt"), t.get("version")))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(t.get("createdAt")), cb.desc(t.get("transactionId")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(HINT_READ_ONLY, true)
+                .setHint(HINT_CACHEABLE, false)
+                .getResultList();
+    }
+}
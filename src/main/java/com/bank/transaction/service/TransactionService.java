@@ -1,30 +1,92 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.dto.AccountSummary;
+import com.bank.transaction.dto.BatchItemResult;
+import com.bank.transaction.dto.IngestionStatus;
+import com.bank.transaction.dto.SummaryRebuildResult;
+import com.bank.transaction.dto.TransactionPage;
 import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.dto.TransactionSearch;
 import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.ExportFormat;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionService {
     /**
-     * 创建交易
+     * 创建交易，返回交易ID；同一token的重复请求返回首次创建的交易ID
+     */
+    Long createTransaction(TransactionRequest request);
+
+    /**
+     * 批量创建交易，逐条返回处理结果，结果顺序与请求顺序一致
+     */
+    List<BatchItemResult> createTransactions(List<TransactionRequest> requests);
+
+    /**
+     * 异步创建交易，入队后立即返回受理状态，写入结果通过 getIngestionStatus 查询
+     */
+    IngestionStatus submitTransaction(TransactionRequest request);
+
+    /**
+     * 查询异步创建的处理状态
+     */
+    IngestionStatus getIngestionStatus(String requestId);
+
+    /**
+     * 查询单笔交易，返回结果中的 version 作为 ETag
+     */
+    Transaction getTransaction(Long transactionId);
+
+    /**
+     * 删除交易；expectedVersion 不为空且与当前版本不一致时抛出 PreconditionFailedException
+     */
+    void deleteTransaction(Long transactionId, Long expectedVersion);
+
+    /**
+     * 修改交易，返回修改后的版本号；expectedVersion 不为空且与当前版本不一致时抛出 PreconditionFailedException
+     */
+    Long modifyTransaction(Long transactionId, TransactionRequest request, Long expectedVersion);
+
+    /**
+     * 查询账户的所有交易记录（偏移分页）
+     */
+    TransactionPage listTransactions(Long accountId, Integer page, Integer size);
+
+    /**
+     * 查询账户的所有交易记录（游标分页），cursor 为空时返回第一页
+     */
+    TransactionPage listTransactionsByCursor(Long accountId, String cursor, Integer size);
+
+    /**
+     * 按交易类型、金额区间、时间区间和方向搜索账户交易（游标分页），cursor 为空时返回第一页
+     */
+    TransactionPage searchTransactions(TransactionSearch search, String cursor, Integer size);
+
+    /**
+     * 流式导出账户在 [from, to) 内的全部交易，按时间正序写入 out；from、to 为空表示不限，返回导出条数
      */
-    void createTransaction(TransactionRequest request);
+    long exportTransactions(Long accountId, LocalDateTime from, LocalDateTime to, ExportFormat format, OutputStream out) throws IOException;
 
     /**
-     * 删除交易
+     * 订阅交易变更（SSE），先续传 position 大于 since 的已发布变更；since 为空时只推送订阅之后的变更
      */
-    void deleteTransaction(Long transactionId);
+    SseEmitter streamTransactionChanges(Long since);
 
     /**
-     * 修改交易
+     * 查询账户汇总（余额及按交易类型的合计），直接读取预先维护的投影
      */
-    void modifyTransaction(Long transactionId, TransactionRequest request);
+    AccountSummary getAccountSummary(Long accountId);
 
     /**
-     * 查询账户的所有交易记录
+     * 从交易记录重新计算全部账户的汇总投影
      */
-    List<Transaction> listTransactions(Long accountId, Integer page, Integer size);
+    SummaryRebuildResult rebuildAccountSummaries();
 
     /**
      * 模拟前端产生token
@@ -0,0 +1,293 @@
+package com.bank.transaction.service.impl;
+
+import com.bank.transaction.config.IngestionProperties;
+import com.bank.transaction.dto.IngestionStatus;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.bank.transaction.exception.IngestionRejectedException;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.token.TokenClaim;
+import com.bank.transaction.util.TokenUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步写入：受理的请求进入有界队列，由单个写线程批量取出，在一个事务中一次提交（组提交）。
+ * 组提交失败时逐条重试，只有真正写不进去的请求标记为失败并释放token。
+ * 开启分片写入时不受理：写线程不按账户分片，会与分片写线程同时写入同一账户，破坏每个账户只有一个写线程的约束。
+ */
+@Component
+public class AsyncTransactionWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncTransactionWriter.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TokenUtil tokenUtil;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IngestionProperties.Async config;
+    private final boolean sharded;
+
+    private final BlockingQueue<Pending> queue;
+    private final Cache<String, IngestionStatus> statuses;
+
+    private final Counter rejected;
+    private final Counter failed;
+    private final DistributionSummary batchSize;
+    private final Timer commitTimer;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AsyncTransactionWriter(TransactionRepository transactionRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  TokenUtil tokenUtil,
+                                  ApplicationEventPublisher eventPublisher,
+                                  IngestionProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.tokenUtil = tokenUtil;
+        this.eventPublisher = eventPublisher;
+        this.config = properties.getAsync();
+        this.sharded = properties.getSharded().isEnabled();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(config.getStatusMaxEntries())
+                .expireAfterWrite(config.getStatusRetention())
+                .build();
+        this.rejected = meterRegistry.counter("transaction.ingest.rejected");
+        this.failed = meterRegistry.counter("transaction.ingest.failed");
+        this.batchSize = DistributionSummary.builder("transaction.ingest.batch.size")
+                .description("每次组提交写入的交易数")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("transaction.ingest.commit")
+                .description("组提交耗时")
+                .register(meterRegistry);
+        Gauge.builder("transaction.ingest.queue.size", queue, BlockingQueue::size)
+                .description("等待写入的请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 受理一笔交易：占用token后入队，返回受理ID；已处理过的token直接返回原交易
+     */
+    public IngestionStatus submit(TransactionRequest request) {
+        if (sharded) {
+            rejected.increment();
+            throw new IngestionRejectedException("已开启分片写入，不受理异步写入，请使用单笔或批量创建接口");
+        }
+        if (!config.isEnabled() || !running) {
+            rejected.increment();
+            throw new IngestionRejectedException("异步写入未开启");
+        }
+        TokenClaim claim = tokenUtil.claimToken(request.getToken());
+        String requestId = UUID.randomUUID().toString();
+        if (claim.isReplay()) {
+            logger.info("重复提交，返回原交易，ID：{}", claim.getResult());
+            IngestionStatus status = IngestionStatus.committed(requestId, claim.getResult());
+            statuses.put(requestId, status);
+            return status;
+        }
+
+        // 先登记状态再入队，避免写线程提交后的状态被覆盖
+        IngestionStatus pending = IngestionStatus.pending(requestId);
+        statuses.put(requestId, pending);
+        if (!offer(new Pending(requestId, request, claim))) {
+            statuses.invalidate(requestId);
+            tokenUtil.releaseToken(claim);
+            rejected.increment();
+            throw new IngestionRejectedException("写入队列已满，请稍后使用原token重试");
+        }
+        return pending;
+    }
+
+    public IngestionStatus getStatus(String requestId) {
+        return statuses.getIfPresent(requestId);
+    }
+
+    private boolean offer(Pending pending) {
+        if (config.getOverflowPolicy() == IngestionProperties.Async.OverflowPolicy.REJECT) {
+            return queue.offer(pending);
+        }
+        try {
+            return queue.offer(pending, config.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(config.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                // 任何异常都只让本批尚未提交的请求失败并释放token，写线程继续运行，之后受理的请求仍会写入
+                logger.error("异步写线程异常", e);
+                for (Pending pending : batch) {
+                    if (isPending(pending)) {
+                        fail(pending, e);
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // 先取走队列里已有的请求，不足一批时最多再等 maxWait 凑批
+    private void fill(List<Pending> batch) throws InterruptedException {
+        int max = config.getMaxBatchSize();
+        queue.drainTo(batch, max - batch.size());
+        long deadline = System.nanoTime() + config.getMaxWait().toNanos();
+        while (batch.size() < max) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, max - batch.size());
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        List<Transaction> transactions;
+        try {
+            transactions = commitTimer.record(() -> transactionTemplate.execute(status -> write(batch)));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            logger.warn("组提交失败，逐条重试，数量：{}", batch.size(), e);
+            for (Pending pending : batch) {
+                commit(List.of(pending));
+            }
+            return;
+        }
+        batchSize.record(batch.size());
+        boolean completedInTransaction = tokenUtil.joinsTransaction();
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            Long transactionId = transactions.get(i).getTransactionId();
+            if (!completedInTransaction) {
+                pending.claim.succeed(transactionId);
+                tokenUtil.completeToken(pending.claim);
+            }
+            statuses.put(pending.requestId, IngestionStatus.committed(pending.requestId, transactionId));
+        }
+    }
+
+    private List<Transaction> write(List<Pending> batch) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            transactions.add(TransactionServiceImpl.newTransaction(pending.request));
+        }
+        transactionRepository.saveAll(transactions);
+        transactionRepository.flush();
+        for (Transaction transaction : transactions) {
+            eventPublisher.publishEvent(TransactionChangedEvent.created(transaction));
+        }
+        // token存储加入事务时，处理结果与交易一起提交；回滚后 token 仍为占用状态，由 fail 释放
+        if (tokenUtil.joinsTransaction()) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).claim.succeed(transactions.get(i).getTransactionId());
+                tokenUtil.completeToken(batch.get(i).claim);
+            }
+        }
+        return transactions;
+    }
+
+    // 已提交的请求不再释放token，避免同一token再次写入
+    private boolean isPending(Pending pending) {
+        IngestionStatus status = statuses.getIfPresent(pending.requestId);
+        return status != null && status.getStatus() == IngestionStatus.Status.PENDING;
+    }
+
+    private void fail(Pending pending, Throwable e) {
+        logger.error("异步写入交易失败，受理ID：{}", pending.requestId, e);
+        tokenUtil.releaseToken(pending.claim);
+        statuses.put(pending.requestId, IngestionStatus.failed(pending.requestId, "写入失败，请使用原token重试"));
+        failed.increment();
+    }
+
+    @Override
+    public void start() {
+        if (!config.isEnabled() || sharded || running) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("transaction-writer").start(this::drain);
+        logger.info("异步写线程已启动，队列容量：{}，单批上限：{}", config.getQueueCapacity(), config.getMaxBatchSize());
+    }
+
+    // 停止受理新请求，等待写线程把队列中已受理的请求写完
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Pending pending : remaining) {
+            fail(pending, new IllegalStateException("应用关闭前未能写入"));
+        }
+        logger.info("异步写线程已停止");
+    }
+
+    // 在 Web 服务器停止之后再停止，优雅停机期间仍在处理的请求可以正常入队
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private record Pending(String requestId, TransactionRequest request, TokenClaim claim) {
+    }
+}
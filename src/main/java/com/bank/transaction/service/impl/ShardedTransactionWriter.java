@@ -0,0 +1,376 @@
+package com.bank.transaction.service.impl;
+
+import com.bank.transaction.config.IngestionProperties;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.bank.transaction.exception.DuplicateRequestException;
+import com.bank.transaction.exception.IngestionRejectedException;
+import com.bank.transaction.exception.InvalidTokenException;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.token.IdempotencyGuard;
+import com.bank.transaction.token.TokenClaim;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 按账户分片的单写线程：单笔创建、批量创建、修改、删除按转出账户哈希到固定数量的分片，每个分片由一个写线程按入队顺序执行。
+ * 同一账户的写入不加锁即依次生效，不同分片互不等待，写入最多同时占用分片数个连接。
+ * 分片内连续的创建请求合并为一个事务提交，失败时逐条重试；修改、删除在之前的创建提交后单独执行。
+ * 以转出账户分片是因为余额校验只关心扣款：同一账户的扣款总在同一分片内串行，并发的入账只会让余额更充足。
+ * 存款的转出账户为 -1 占位，改按转入账户分片，不同账户的存款分散到各分片，不会全部落在同一个写线程上。
+ */
+@Component
+public class ShardedTransactionWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedTransactionWriter.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyGuard idempotencyGuard;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IngestionProperties.Sharded config;
+    private final boolean virtualThreads;
+    private final List<BlockingQueue<Mutation>> queues;
+
+    private final Counter rejected;
+    private final Counter timedOut;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    private final List<Thread> writers = new ArrayList<>();
+
+    public ShardedTransactionWriter(TransactionRepository transactionRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    IdempotencyGuard idempotencyGuard,
+                                    ApplicationEventPublisher eventPublisher,
+                                    IngestionProperties properties,
+                                    Environment environment,
+                                    MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.idempotencyGuard = idempotencyGuard;
+        this.eventPublisher = eventPublisher;
+        this.config = properties.getSharded();
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        int shards = config.getShards() > 0 ? config.getShards() : Runtime.getRuntime().availableProcessors();
+        this.queues = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            BlockingQueue<Mutation> queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+            queues.add(queue);
+            Gauge.builder("transaction.shard.queue.size", queue, BlockingQueue::size)
+                    .tag("shard", String.valueOf(i))
+                    .description("分片等待执行的请求数")
+                    .register(meterRegistry);
+        }
+        this.rejected = meterRegistry.counter("transaction.shard.rejected");
+        this.timedOut = meterRegistry.counter("transaction.shard.timeout");
+        this.batchSize = DistributionSummary.builder("transaction.shard.batch.size")
+                .description("分片每次提交的创建请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在转出账户（存款为转入账户）所在分片创建交易，提交后返回交易ID；已处理过的token直接返回原交易ID
+     */
+    public Long create(TransactionRequest request) {
+        Create create = new Create(request, new CompletableFuture<>());
+        enqueue(shardAccount(request.getOutAccount(), request.getInAccount()), create);
+        return await(create.result()).getResult();
+    }
+
+    /**
+     * 批量创建：各笔分别入队到所在分片，与单笔创建一起按账户依次提交，最多等待 resultTimeout 后返回各笔结果。
+     * 结果为占用的token（含交易ID，isReplay 表示原交易）；入队被拒绝或写入失败的一笔以对应异常结束，超时的一笔尚未完成
+     */
+    public List<CompletableFuture<TokenClaim>> createAll(List<TransactionRequest> requests) {
+        List<CompletableFuture<TokenClaim>> results = new ArrayList<>(requests.size());
+        for (TransactionRequest request : requests) {
+            Create create = new Create(request, new CompletableFuture<>());
+            try {
+                enqueue(shardAccount(request.getOutAccount(), request.getInAccount()), create);
+            } catch (IngestionRejectedException e) {
+                create.result().completeExceptionally(e);
+            }
+            results.add(create.result());
+        }
+        try {
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                    .get(config.getResultTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // 单笔失败记录在各自的结果中
+        }
+        return results;
+    }
+
+    /**
+     * 在账户所在分片执行修改、删除等写入，执行完成后返回结果；work 自行管理事务
+     */
+    public <T> T execute(Long accountId, Supplier<T> work) {
+        Task<T> task = new Task<>(work, new CompletableFuture<>());
+        enqueue(accountId, task);
+        return await(task.result());
+    }
+
+    /**
+     * 交易按哪个账户分片：转出账户为 -1 占位（存款）时使用转入账户
+     */
+    public static Long shardAccount(Long outAccount, Long inAccount) {
+        return outAccount != null && outAccount > 0 ? outAccount : inAccount;
+    }
+
+    /**
+     * 账户所在的分片：乘以黄金分割常数后取高 32 位，连续的账户号也能均匀分布
+     */
+    public int shardOf(Long accountId) {
+        return (int) (((accountId * 0x9E3779B97F4A7C15L) >>> 32) % queues.size());
+    }
+
+    private void enqueue(Long accountId, Mutation mutation) {
+        if (!running) {
+            rejected.increment();
+            throw new IngestionRejectedException("分片写入未开启");
+        }
+        BlockingQueue<Mutation> queue = queues.get(shardOf(accountId));
+        boolean offered;
+        try {
+            offered = queue.offer(mutation, config.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+        // 入队时恰好停止：写线程可能已退出，取回成功说明没有被执行
+        if (offered && !running && queue.remove(mutation)) {
+            offered = false;
+        }
+        if (!offered) {
+            rejected.increment();
+            throw new IngestionRejectedException("分片写入队列已满，请稍后使用原token重试");
+        }
+    }
+
+    private void drain(BlockingQueue<Mutation> queue) {
+        List<Mutation> batch = new ArrayList<>(config.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Mutation first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // 不额外等待凑批：上一批提交期间到达的请求自然组成下一批
+                batch.add(first);
+                queue.drainTo(batch, config.getMaxBatchSize() - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                // 任何异常都让本批尚未完成的调用方失败，写线程继续处理后续请求
+                logger.error("分片写线程异常", e);
+                for (Mutation mutation : batch) {
+                    mutation.result().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // 按入队顺序执行：连续的创建合并提交，遇到修改、删除先提交之前的创建
+    private void apply(List<Mutation> batch) {
+        List<Create> creates = new ArrayList<>(batch.size());
+        for (Mutation mutation : batch) {
+            if (mutation instanceof Create create) {
+                creates.add(create);
+                continue;
+            }
+            commit(creates);
+            creates.clear();
+            ((Task<?>) mutation).run();
+        }
+        commit(creates);
+    }
+
+    private void commit(List<Create> creates) {
+        if (creates.isEmpty()) {
+            return;
+        }
+        List<Runnable> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> write(creates));
+        } catch (RuntimeException e) {
+            if (creates.size() == 1) {
+                creates.get(0).result().completeExceptionally(e);
+                return;
+            }
+            logger.warn("分片组提交失败，逐条重试，数量：{}", creates.size(), e);
+            for (Create create : creates) {
+                commit(List.of(create));
+            }
+            return;
+        } catch (Error e) {
+            // 不逐条重试，本批调用方直接失败，已占用的token随事务回滚释放
+            logger.error("分片提交失败，数量：{}", creates.size(), e);
+            for (Create create : creates) {
+                create.result().completeExceptionally(e);
+            }
+            return;
+        }
+        batchSize.record(creates.size());
+        outcomes.forEach(Runnable::run);
+    }
+
+    // 在事务内写入，返回提交后通知调用方的操作；token 无效或正在处理的请求单独失败，不影响同批其他请求
+    private List<Runnable> write(List<Create> creates) {
+        List<Runnable> outcomes = new ArrayList<>(creates.size());
+        List<Create> accepted = new ArrayList<>(creates.size());
+        List<TokenClaim> claims = new ArrayList<>(creates.size());
+        List<Transaction> transactions = new ArrayList<>(creates.size());
+        for (Create create : creates) {
+            TokenClaim claim;
+            try {
+                claim = idempotencyGuard.claim(create.request().getToken());
+            } catch (InvalidTokenException | DuplicateRequestException e) {
+                outcomes.add(() -> create.result().completeExceptionally(e));
+                continue;
+            }
+            if (claim.isReplay()) {
+                outcomes.add(() -> create.result().complete(claim));
+                continue;
+            }
+            accepted.add(create);
+            claims.add(claim);
+            transactions.add(TransactionServiceImpl.newTransaction(create.request()));
+        }
+
+        if (transactions.isEmpty()) {
+            return outcomes;
+        }
+        transactionRepository.saveAll(transactions);
+        transactionRepository.flush();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            Create create = accepted.get(i);
+            TokenClaim claim = claims.get(i);
+            claim.succeed(transaction.getTransactionId());
+            eventPublisher.publishEvent(TransactionChangedEvent.created(transaction));
+            outcomes.add(() -> create.result().complete(claim));
+        }
+        return outcomes;
+    }
+
+    // 最多等待 resultTimeout，超时返回 503；请求可能仍在队列中或正在执行，使用原token重试可得到最终结果
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(config.getResultTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new IngestionRejectedException("分片写入超时，请稍后使用原token重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IngestionRejectedException("等待分片写入时被中断，请稍后使用原token重试");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!config.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<Mutation> queue = queues.get(i);
+            Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+            writers.add(builder.name("transaction-shard-" + i).start(() -> drain(queue)));
+        }
+        logger.info("分片写线程已启动，分片数：{}，单批上限：{}", queues.size(), config.getMaxBatchSize());
+    }
+
+    // 停止受理新请求，等待各写线程把已入队的请求执行完
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        try {
+            for (Thread writer : writers) {
+                writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writers.clear();
+        for (BlockingQueue<Mutation> queue : queues) {
+            List<Mutation> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            for (Mutation mutation : remaining) {
+                mutation.result().completeExceptionally(new IngestionRejectedException("应用关闭前未能执行，请使用原token重试"));
+            }
+        }
+        logger.info("分片写线程已停止");
+    }
+
+    // 与异步写入相同，在 Web 服务器停止之后再停止
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private sealed interface Mutation permits Create, Task {
+        CompletableFuture<?> result();
+    }
+
+    private record Create(TransactionRequest request, CompletableFuture<TokenClaim> result) implements Mutation {
+    }
+
+    private record Task<T>(Supplier<T> work, CompletableFuture<T> result) implements Mutation {
+        void run() {
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.bank.transaction.service.impl;
+
+import com.bank.transaction.archive.ArchiveHorizon;
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.ArchivedTransaction;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.ExportFormat;
+import com.bank.transaction.repository.ArchivedTransactionRepository;
+import com.bank.transaction.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * 账户交易历史导出：逐行读取、逐行写出，写出后立即从持久化上下文中移除，
+ * 内存占用只与 JDBC fetch size 和输出缓冲区大小有关，与历史记录条数无关。
+ * 导出范围早于归档边界时，同时读取归档表并按时间顺序归并。需要在只读事务内调用。
+ * NDJSON 每行与查询接口返回的 {@link TransactionView} 字段一致，不输出 delFlag 等内部字段。
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionExporter {
+
+    private static final String CSV_HEADER = "transactionId,transactionType,inAccount,outAccount,amount,createdAt\n";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final ArchiveHorizon archiveHorizon;
+
+    /**
+     * 导出 [from, to) 内的交易，返回导出条数
+     */
+    public long export(Long accountId, LocalDateTime from, LocalDateTime to, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        // 导出不支持 ?fields=，显式输出视图的全部字段，不依赖全局 ObjectMapper 的过滤器配置
+        ObjectWriter json = objectMapper.writerFor(TransactionView.class).with(new SimpleFilterProvider()
+                .addFilter(TransactionView.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+        long count = 0;
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        try (Stream<Transaction> hot = transactionRepository.streamAccountTransactions(accountId, from, to);
+             Stream<ArchivedTransaction> archived = archiveHorizon.reaches(from)
+                     ? archivedTransactionRepository.streamAccountTransactions(accountId, from, to)
+                     : Stream.empty()) {
+            Iterator<Transaction> iterator = new OldestFirst(
+                    hot.peek(entityManager::detach).iterator(),
+                    archived.peek(entityManager::detach).map(ArchivedTransaction::toTransaction).iterator());
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, transaction);
+                } else {
+                    writer.write(json.writeValueAsString(TransactionView.of(transaction)));
+                    writer.write('\n');
+                }
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    // 各列均为数字、枚举或时间，不含逗号和引号，无需转义
+    private static void writeCsv(Writer writer, Transaction transaction) throws IOException {
+        writer.write(String.valueOf(transaction.getTransactionId()));
+        writer.write(',');
+        writer.write(transaction.getTransactionType().name());
+        writer.write(',');
+        writer.write(String.valueOf(transaction.getInAccount()));
+        writer.write(',');
+        writer.write(String.valueOf(transaction.getOutAccount()));
+        writer.write(',');
+        writer.write(transaction.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(transaction.getCreatedAt().toString());
+        writer.write('\n');
+    }
+
+    // 归并两个按 (createdAt, transactionId) 正序排列的结果
+    private static class OldestFirst implements Iterator<Transaction> {
+        private static final Comparator<Transaction> ORDER = Comparator
+                .comparing(Transaction::getCreatedAt)
+                .thenComparing(Transaction::getTransactionId);
+
+        private final Iterator<Transaction> left;
+        private final Iterator<Transaction> right;
+        private Transaction nextLeft;
+        private Transaction nextRight;
+
+        OldestFirst(Iterator<Transaction> left, Iterator<Transaction> right) {
+            this.left = left;
+            this.right = right;
+            this.nextLeft = left.hasNext() ? left.next() : null;
+            this.nextRight = right.hasNext() ? right.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLeft != null || nextRight != null;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Transaction next;
+            if (nextRight == null || (nextLeft != null && ORDER.compare(nextLeft, nextRight) <= 0)) {
+                next = nextLeft;
+                nextLeft = left.hasNext() ? left.next() : null;
+            } else {
+                next = nextRight;
+                nextRight = right.hasNext() ? right.next() : null;
+            }
+            return next;
+        }
+    }
+}
@@ -1,102 +1,559 @@
 package com.bank.transaction.service.impl;
 
+import com.bank.transaction.archive.ArchiveHorizon;
+import com.bank.transaction.cache.AccountHistoryCache;
+import com.bank.transaction.config.IngestionProperties;
+import com.bank.transaction.dto.AccountSummary;
+import com.bank.transaction.dto.BatchItemResult;
+import com.bank.transaction.dto.IngestionStatus;
+import com.bank.transaction.dto.SummaryRebuildResult;
+import com.bank.transaction.dto.TransactionCursor;
+import com.bank.transaction.dto.TransactionPage;
 import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.dto.TransactionSearch;
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.ArchivedTransaction;
 import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.ExportFormat;
+import com.bank.transaction.enums.TransactionDirection;
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.bank.transaction.exception.DuplicateRequestException;
+import com.bank.transaction.exception.InvalidTokenException;
+import com.bank.transaction.exception.InvalidTransactionException;
+import com.bank.transaction.exception.PreconditionFailedException;
+import com.bank.transaction.metrics.TransactionMetrics;
+import com.bank.transaction.metrics.TransactionMetrics.ConflictOutcome;
+import com.bank.transaction.metrics.TransactionMetrics.HistoryQuery;
+import com.bank.transaction.outbox.TransactionChangeStream;
+import com.bank.transaction.repository.AccountSummaryRepository;
+import com.bank.transaction.repository.ArchivedTransactionRepository;
 import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.repository.TransactionSearchRepository;
 import com.bank.transaction.service.TransactionService;
+import com.bank.transaction.summary.AccountSummaryRebuilder;
+import com.bank.transaction.token.IdempotencyGuard;
+import com.bank.transaction.token.TokenClaim;
 import com.bank.transaction.util.TokenUtil;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+// 每个公开方法记录耗时（transaction.service，按 method 区分）并创建追踪 span，分位数配置见 application.yml
 @Service
+@Observed(name = "transaction.service")
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionServiceImpl.class);
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String CONFLICT_MODIFY = "modify";
+    private static final String CONFLICT_DELETE = "delete";
+    // 导出未指定时间范围时使用的边界
+    private static final LocalDateTime EXPORT_FROM = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime EXPORT_TO = LocalDateTime.of(9999, 12, 31, 0, 0);
+    // 与索引 (created_at, transaction_id) 方向一致的倒序排序
+    private static final Comparator<TransactionView> NEWEST_FIRST = Comparator
+            .comparing(TransactionView::createdAt)
+            .thenComparing(TransactionView::transactionId)
+            .reversed();
     private final TransactionRepository transactionRepository;
     private final TokenUtil tokenUtil;
+    private final IdempotencyGuard idempotencyGuard;
+    private final AccountHistoryCache accountHistoryCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final IngestionProperties ingestionProperties;
+    private final AsyncTransactionWriter asyncTransactionWriter;
+    private final TransactionMetrics transactionMetrics;
+    private final TransactionExporter transactionExporter;
+    private final AccountSummaryRepository accountSummaryRepository;
+    private final AccountSummaryRebuilder accountSummaryRebuilder;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final ArchiveHorizon archiveHorizon;
+    private final TransactionChangeStream transactionChangeStream;
+    private final ShardedTransactionWriter shardedTransactionWriter;
+    private final TransactionSearchRepository transactionSearchRepository;
 
-    private void validateToken(TransactionRequest request) {
-        String token = request.getToken();
-        // 对token加锁，保证多线程并发情况下，只能有一个线程持有该token，确保接口幂等
-        synchronized (token) {
-            tokenUtil.validateToken(token);
+    // 开启分片写入时由转出账户（存款为转入账户）所在分片的写线程提交，调用线程等待结果、不占用连接
+    @Override
+    public Long createTransaction(TransactionRequest request) {
+        if (shardedTransactionWriter.isRunning()) {
+            return shardedTransactionWriter.create(request);
         }
+        return transactionTemplate.execute(status -> insert(request));
     }
 
-    @Override
-    @Transactional()
-    @CacheEvict(value = {"Transactions"}, allEntries = true)
-    public void createTransaction(TransactionRequest request) {
-        // 校验token信息，防止重复提交或重放攻击
-        validateToken(request);
-        
+    private Long insert(TransactionRequest request) {
+        // 校验并原子占用token，防止重复提交或重放攻击；已处理过的token直接返回原交易ID
+        TokenClaim claim = idempotencyGuard.claim(request.getToken());
+        if (claim.isReplay()) {
+            logger.info("重复提交，返回原交易，ID：{}", claim.getResult());
+            return claim.getResult();
+        }
+
         // 记录交易创建开始
         logger.info("开始创建交易，类型：{}", request.getTransactionType());
 
         // 一次调用只新增一条交易记录，按题目的意思不考虑用户信息；实际业务中存在用户账户信息的变更，可以在这个接口中使用同一个事务处理
+        Transaction transaction = newTransaction(request);
+        transactionRepository.save(transaction);
+        eventPublisher.publishEvent(TransactionChangedEvent.created(transaction));
+        claim.succeed(transaction.getTransactionId());
+
+        // 记录交易创建结束
+        logger.info("创建交易结束，类型：{}", request.getTransactionType());
+        return transaction.getTransactionId();
+    }
+
+    // 批量创建：先逐条校验，再按分片在独立事务中写入，每个分片一次 flush，由 Hibernate 合并为 JDBC 批量插入；
+    // 开启分片写入时每个分片的交易交给各账户所在的分片写线程提交，不在调用线程中直接写入
+    @Override
+    public List<BatchItemResult> createTransactions(List<TransactionRequest> requests) {
+        IngestionProperties.Batch config = ingestionProperties.getBatch();
+        if (requests == null || requests.isEmpty()) {
+            throw new InvalidTransactionException("批量交易不能为空");
+        }
+        if (requests.size() > config.getMaxItems()) {
+            throw new InvalidTransactionException("单次批量交易不能超过" + config.getMaxItems() + "条");
+        }
+        logger.info("开始批量创建交易，数量：{}", requests.size());
+
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<Integer> accepted = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String violation = validate(requests.get(i));
+            if (violation != null) {
+                results[i] = BatchItemResult.rejected(i, violation);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        for (int from = 0; from < accepted.size(); from += config.getChunkSize()) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + config.getChunkSize(), accepted.size()));
+            if (shardedTransactionWriter.isRunning()) {
+                writeChunkOnShards(requests, chunk, results);
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(requests, chunk, results));
+            } catch (RuntimeException e) {
+                // 分片整体回滚，已占用的token随事务回滚释放，客户端可用原token重试
+                logger.error("批量写入交易失败，分片起始下标：{}", chunk.get(0), e);
+                for (int index : chunk) {
+                    results[index] = BatchItemResult.failed(index, "写入失败，请使用原token重试");
+                }
+            }
+        }
+        logger.info("批量创建交易结束，数量：{}", requests.size());
+        return Arrays.asList(results);
+    }
+
+    private void writeChunk(List<TransactionRequest> requests, List<Integer> chunk, BatchItemResult[] results) {
+        List<Integer> indexes = new ArrayList<>(chunk.size());
+        List<TokenClaim> claims = new ArrayList<>(chunk.size());
+        List<Transaction> transactions = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            TransactionRequest request = requests.get(index);
+            TokenClaim claim;
+            try {
+                claim = idempotencyGuard.claim(request.getToken());
+            } catch (InvalidTokenException | DuplicateRequestException e) {
+                results[index] = BatchItemResult.rejected(index, e.getMessage());
+                continue;
+            }
+            if (claim.isReplay()) {
+                results[index] = BatchItemResult.replayed(index, claim.getResult());
+                continue;
+            }
+            indexes.add(index);
+            claims.add(claim);
+            transactions.add(newTransaction(request));
+        }
+
+        transactionRepository.saveAll(transactions);
+        transactionRepository.flush();
+        for (int k = 0; k < transactions.size(); k++) {
+            Transaction transaction = transactions.get(k);
+            claims.get(k).succeed(transaction.getTransactionId());
+            eventPublisher.publishEvent(TransactionChangedEvent.created(transaction));
+            results[indexes.get(k)] = BatchItemResult.created(indexes.get(k), transaction.getTransactionId());
+        }
+        // 已写入的实体不再使用，及时清理持久化上下文，避免大批量时占用内存和脏检查开销
+        entityManager.clear();
+    }
+
+    // 分片写线程与单笔创建一起组提交，每笔的结果互不影响；等待超时的一笔可能稍后仍会写入，用原token重试即可得到结果
+    private void writeChunkOnShards(List<TransactionRequest> requests, List<Integer> chunk, BatchItemResult[] results) {
+        List<CompletableFuture<TokenClaim>> outcomes = shardedTransactionWriter.createAll(chunk.stream().map(requests::get).toList());
+        for (int k = 0; k < chunk.size(); k++) {
+            int index = chunk.get(k);
+            CompletableFuture<TokenClaim> outcome = outcomes.get(k);
+            if (!outcome.isDone()) {
+                results[index] = BatchItemResult.failed(index, "写入超时，请使用原token重试");
+                continue;
+            }
+            try {
+                TokenClaim claim = outcome.join();
+                results[index] = claim.isReplay()
+                        ? BatchItemResult.replayed(index, claim.getResult())
+                        : BatchItemResult.created(index, claim.getResult());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof InvalidTokenException || e.getCause() instanceof DuplicateRequestException) {
+                    results[index] = BatchItemResult.rejected(index, e.getCause().getMessage());
+                } else {
+                    logger.error("分片写入交易失败，下标：{}", index, e.getCause());
+                    results[index] = BatchItemResult.failed(index, "写入失败，请使用原token重试");
+                }
+            }
+        }
+    }
+
+    private String validate(TransactionRequest request) {
+        if (request == null) {
+            return "交易不能为空";
+        }
+        Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    static Transaction newTransaction(TransactionRequest request) {
         Transaction transaction = new Transaction();
         transaction.setInAccount(request.getInAccount());
         transaction.setOutAccount(request.getOutAccount());
         transaction.setAmount(request.getAmount());
         transaction.setDelFlag(false);
         transaction.setTransactionType(request.getTransactionType());
+        return transaction;
+    }
 
-        transactionRepository.save(transaction);
+    @Override
+    public IngestionStatus submitTransaction(TransactionRequest request) {
+        return asyncTransactionWriter.submit(request);
+    }
 
-        // 记录交易创建结束
-        logger.info("创建交易结束，类型：{}", request.getTransactionType());
+    @Override
+    public IngestionStatus getIngestionStatus(String requestId) {
+        IngestionStatus status = asyncTransactionWriter.getStatus(requestId);
+        if (status == null) {
+            throw new EntityNotFoundException("Ingestion request not found");
+        }
+        return status;
     }
 
+    // 热表中没有时再查归档表
     @Override
-    @Transactional()
-    @CacheEvict(value = {"Transactions"}, allEntries = true)
-    public void deleteTransaction(Long transactionId) {
-        logger.info("开始删除交易，ID：{}", transactionId);
-        // 查找并软删除交易,该接口逻辑上幂等，不需要额外进行幂等处理
-        Transaction transaction = transactionRepository.findByTransactionIdAndDelFlagFalse(transactionId)
+    @Transactional(readOnly = true)
+    public Transaction getTransaction(Long transactionId) {
+        return transactionRepository.findByTransactionIdAndDelFlagFalse(transactionId)
+                .or(() -> archivedTransactionRepository.findByTransactionIdAndDelFlagFalse(transactionId)
+                        .map(ArchivedTransaction::toTransaction))
                 .orElseThrow(() -> new EntityNotFoundException("Transaction not found"));
-        transaction.setDelFlag(true);
-        transactionRepository.save(transaction);
-        logger.info("交易已标记为删除，交易ID：{}", transactionId);
     }
 
+    // 按版本号条件更新，不加行锁；并发修改导致的版本冲突在新事务中重新读取后重试
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = {"outgoingTransactions", "incomingTransactions", "allTransactions"}, allEntries = true)
-    public void modifyTransaction(Long transactionId, TransactionRequest request) {
-        // 校验token信息，防止重复提交或重放攻击
-        validateToken(request);
+    public void deleteTransaction(Long transactionId, Long expectedVersion) {
+        Supplier<Long> shardAccount = () -> transactionRepository.findShardAccount(transactionId).orElse(transactionId);
+        withConflictRetry(CONFLICT_DELETE, shardAccount, () -> {
+            logger.info("开始删除交易，ID：{}", transactionId);
+            // 查找并软删除交易,该接口逻辑上幂等，不需要额外进行幂等处理
+            Transaction transaction = findForUpdate(transactionId, expectedVersion, CONFLICT_DELETE);
+            Transaction before = TransactionChangedEvent.snapshot(transaction);
+            transaction.setDelFlag(true);
+            transactionRepository.saveAndFlush(transaction);
+            eventPublisher.publishEvent(TransactionChangedEvent.deleted(before, transaction));
+            logger.info("交易已标记为删除，交易ID：{}", transactionId);
+            return null;
+        });
+    }
 
-        logger.info("开始修改交易，ID：{}", transactionId);
+    @Override
+    public Long modifyTransaction(Long transactionId, TransactionRequest request, Long expectedVersion) {
+        Supplier<Long> shardAccount = () -> ShardedTransactionWriter.shardAccount(request.getOutAccount(), request.getInAccount());
+        return withConflictRetry(CONFLICT_MODIFY, shardAccount, () -> {
+            // 校验并原子占用token，防止重复提交或重放攻击；已处理过的token不再重复修改
+            TokenClaim claim = idempotencyGuard.claim(request.getToken());
+            if (claim.isReplay()) {
+                logger.info("重复提交，交易已修改，ID：{}", transactionId);
+                return transactionRepository.findById(transactionId).map(Transaction::getVersion).orElse(null);
+            }
+
+            logger.info("开始修改交易，ID：{}", transactionId);
+            Transaction transaction = findForUpdate(transactionId, expectedVersion, CONFLICT_MODIFY);
+            Transaction before = TransactionChangedEvent.snapshot(transaction);
+            transaction.setAmount(request.getAmount());
+            transaction.setOutAccount(request.getOutAccount());
+            transaction.setInAccount(request.getInAccount());
+            transaction.setTransactionType(request.getTransactionType());
+            // 立即 flush，版本冲突在发布事件之前暴露
+            transactionRepository.saveAndFlush(transaction);
+            eventPublisher.publishEvent(TransactionChangedEvent.modified(before, transaction));
+            claim.succeed(transactionId);
+            logger.info("修改交易结束，ID：{}", transactionId);
+            return transaction.getVersion();
+        });
+    }
+
+    // 开启分片写入时在账户所在分片执行，与该账户的创建按提交顺序依次生效；修改按新的转出账户，删除按原转出账户，存款均按转入账户
+    private <T> T onShard(Supplier<Long> accountId, Supplier<T> work) {
+        if (!shardedTransactionWriter.isRunning()) {
+            return work.get();
+        }
+        return shardedTransactionWriter.execute(accountId.get(), work);
+    }
+
+    // expectedVersion 为客户端 If-Match 中的版本号，为空时不校验
+    private Transaction findForUpdate(Long transactionId, Long expectedVersion, String operation) {
         Transaction transaction = transactionRepository.findByTransactionIdAndDelFlagFalse(transactionId)
-                .orElseThrow(() -> new EntityNotFoundException("Transaction not found"));
-        transaction.setAmount(request.getAmount());
-        transaction.setOutAccount(request.getOutAccount());
-        transaction.setInAccount(request.getInAccount());
-        transaction.setTransactionType(request.getTransactionType());
-        transactionRepository.save(transaction);
-        logger.info("修改交易结束，ID：{}", transactionId);
+                .orElseThrow(() -> archivedTransactionRepository.existsById(transactionId)
+                        ? new InvalidTransactionException("交易已归档，不能修改或删除")
+                        : new EntityNotFoundException("Transaction not found"));
+        if (expectedVersion != null && !expectedVersion.equals(transaction.getVersion())) {
+            transactionMetrics.conflict(operation, ConflictOutcome.PRECONDITION_FAILED);
+            throw new PreconditionFailedException("交易已被修改，当前版本：" + transaction.getVersion());
+        }
+        return transaction;
+    }
+
+    // 每次尝试在账户所在分片上单独开启事务，退避在调用线程中等待后重新入队，不占用分片写线程
+    private <T> T withConflictRetry(String operation, Supplier<Long> accountId, Supplier<T> work) {
+        IngestionProperties.ConflictRetry retry = ingestionProperties.getConflictRetry();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return onShard(accountId, () -> transactionTemplate.execute(status -> work.get()));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= retry.getMaxAttempts()) {
+                    transactionMetrics.conflict(operation, ConflictOutcome.CONFLICT);
+                    throw e;
+                }
+                transactionMetrics.conflict(operation, ConflictOutcome.RETRIED);
+                long backoff = retry.getBackoff().toNanos();
+                LockSupport.parkNanos(attempt * backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+            }
+        }
+    }
+
+    // 提供分页查询功能，排序和分页在数据库中完成，结果按账户缓存；
+    // 缓存未命中时才在只读事务中查询，命中时不占用数据库连接；加载结果会写入缓存，启用从库时也固定读主库
+    @Override
+    public TransactionPage listTransactions(Long accountId, Integer page, Integer size) {
+        validatePageSize(size);
+        if (page == null || page < 0) {
+            throw new InvalidTransactionException("分页数不能小于0");
+        }
+        return accountHistoryCache.get(accountId, "p:" + page + ":" + size, () -> loadByOffset(accountId, page, size));
+    }
+
+    private TransactionPage loadByOffset(Long accountId, int page, int size) {
+        List<TransactionView> hot = transactionMetrics.rows(HistoryQuery.OFFSET,
+                transactionRepository.findAccountTransactions(accountId, PageRequest.of(page, size)));
+        if (!needsArchive(hot, size)) {
+            return toPage(hot, size);
+        }
+        // 热表和归档表的时间可能交错，各取前 (page + 1) * size 条归并后再跳过前 page 页
+        PageRequest top = PageRequest.ofSize((page + 1) * size);
+        List<TransactionView> archivedTop = transactionMetrics.rows(HistoryQuery.ARCHIVE,
+                archivedTransactionRepository.findAccountTransactions(accountId, top));
+        if (archivedTop.isEmpty()) {
+            return toPage(hot, size);
+        }
+        List<TransactionView> hotTop = transactionRepository.findAccountTransactions(accountId, top);
+        List<TransactionView> merged = transactionMetrics.timeMerge(() -> merge(hotTop, archivedTop, top.getPageSize()));
+        return toPage(merged.subList(Math.min(page * size, merged.size()), merged.size()), size);
+    }
+
+    // 热表结果不足一页，或其中最早的一条已早于归档边界时，归档表中才可能有排在本页的交易
+    private boolean needsArchive(List<TransactionView> hot, int size) {
+        return hot.size() < size || archiveHorizon.reaches(hot.get(hot.size() - 1).createdAt());
+    }
+
+    // 游标分页：转入、转出两个方向各自走索引取前 size 条，再在内存中归并，单页开销只与 size 相关
+    @Override
+    public TransactionPage listTransactionsByCursor(Long accountId, String cursor, Integer size) {
+        validatePageSize(size);
+        return accountHistoryCache.get(accountId, "c:" + cursor + ":" + size, () -> loadByCursor(accountId, cursor, size));
+    }
+
+    private TransactionPage loadByCursor(Long accountId, String cursor, int size) {
+        PageRequest limit = PageRequest.ofSize(size);
+        TransactionCursor position = cursor == null || cursor.isEmpty() ? null : TransactionCursor.decode(cursor);
+        List<TransactionView> incoming;
+        List<TransactionView> outgoing;
+        if (position == null) {
+            incoming = transactionRepository.findIncoming(accountId, limit);
+            outgoing = transactionRepository.findOutgoing(accountId, limit);
+        } else {
+            incoming = transactionRepository.findIncomingBefore(accountId, position.getCreatedAt(), position.getTransactionId(), limit);
+            outgoing = transactionRepository.findOutgoingBefore(accountId, position.getCreatedAt(), position.getTransactionId(), limit);
+        }
+        transactionMetrics.rows(HistoryQuery.INCOMING, incoming);
+        transactionMetrics.rows(HistoryQuery.OUTGOING, outgoing);
+        List<TransactionView> hot = transactionMetrics.timeMerge(() -> merge(incoming, outgoing, size));
+        if (!needsArchive(hot, size)) {
+            return toPage(hot, size);
+        }
+        List<TransactionView> archived = transactionMetrics.rows(HistoryQuery.ARCHIVE, loadArchivedByCursor(accountId, position, limit));
+        return toPage(transactionMetrics.timeMerge(() -> merge(hot, archived, size)), size);
+    }
+
+    // 归档表同样按转入、转出两个方向各取一页后归并
+    private List<TransactionView> loadArchivedByCursor(Long accountId, TransactionCursor position, PageRequest limit) {
+        List<TransactionView> incoming;
+        List<TransactionView> outgoing;
+        if (position == null) {
+            incoming = archivedTransactionRepository.findIncoming(accountId, limit);
+            outgoing = archivedTransactionRepository.findOutgoing(accountId, limit);
+        } else {
+            incoming = archivedTransactionRepository.findIncomingBefore(
+                    accountId, position.getCreatedAt(), position.getTransactionId(), limit);
+            outgoing = archivedTransactionRepository.findOutgoingBefore(
+                    accountId, position.getCreatedAt(), position.getTransactionId(), limit);
+        }
+        return merge(incoming, outgoing, limit.getPageSize());
+    }
+
+    // 搜索不经过缓存：每个方向一条 Criteria 查询，各取 size 条后归并，热表不足一页或到达归档边界时再查归档表
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPage searchTransactions(TransactionSearch search, String cursor, Integer size) {
+        validatePageSize(size);
+        validateSearch(search);
+        TransactionCursor position = cursor == null || cursor.isEmpty() ? null : TransactionCursor.decode(cursor);
+        List<TransactionView> hot = search(Transaction.class, search, position, size);
+        if (!needsArchive(hot, size)) {
+            return toPage(hot, size);
+        }
+        List<TransactionView> archived = search(ArchivedTransaction.class, search, position, size);
+        return toPage(transactionMetrics.timeMerge(() -> merge(hot, archived, size)), size);
+    }
+
+    private List<TransactionView> search(Class<?> table, TransactionSearch search, TransactionCursor position, int size) {
+        TransactionDirection direction = search.getDirection();
+        if (direction != TransactionDirection.BOTH) {
+            return transactionMetrics.rows(HistoryQuery.SEARCH,
+                    transactionSearchRepository.search(table, direction, search, position, size));
+        }
+        List<TransactionView> incoming = transactionMetrics.rows(HistoryQuery.SEARCH,
+                transactionSearchRepository.search(table, TransactionDirection.IN, search, position, size));
+        List<TransactionView> outgoing = transactionMetrics.rows(HistoryQuery.SEARCH,
+                transactionSearchRepository.search(table, TransactionDirection.OUT, search, position, size));
+        return transactionMetrics.timeMerge(() -> merge(incoming, outgoing, size));
+    }
+
+    private void validateSearch(TransactionSearch search) {
+        if (search.getAccountId() == null) {
+            throw new InvalidTransactionException("账户ID不能为空");
+        }
+        if (search.getDirection() == null) {
+            search.setDirection(TransactionDirection.BOTH);
+        }
+        if (search.getMinAmount() != null && search.getMaxAmount() != null
+                && search.getMinAmount().compareTo(search.getMaxAmount()) > 0) {
+            throw new InvalidTransactionException("最小金额不能大于最大金额");
+        }
+        if (search.getFrom() != null && search.getTo() != null && !search.getFrom().isBefore(search.getTo())) {
+            throw new InvalidTransactionException("开始时间必须早于结束时间");
+        }
+    }
+
+    private void validatePageSize(Integer size) {
+        if (size == null || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidTransactionException("分页大小必须在1到" + MAX_PAGE_SIZE + "之间");
+        }
+    }
+
+    // 归并两个已按 NEWEST_FIRST 排好序的结果，转入转出账户相同的交易会同时出现在两边，需要去重
+    private List<TransactionView> merge(List<TransactionView> incoming, List<TransactionView> outgoing, int size) {
+        List<TransactionView> merged = new ArrayList<>(Math.min(size, incoming.size() + outgoing.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < size && (i < incoming.size() || j < outgoing.size())) {
+            TransactionView next;
+            if (j >= outgoing.size()) {
+                next = incoming.get(i++);
+            } else if (i >= incoming.size()) {
+                next = outgoing.get(j++);
+            } else {
+                int order = NEWEST_FIRST.compare(incoming.get(i), outgoing.get(j));
+                if (order == 0) {
+                    j++;
+                }
+                next = order <= 0 ? incoming.get(i++) : outgoing.get(j++);
+            }
+            merged.add(next);
+        }
+        return merged;
+    }
+
+    // 取满一页时，以最后一条记录作为下一页游标
+    private TransactionPage toPage(List<TransactionView> content, int size) {
+        String nextCursor = content.size() == size
+                ? TransactionCursor.of(content.get(content.size() - 1)).encode()
+                : null;
+        return new TransactionPage(content, nextCursor);
+    }
+
+    // 导出不经过缓存，在只读事务中逐行读取、逐行写出
+    @Override
+    @Transactional(readOnly = true)
+    public long exportTransactions(Long accountId, LocalDateTime from, LocalDateTime to, ExportFormat format, OutputStream out) throws IOException {
+        logger.info("开始导出交易，账户：{}，格式：{}", accountId, format);
+        long count = transactionExporter.export(accountId,
+                from != null ? from : EXPORT_FROM, to != null ? to : EXPORT_TO, format, out);
+        logger.info("导出交易结束，账户：{}，条数：{}", accountId, count);
+        return count;
+    }
+
+    @Override
+    public SseEmitter streamTransactionChanges(Long since) {
+        return transactionChangeStream.subscribe(since);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AccountSummary getAccountSummary(Long accountId) {
+        return AccountSummary.of(accountId, accountSummaryRepository.findByAccountId(accountId));
     }
 
-    // 提供分页查询功能
     @Override
-    @Cacheable(value = "Transactions", key = "#page + '-' + #size")
-    public List<Transaction> listTransactions(Long accountId, Integer page, Integer size) {
-        return new ArrayList<>(transactionRepository.findByInAccountOrOutAccountAndDelFlagFalse(accountId, accountId)).stream()
-                .sorted(Comparator.comparing(Transaction::getCreatedAt).reversed())
-                .skip((long) page * size)
-                .limit(size)
-                .toList();
+    public SummaryRebuildResult rebuildAccountSummaries() {
+        logger.info("开始重建账户汇总");
+        return accountSummaryRebuilder.rebuild();
     }
 
     @Override
@@ -0,0 +1,140 @@
+package com.bank.transaction.summary;
+
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.event.TransactionChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 维护账户汇总投影。同一事务内的变更先按 (账户, 交易类型) 累加增量，在事务提交前一次写入，
+ * 与交易本身一起提交或回滚；修改时减去旧值、加上新值，软删除时减去原交易。
+ */
+@Component
+public class AccountSummaryProjection {
+
+    private static final String UPDATE_SQL = "UPDATE account_summaries SET credit_amount = credit_amount + ?, "
+            + "debit_amount = debit_amount + ?, credit_count = credit_count + ?, debit_count = debit_count + ?, updated_at = ? "
+            + "WHERE account_id = ? AND transaction_type = ?";
+    private static final String INSERT_SQL = "INSERT INTO account_summaries (credit_amount, debit_amount, credit_count, "
+            + "debit_count, updated_at, account_id, transaction_type) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // 按账户、类型的固定顺序更新，并发事务加行锁的顺序一致，避免互相转账时死锁
+    private static final Comparator<Key> LOCK_ORDER = Comparator.comparing(Key::accountId).thenComparing(Key::type);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountSummaryProjection(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingDeltas deltas = new PendingDeltas();
+            deltas.add(event);
+            apply(deltas.deltas);
+            return;
+        }
+        PendingDeltas pending = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(event);
+    }
+
+    private void apply(Map<Key, Delta> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                rows.add(delta.toRow(key));
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        for (Object[] row : missing) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, row);
+            } catch (DuplicateKeyException e) {
+                // 并发事务先插入了同一行，改为在其基础上累加
+                jdbcTemplate.update(UPDATE_SQL, row);
+            }
+        }
+    }
+
+    private record Key(Long accountId, TransactionType type) {
+    }
+
+    private static class Delta {
+        private BigDecimal creditAmount = BigDecimal.ZERO;
+        private BigDecimal debitAmount = BigDecimal.ZERO;
+        private long creditCount;
+        private long debitCount;
+
+        boolean isZero() {
+            return creditCount == 0 && debitCount == 0
+                    && creditAmount.signum() == 0 && debitAmount.signum() == 0;
+        }
+
+        Object[] toRow(Key key) {
+            return new Object[]{creditAmount, debitAmount, creditCount, debitCount,
+                    Timestamp.valueOf(LocalDateTime.now()), key.accountId(), key.type().name()};
+        }
+    }
+
+    // 当前事务内累计的增量，提交前写入
+    private class PendingDeltas implements TransactionSynchronization {
+        private final Map<Key, Delta> deltas = new TreeMap<>(LOCK_ORDER);
+
+        void add(TransactionChangedEvent event) {
+            add(event.getBefore(), -1);
+            add(event.getAfter(), 1);
+        }
+
+        // 事件发生时立即读取金额，同一事务内实体后续被修改也不影响本次增量
+        private void add(Transaction transaction, int sign) {
+            if (transaction == null || Boolean.TRUE.equals(transaction.getDelFlag())) {
+                return;
+            }
+            BigDecimal amount = sign > 0 ? transaction.getAmount() : transaction.getAmount().negate();
+            Delta credit = deltas.computeIfAbsent(new Key(transaction.getInAccount(), transaction.getTransactionType()), k -> new Delta());
+            credit.creditAmount = credit.creditAmount.add(amount);
+            credit.creditCount += sign;
+            Delta debit = deltas.computeIfAbsent(new Key(transaction.getOutAccount(), transaction.getTransactionType()), k -> new Delta());
+            debit.debitAmount = debit.debitAmount.add(amount);
+            debit.debitCount += sign;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            apply(deltas);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(AccountSummaryProjection.this);
+        }
+    }
+}
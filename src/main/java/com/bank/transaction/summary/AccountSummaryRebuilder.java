@@ -0,0 +1,149 @@
+package com.bank.transaction.summary;
+
+import com.bank.transaction.config.SummaryProperties;
+import com.bank.transaction.dto.SummaryRebuildResult;
+import com.bank.transaction.exception.DuplicateRequestException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 从 transactions 表重建账户汇总投影。按账户ID区间切分为多个分片并行处理，
+ * 每个分片在一个事务内删除区间内的汇总行，再用一条 INSERT ... SELECT 在数据库中聚合写回；
+ * 已归档的未删除交易仍计入余额，与热表一起聚合。
+ */
+@Component
+public class AccountSummaryRebuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountSummaryRebuilder.class);
+
+    private static final String DELETE_SQL = "DELETE FROM account_summaries WHERE account_id >= ? AND account_id < ?";
+    // 热表和归档表的转入、转出两个方向分别走 (in_account, ...)、(out_account, ...) 索引做范围扫描
+    private static final String REBUILD_SQL = "INSERT INTO account_summaries (account_id, transaction_type, credit_amount, "
+            + "debit_amount, credit_count, debit_count, updated_at) "
+            + "SELECT account_id, transaction_type, SUM(credit_amount), SUM(debit_amount), SUM(credit_count), SUM(debit_count), ? "
+            + "FROM (" + credits("transactions") + " UNION ALL " + debits("transactions")
+            + " UNION ALL " + credits("transactions_archive") + " UNION ALL " + debits("transactions_archive") + ") t "
+            + "GROUP BY account_id, transaction_type";
+    private static final List<String> NEXT_ACCOUNT_SQLS = List.of(
+            "SELECT MIN(in_account) FROM transactions WHERE in_account >= ?",
+            "SELECT MIN(out_account) FROM transactions WHERE out_account >= ?",
+            "SELECT MIN(in_account) FROM transactions_archive WHERE in_account >= ?",
+            "SELECT MIN(out_account) FROM transactions_archive WHERE out_account >= ?",
+            "SELECT MIN(account_id) FROM account_summaries WHERE account_id >= ?");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SummaryProperties properties;
+    private final Timer rebuildTimer;
+    private final ReentrantLock running = new ReentrantLock();
+
+    public AccountSummaryRebuilder(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   SummaryProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.rebuildTimer = Timer.builder("transaction.summary.rebuild")
+                .description("账户汇总投影重建耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 重建全部账户的汇总，同一时间只允许一个重建任务
+     */
+    public SummaryRebuildResult rebuild() {
+        if (!running.tryLock()) {
+            throw new DuplicateRequestException("汇总重建正在执行中");
+        }
+        try {
+            return rebuildTimer.record(this::rebuildChunks);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private SummaryRebuildResult rebuildChunks() {
+        SummaryProperties.Rebuild config = properties.getRebuild();
+        long start = System.currentTimeMillis();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(config.getParallelism(),
+                r -> Thread.ofPlatform().name("summary-rebuild-" + threadIndex.incrementAndGet()).daemon().unstarted(r));
+        try {
+            // 只对存在交易或汇总行的账户区间切分分片，账户ID稀疏时跳过空区间
+            List<Future<Integer>> chunks = new ArrayList<>();
+            Long from = nextAccount(Long.MIN_VALUE);
+            while (from != null) {
+                long lower = from;
+                long upper = lower > Long.MAX_VALUE - config.getChunkAccounts() ? Long.MAX_VALUE : lower + config.getChunkAccounts();
+                chunks.add(executor.submit(() -> rebuildChunk(lower, upper)));
+                from = upper < Long.MAX_VALUE ? nextAccount(upper) : null;
+            }
+            long rows = 0;
+            for (Future<Integer> chunk : chunks) {
+                rows += chunk.get();
+            }
+            SummaryRebuildResult result = new SummaryRebuildResult(chunks.size(), rows, System.currentTimeMillis() - start);
+            logger.info("账户汇总重建完成，分片：{}，汇总行：{}，耗时：{}ms", result.getChunks(), result.getRows(), result.getElapsedMillis());
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("汇总重建被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int rebuildChunk(long lower, long upper) {
+        Integer rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(DELETE_SQL, lower, upper);
+            return jdbcTemplate.update(REBUILD_SQL, Timestamp.valueOf(LocalDateTime.now()),
+                    lower, upper, lower, upper, lower, upper, lower, upper);
+        });
+        logger.debug("账户汇总分片重建完成，账户区间：[{}, {})，汇总行：{}", lower, upper, rows);
+        return rows == null ? 0 : rows;
+    }
+
+    // 热表、归档表的转入转出两个方向及已有汇总中大于等于 from 的最小账户ID，没有时返回 null；
+    // 包含汇总表是为了清理已经没有交易记录的账户残留的汇总行
+    private Long nextAccount(long from) {
+        Long next = null;
+        for (String sql : NEXT_ACCOUNT_SQLS) {
+            Long account = jdbcTemplate.queryForObject(sql, Long.class, from);
+            if (account != null && (next == null || account < next)) {
+                next = account;
+            }
+        }
+        return next;
+    }
+
+    private static String credits(String table) {
+        return "SELECT in_account AS account_id, transaction_type, amount AS credit_amount, "
+                + "CAST(0 AS DECIMAL(19, 2)) AS debit_amount, 1 AS credit_count, 0 AS debit_count "
+                + "FROM " + table + " WHERE in_account >= ? AND in_account < ? AND del_flag = false";
+    }
+
+    private static String debits(String table) {
+        return "SELECT out_account, transaction_type, CAST(0 AS DECIMAL(19, 2)), amount, 0, 1 "
+                + "FROM " + table + " WHERE out_account >= ? AND out_account < ? AND del_flag = false";
+    }
+}
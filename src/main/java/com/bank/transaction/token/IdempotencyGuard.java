@@ -0,0 +1,60 @@
+package com.bank.transaction.token;
+
+import com.bank.transaction.util.TokenUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 接口幂等保护：在数据库事务内占用token，事务提交后记录处理结果，回滚后释放token。
+ * 同一token的并发请求由token存储的原子占用保证只有一个能进入处理，不需要额外加锁。
+ * token存储加入数据库事务时（JDBC 存储），占用随业务事务提交，处理结果也在提交前写入同一事务，
+ * 不会出现业务已提交而token停留在占用状态、重复请求既不能重放也不能重试的情况。
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyGuard {
+
+    private final TokenUtil tokenUtil;
+
+    public TokenClaim claim(String token) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("幂等校验必须在数据库事务内调用");
+        }
+        TokenClaim claim = tokenUtil.claimToken(token);
+        if (!claim.isReplay()) {
+            boolean inTransaction = tokenUtil.joinsTransaction();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (inTransaction) {
+                        finish(claim);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (inTransaction) {
+                        // 回滚时占用随事务一起撤销，不需要再释放
+                        return;
+                    }
+                    if (status == STATUS_COMMITTED) {
+                        finish(claim);
+                    } else {
+                        tokenUtil.releaseToken(claim);
+                    }
+                }
+            });
+        }
+        return claim;
+    }
+
+    private void finish(TokenClaim claim) {
+        if (claim.getResult() != null) {
+            tokenUtil.completeToken(claim);
+        } else {
+            tokenUtil.releaseToken(claim);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.bank.transaction.token;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单机内存token存储。
+ * token按过期时间落入固定数量的时间桶（环形复用），桶内再分段加锁；
+ * 每个分段是一张开放寻址哈希表，token直接以两个long存放在数组中，不为每个token分配对象。
+ * 整桶过期后由后台清理一次性释放，查找时从最新的桶往前，刚发放的token通常第一次就能命中。
+ * 占用、完成、释放都在token所在分段的锁内完成，分段锁即按token划分的条带锁，不同token之间基本没有竞争。
+ */
+public class InMemoryTokenStore implements TokenStore {
+
+    private static final int EMPTY = 0;
+    private static final int REMOVED = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final byte ISSUED = 0;
+    private static final byte CLAIMED = 1;
+    private static final byte COMPLETED = 2;
+
+    private final long bucketSeconds;
+    private final long validitySeconds;
+    private final Stripe[][] buckets;
+    private final int stripeMask;
+    private final int maxStripeCapacity;
+
+    private final LongAdder live = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public InMemoryTokenStore(long validitySeconds, long bucketSeconds, int maxTokens, int stripes) {
+        if (validitySeconds <= 0 || bucketSeconds <= 0 || maxTokens <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("token存储参数必须大于0");
+        }
+        this.validitySeconds = validitySeconds;
+        this.bucketSeconds = bucketSeconds;
+        // 有效期内同时存活的桶数，再多留一个桶给尚未清理的过期token
+        int activeBuckets = (int) ((validitySeconds + bucketSeconds - 1) / bucketSeconds) + 1;
+        int stripeCount = tableSizeFor(stripes);
+        this.stripeMask = stripeCount - 1;
+        // 每个分段最多容纳的token数，哈希表容量取其两倍（负载因子 0.5）
+        int perStripe = Math.max(INITIAL_CAPACITY / 2, maxTokens / (activeBuckets * stripeCount));
+        this.maxStripeCapacity = tableSizeFor(perStripe * 2);
+        this.buckets = new Stripe[activeBuckets + 1][stripeCount];
+        for (Stripe[] bucket : buckets) {
+            for (int i = 0; i < stripeCount; i++) {
+                bucket[i] = new Stripe();
+            }
+        }
+    }
+
+    @Override
+    public boolean issue(long high, long low, long now) {
+        long expiresAt = now + validitySeconds;
+        long epoch = epochOf(expiresAt);
+        int hash = hash(high, low);
+        return stripe(epoch, hash).insert(epoch, high, low, hash, offsetOf(expiresAt, epoch), ISSUED, 0);
+    }
+
+    @Override
+    public ClaimResult claim(long high, long low, long now) {
+        int hash = hash(high, low);
+        for (long epoch = newestEpoch(now), oldest = oldestEpoch(now); epoch >= oldest; epoch--) {
+            ClaimResult result = stripe(epoch, hash).claim(epoch, high, low, hash, now);
+            if (result != null) {
+                return result;
+            }
+        }
+        return ClaimResult.UNKNOWN;
+    }
+
+    @Override
+    public void complete(long high, long low, long result, long now) {
+        int hash = hash(high, low);
+        long expiresAt = now + validitySeconds;
+        long target = epochOf(expiresAt);
+        for (long epoch = newestEpoch(now), oldest = oldestEpoch(now); epoch >= oldest; epoch--) {
+            Stripe stripe = stripe(epoch, hash);
+            if (epoch == target) {
+                if (stripe.complete(epoch, high, low, hash, result, offsetOf(expiresAt, epoch))) {
+                    return;
+                }
+                continue;
+            }
+            if (!stripe.contains(epoch, high, low, hash, CLAIMED)) {
+                continue;
+            }
+            // 先写入新的时间桶再删除旧记录，中间时刻的重复请求也能查到（从新到旧查找）
+            if (stripe(target, hash).insert(target, high, low, hash, offsetOf(expiresAt, target), COMPLETED, result)) {
+                stripe.remove(epoch, high, low, hash);
+            } else {
+                // 新时间桶已满，退化为在原处保存结果，保留到原过期时间
+                stripe.complete(epoch, high, low, hash, result, -1);
+            }
+            return;
+        }
+    }
+
+    @Override
+    public void release(long high, long low, long now) {
+        int hash = hash(high, low);
+        for (long epoch = newestEpoch(now), oldest = oldestEpoch(now); epoch >= oldest; epoch--) {
+            if (stripe(epoch, hash).release(epoch, high, low, hash)) {
+                return;
+            }
+        }
+    }
+
+    // 新token落入过期时间所在的时间桶，该桶已满时要等到新token的过期时间进入下一个桶
+    @Override
+    public long retryAfterSeconds(long now) {
+        return bucketSeconds - Math.floorMod(now + validitySeconds, bucketSeconds);
+    }
+
+    @Override
+    public void sweep(long now) {
+        long current = Math.floorDiv(now, bucketSeconds);
+        for (Stripe[] bucket : buckets) {
+            for (Stripe stripe : bucket) {
+                stripe.expireBefore(current);
+            }
+        }
+    }
+
+    @Override
+    public long liveTokens() {
+        return live.sum();
+    }
+
+    @Override
+    public long expiredTokens() {
+        return expired.sum();
+    }
+
+    private long epochOf(long expiresAt) {
+        return Math.floorDiv(expiresAt, bucketSeconds);
+    }
+
+    // 过期时间相对所在时间桶起点的偏移，加1以区分空槽
+    private int offsetOf(long expiresAt, long epoch) {
+        return (int) (expiresAt - epoch * bucketSeconds) + 1;
+    }
+
+    private long newestEpoch(long now) {
+        return epochOf(now + validitySeconds);
+    }
+
+    // 最旧查到上一个时间桶，用于识别已过期但尚未清理的token
+    private long oldestEpoch(long now) {
+        return Math.max(newestEpoch(now) - buckets.length + 1, Math.floorDiv(now, bucketSeconds) - 1);
+    }
+
+    private Stripe stripe(long epoch, int hash) {
+        return buckets[(int) Math.floorMod(epoch, (long) buckets.length)][(hash >>> 16) & stripeMask];
+    }
+
+    private static int tableSizeFor(int n) {
+        int size = Integer.highestOneBit(n);
+        return size < n ? size << 1 : size;
+    }
+
+    private static int hash(long high, long low) {
+        long x = high ^ low;
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        return (int) x;
+    }
+
+    private static int freeSlot(int[] offsets, int hash) {
+        int mask = offsets.length - 1;
+        int i = hash & mask;
+        while (offsets[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * 时间桶中的一个分段：keys 中第 2i、2i+1 个元素为第 i 个token的高低位，
+     * offsets[i] 为其过期时间相对桶起始时间的偏移（0表示空槽，-1表示已删除），
+     * states[i] 为token状态，results[i] 为已完成token的处理结果
+     */
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long epoch = Long.MIN_VALUE;
+        private long[] keys = new long[INITIAL_CAPACITY * 2];
+        private int[] offsets = new int[INITIAL_CAPACITY];
+        private byte[] states = new byte[INITIAL_CAPACITY];
+        private long[] results = new long[INITIAL_CAPACITY];
+        private int size;
+        private int removed;
+
+        boolean insert(long epoch, long high, long low, int hash, int offset, byte state, long result) {
+            lock.lock();
+            try {
+                if (this.epoch != epoch) {
+                    if (this.epoch > epoch) {
+                        // 调用方时钟回拨，桶已被更新的时间段占用
+                        return false;
+                    }
+                    reset(epoch);
+                }
+                if (!ensureCapacity()) {
+                    return false;
+                }
+                int i = freeSlot(offsets, hash);
+                keys[i << 1] = high;
+                keys[(i << 1) + 1] = low;
+                offsets[i] = offset;
+                states[i] = state;
+                results[i] = result;
+                size++;
+                live.increment();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // 返回 null 表示token不在本分段
+        ClaimResult claim(long epoch, long high, long low, int hash, long now) {
+            lock.lock();
+            try {
+                int i = find(epoch, high, low, hash);
+                if (i < 0) {
+                    return null;
+                }
+                if (now > epoch * bucketSeconds + offsets[i] - 1) {
+                    delete(i);
+                    expired.increment();
+                    return ClaimResult.EXPIRED;
+                }
+                switch (states[i]) {
+                    case ISSUED -> {
+                        states[i] = CLAIMED;
+                        return ClaimResult.CLAIMED;
+                    }
+                    case CLAIMED -> {
+                        return ClaimResult.IN_PROGRESS;
+                    }
+                    default -> {
+                        return ClaimResult.completed(results[i]);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // offset 小于0时保留原过期时间
+        boolean complete(long epoch, long high, long low, int hash, long result, int offset) {
+            lock.lock();
+            try {
+                int i = find(epoch, high, low, hash);
+                if (i < 0 || states[i] != CLAIMED) {
+                    return false;
+                }
+                states[i] = COMPLETED;
+                results[i] = result;
+                if (offset > 0) {
+                    offsets[i] = offset;
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean release(long epoch, long high, long low, int hash) {
+            lock.lock();
+            try {
+                int i = find(epoch, high, low, hash);
+                if (i < 0 || states[i] != CLAIMED) {
+                    return false;
+                }
+                states[i] = ISSUED;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean contains(long epoch, long high, long low, int hash, byte state) {
+            lock.lock();
+            try {
+                int i = find(epoch, high, low, hash);
+                return i >= 0 && states[i] == state;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(long epoch, long high, long low, int hash) {
+            lock.lock();
+            try {
+                int i = find(epoch, high, low, hash);
+                if (i >= 0) {
+                    delete(i);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void expireBefore(long current) {
+            lock.lock();
+            try {
+                if (epoch < current && (size > 0 || removed > 0)) {
+                    reset(epoch);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // 以下方法需持有锁
+        private int find(long epoch, long high, long low, int hash) {
+            if (this.epoch != epoch || size == 0) {
+                return -1;
+            }
+            int mask = offsets.length - 1;
+            int i = hash & mask;
+            int offset;
+            while ((offset = offsets[i]) != EMPTY) {
+                if (offset != REMOVED && keys[i << 1] == high && keys[(i << 1) + 1] == low) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void delete(int i) {
+            offsets[i] = REMOVED;
+            size--;
+            removed++;
+            live.decrement();
+        }
+
+        // 整段清空，剩余token计为过期；扩容过的分段缩回初始大小，释放突发流量占用的内存
+        private void reset(long newEpoch) {
+            if (size > 0) {
+                expired.add(size);
+                live.add(-size);
+            }
+            if (offsets.length > INITIAL_CAPACITY) {
+                keys = new long[INITIAL_CAPACITY * 2];
+                offsets = new int[INITIAL_CAPACITY];
+                states = new byte[INITIAL_CAPACITY];
+                results = new long[INITIAL_CAPACITY];
+            } else {
+                Arrays.fill(offsets, EMPTY);
+            }
+            size = 0;
+            removed = 0;
+            epoch = newEpoch;
+        }
+
+        // 保持负载因子不超过 0.5；已删除槽位较多时原地重建，否则翻倍扩容
+        private boolean ensureCapacity() {
+            int capacity = offsets.length;
+            if ((size + removed + 1) * 2 <= capacity) {
+                return true;
+            }
+            int newCapacity = (size + 1) * 4 <= capacity ? capacity : capacity << 1;
+            if (newCapacity > maxStripeCapacity) {
+                if ((size + 1) * 2 > capacity) {
+                    return false;
+                }
+                newCapacity = capacity;
+            }
+            rehash(newCapacity);
+            return true;
+        }
+
+        private void rehash(int newCapacity) {
+            long[] oldKeys = keys;
+            int[] oldOffsets = offsets;
+            byte[] oldStates = states;
+            long[] oldResults = results;
+            keys = new long[newCapacity * 2];
+            offsets = new int[newCapacity];
+            states = new byte[newCapacity];
+            results = new long[newCapacity];
+            for (int j = 0; j < oldOffsets.length; j++) {
+                if (oldOffsets[j] == EMPTY || oldOffsets[j] == REMOVED) {
+                    continue;
+                }
+                long high = oldKeys[j << 1];
+                long low = oldKeys[(j << 1) + 1];
+                int i = freeSlot(offsets, hash(high, low));
+                keys[i << 1] = high;
+                keys[(i << 1) + 1] = low;
+                offsets[i] = oldOffsets[j];
+                states[i] = oldStates[j];
+                results[i] = oldResults[j];
+            }
+            removed = 0;
+        }
+    }
+}
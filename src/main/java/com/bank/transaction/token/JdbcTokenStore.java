@@ -0,0 +1,104 @@
+package com.bank.transaction.token;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于数据库的token存储，多个实例共享同一张 idempotency_tokens 表（见 V3、V4 迁移脚本）。
+ * 占用依赖带状态条件的单条 UPDATE 的原子性，同一个token只有一个实例能占用成功。
+ */
+public class JdbcTokenStore implements TokenStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long validitySeconds;
+    private final LongAdder expired = new LongAdder();
+
+    public JdbcTokenStore(JdbcTemplate jdbcTemplate, long validitySeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.validitySeconds = validitySeconds;
+    }
+
+    @Override
+    public boolean issue(long high, long low, long now) {
+        try {
+            jdbcTemplate.update("INSERT INTO idempotency_tokens (token_high, token_low, expires_at, state) VALUES (?, ?, ?, 'ISSUED')",
+                    high, low, now + validitySeconds);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public ClaimResult claim(long high, long low, long now) {
+        int claimed = jdbcTemplate.update(
+                "UPDATE idempotency_tokens SET state = 'CLAIMED' " +
+                        "WHERE token_high = ? AND token_low = ? AND state = 'ISSUED' AND expires_at >= ?",
+                high, low, now);
+        if (claimed == 1) {
+            return ClaimResult.CLAIMED;
+        }
+        // 占用失败时查询当前状态，区分处理中、已完成、已过期和不存在
+        List<ClaimResult> rows = jdbcTemplate.query(
+                "SELECT state, result_id, expires_at FROM idempotency_tokens WHERE token_high = ? AND token_low = ?",
+                (rs, rowNum) -> {
+                    if (rs.getLong("expires_at") < now) {
+                        return ClaimResult.EXPIRED;
+                    }
+                    return switch (rs.getString("state")) {
+                        case "CLAIMED" -> ClaimResult.IN_PROGRESS;
+                        case "COMPLETED" -> ClaimResult.completed(rs.getLong("result_id"));
+                        default -> ClaimResult.EXPIRED;
+                    };
+                },
+                high, low);
+        if (rows.isEmpty()) {
+            return ClaimResult.UNKNOWN;
+        }
+        if (rows.get(0) == ClaimResult.EXPIRED) {
+            expired.add(jdbcTemplate.update(
+                    "DELETE FROM idempotency_tokens WHERE token_high = ? AND token_low = ? AND expires_at < ?", high, low, now));
+        }
+        return rows.get(0);
+    }
+
+    @Override
+    public void complete(long high, long low, long result, long now) {
+        jdbcTemplate.update(
+                "UPDATE idempotency_tokens SET state = 'COMPLETED', result_id = ?, expires_at = ? " +
+                        "WHERE token_high = ? AND token_low = ? AND state = 'CLAIMED'",
+                result, now + validitySeconds, high, low);
+    }
+
+    @Override
+    public void release(long high, long low, long now) {
+        jdbcTemplate.update(
+                "UPDATE idempotency_tokens SET state = 'ISSUED' WHERE token_high = ? AND token_low = ? AND state = 'CLAIMED'",
+                high, low);
+    }
+
+    // 通过 JdbcTemplate 访问与业务相同的数据源，事务内的写入使用事务的连接
+    @Override
+    public boolean joinsTransaction() {
+        return true;
+    }
+
+    @Override
+    public void sweep(long now) {
+        expired.add(jdbcTemplate.update("DELETE FROM idempotency_tokens WHERE expires_at < ?", now));
+    }
+
+    @Override
+    public long liveTokens() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_tokens", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long expiredTokens() {
+        return expired.sum();
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.transaction.token;
+
+import lombok.Getter;
+
+/**
+ * 一次token占用。replay 为 true 表示该token对应的请求已经处理完成，result 为原处理结果；
+ * 否则由占用方在处理成功后通过 succeed 写入结果。
+ */
+@Getter
+public class TokenClaim {
+    private final long high;
+    private final long low;
+    private final boolean replay;
+    private volatile Long result;
+
+    public TokenClaim(long high, long low, boolean replay, Long result) {
+        this.high = high;
+        this.low = low;
+        this.replay = replay;
+        this.result = result;
+    }
+
+    public void succeed(Long result) {
+        this.result = result;
+    }
+}
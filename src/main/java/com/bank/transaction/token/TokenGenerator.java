@@ -0,0 +1,161 @@
+package com.bank.transaction.token;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * token 生成与解析：128 位随机数，以不带填充的 base64url 编码为 22 个字符。
+ * 随机数来自多个相互独立的 DRBG 实例，线程按线程ID分散到不同实例，每次取一批随机字节缓存，
+ * 避免像 UUID.randomUUID 那样所有线程竞争同一个 SecureRandom。解析时仍接受此前发放的 UUID 格式。
+ */
+public class TokenGenerator {
+
+    public static final int TOKEN_LENGTH = 22;
+    private static final int UUID_LENGTH = 36;
+    // 每个分片一次取 32 个 token 的随机字节
+    private static final int BUFFER_BYTES = 32 * 16;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    public record Token(long high, long low) {
+
+        public String encode() {
+            return TokenGenerator.encode(high, low);
+        }
+    }
+
+    private final Stripe[] stripes;
+
+    public TokenGenerator() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // 分片数向上取整为 2 的幂
+    public TokenGenerator(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe(newRandom());
+        }
+    }
+
+    public Token next() {
+        long mixed = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (mixed >>> 32) & (stripes.length - 1)].next();
+    }
+
+    public static String encode(long high, long low) {
+        byte[] chars = new byte[TOKEN_LENGTH];
+        // 前 21 个字符各取 6 位，共 126 位；最后一个字符取剩余 2 位，低 4 位补 0
+        for (int i = 0; i < TOKEN_LENGTH - 1; i++) {
+            int offset = i * 6;
+            int bits;
+            if (offset + 6 <= 64) {
+                bits = (int) (high >>> (58 - offset));
+            } else if (offset >= 64) {
+                bits = (int) (low >>> (122 - offset));
+            } else {
+                bits = (int) ((high << (offset - 58)) | (low >>> (122 - offset)));
+            }
+            chars[i] = ALPHABET[bits & 63];
+        }
+        chars[TOKEN_LENGTH - 1] = ALPHABET[(int) (low << 4) & 63];
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 解析 22 个字符的 token 或 UUID 格式的 token，格式不合法时返回 null
+     */
+    public static Token decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        if (token.length() == UUID_LENGTH) {
+            try {
+                UUID uuid = UUID.fromString(token);
+                return new Token(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        if (token.length() != TOKEN_LENGTH) {
+            return null;
+        }
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < TOKEN_LENGTH - 1; i++) {
+            int bits = bits(token.charAt(i));
+            if (bits < 0) {
+                return null;
+            }
+            high = (high << 6) | (low >>> 58);
+            low = (low << 6) | bits;
+        }
+        // 最后一个字符的低 4 位必须为 0，保证每个 token 只有一种写法
+        int last = bits(token.charAt(TOKEN_LENGTH - 1));
+        if (last < 0 || (last & 15) != 0) {
+            return null;
+        }
+        high = (high << 2) | (low >>> 62);
+        low = (low << 2) | (last >>> 4);
+        return new Token(high, low);
+    }
+
+    private static int bits(char c) {
+        return c < DECODE.length ? DECODE[c] : -1;
+    }
+
+    // 优先使用各实例状态独立的 DRBG；默认的 NativePRNG 所有实例共用同一个 /dev/urandom 读取锁
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    // 与 InMemoryTokenStore 的分段一样使用 ReentrantLock，虚拟线程等锁时不会固定载体线程
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final SecureRandom random;
+        private final byte[] buffer = new byte[BUFFER_BYTES];
+        private int position = BUFFER_BYTES;
+
+        Stripe(SecureRandom random) {
+            this.random = random;
+        }
+
+        Token next() {
+            lock.lock();
+            try {
+                if (position == BUFFER_BYTES) {
+                    random.nextBytes(buffer);
+                    position = 0;
+                }
+                long high = (long) LONGS.get(buffer, position);
+                long low = (long) LONGS.get(buffer, position + 8);
+                position += 16;
+                return new Token(high, low);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.bank.transaction.token;
+
+/**
+ * 一次性token的存储，token以128位（高64位、低64位）表示，时间均为 epoch 秒，
+ * 有效期由具体实现在创建时指定。
+ * token的生命周期：发放(ISSUED) -> 占用(CLAIMED) -> 完成(COMPLETED，保存处理结果)；处理失败时释放回 ISSUED。
+ */
+public interface TokenStore {
+
+    enum ClaimStatus {
+        CLAIMED,     // 本次调用占用成功，可以开始处理
+        IN_PROGRESS, // 已被其他请求占用，尚未处理完成
+        COMPLETED,   // 已处理完成，result 为原处理结果
+        UNKNOWN,     // 不存在
+        EXPIRED      // 已过期
+    }
+
+    record ClaimResult(ClaimStatus status, long result) {
+        public static final ClaimResult CLAIMED = new ClaimResult(ClaimStatus.CLAIMED, 0);
+        public static final ClaimResult IN_PROGRESS = new ClaimResult(ClaimStatus.IN_PROGRESS, 0);
+        public static final ClaimResult UNKNOWN = new ClaimResult(ClaimStatus.UNKNOWN, 0);
+        public static final ClaimResult EXPIRED = new ClaimResult(ClaimStatus.EXPIRED, 0);
+
+        public static ClaimResult completed(long result) {
+            return new ClaimResult(ClaimStatus.COMPLETED, result);
+        }
+    }
+
+    /**
+     * 登记新发放的token，容量已满时返回 false
+     */
+    boolean issue(long high, long low, long now);
+
+    /**
+     * 原子地占用token，同一个token只有一次调用能返回 CLAIMED
+     */
+    ClaimResult claim(long high, long low, long now);
+
+    /**
+     * 记录已占用token的处理结果，结果从完成时起再保留一个有效期，用于重复请求的结果重放
+     */
+    void complete(long high, long low, long result, long now);
+
+    /**
+     * 处理失败时释放已占用的token，客户端可以用同一个token重试
+     */
+    void release(long high, long low, long now);
+
+    /**
+     * issue 因容量不足失败后，预计多少秒后可以再次发放
+     */
+    default long retryAfterSeconds(long now) {
+        return 1;
+    }
+
+    /**
+     * 写入是否加入调用方当前的数据库事务；为 true 时占用随事务提交或回滚，完成也应在同一事务内记录
+     */
+    default boolean joinsTransaction() {
+        return false;
+    }
+
+    /**
+     * 清理已过期的token
+     */
+    void sweep(long now);
+
+    /**
+     * 当前尚未过期清理的token数量（包括已完成、等待结果重放的token）
+     */
+    long liveTokens();
+
+    /**
+     * 累计过期清理的token数量
+     */
+    long expiredTokens();
+}
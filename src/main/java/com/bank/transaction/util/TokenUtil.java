@@ -1,41 +1,130 @@
 package com.bank.transaction.util;
 
+import com.bank.transaction.exception.DuplicateRequestException;
 import com.bank.transaction.exception.InvalidTokenException;
+import com.bank.transaction.exception.TokenCapacityExceededException;
+import com.bank.transaction.token.TokenClaim;
+import com.bank.transaction.token.TokenGenerator;
+import com.bank.transaction.token.TokenStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Token机制：防止“重复提交操作”或者“重放攻击”
  */
 @Component
 public class TokenUtil {
-    private final Map<String, Long> usedTokens = new ConcurrentHashMap<>();
-    private static final long TOKEN_VALIDITY_SECONDS = 300;//Token过期时间，5分钟
+    private final TokenStore tokenStore;
+    private final TokenGenerator tokenGenerator = new TokenGenerator();
 
-    // 生成一个一次性的Token，有效期是5分钟，用于实现幂等性操作，防止“重复提交操作”或者“重放攻击”
-    public String generateToken() {
-        String token = UUID.randomUUID().toString();
-        usedTokens.put(token, Instant.now().plusSeconds(TOKEN_VALIDITY_SECONDS).getEpochSecond());
-        return token;
+    private final Counter issued;
+    private final Counter claimed;
+    private final Counter rejectedInvalid;
+    private final Counter rejectedUnknown;
+    private final Counter rejectedExpired;
+    private final Counter rejectedCapacity;
+    private final Counter rejectedInProgress;
+    private final Counter replayed;
+    private final Timer claimTimer;
+
+    public TokenUtil(TokenStore tokenStore, MeterRegistry meterRegistry) {
+        this.tokenStore = tokenStore;
+        this.issued = meterRegistry.counter("transaction.tokens.issued");
+        this.rejectedInvalid = meterRegistry.counter("transaction.tokens.rejected", "reason", "invalid");
+        this.rejectedUnknown = meterRegistry.counter("transaction.tokens.rejected", "reason", "unknown");
+        this.rejectedExpired = meterRegistry.counter("transaction.tokens.rejected", "reason", "expired");
+        this.rejectedCapacity = meterRegistry.counter("transaction.tokens.rejected", "reason", "capacity");
+        this.rejectedInProgress = meterRegistry.counter("transaction.tokens.rejected", "reason", "in_progress");
+        this.claimed = meterRegistry.counter("transaction.tokens.claimed");
+        this.replayed = meterRegistry.counter("transaction.tokens.replayed");
+        // token 存储原子占用的耗时，用于判断延迟是否来自 token 竞争
+        this.claimTimer = Timer.builder("transaction.tokens.claim")
+                .description("token原子占用耗时")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("transaction.tokens.live", tokenStore, TokenStore::liveTokens)
+                .description("尚未使用的token数量")
+                .register(meterRegistry);
+        FunctionCounter.builder("transaction.tokens.expired", tokenStore, TokenStore::expiredTokens)
+                .description("过期后被清理的token数量")
+                .register(meterRegistry);
     }
 
-    // 校验Token的合法性
-    public void validateToken(String token) {
-        if (token == null || token.isEmpty()) {
-            throw new InvalidTokenException("无效token");
+    // 生成一个一次性的Token，有效期由token存储配置决定（默认5分钟），用于实现幂等性操作，防止“重复提交操作”或者“重放攻击”
+    public String generateToken() {
+        TokenGenerator.Token token = tokenGenerator.next();
+        long now = System.currentTimeMillis() / 1000;
+        if (!tokenStore.issue(token.high(), token.low(), now)) {
+            rejectedCapacity.increment();
+            throw new TokenCapacityExceededException("当前待使用的token过多，请稍后重试",
+                    Duration.ofSeconds(tokenStore.retryAfterSeconds(now)));
         }
-        // 用一次就删除Token
-        Long expiry = usedTokens.remove(token);
-        if (expiry == null) {
-            throw new InvalidTokenException("无效或已经使用过的token");
+        issued.increment();
+        return token.encode();
+    }
+
+    // 校验Token的合法性并原子地占用，已处理完成的token返回原处理结果用于重放
+    public TokenClaim claimToken(String token) {
+        TokenGenerator.Token parsed = parse(token);
+        long high = parsed.high();
+        long low = parsed.low();
+        long start = System.nanoTime();
+        TokenStore.ClaimResult result = tokenStore.claim(high, low, Instant.now().getEpochSecond());
+        claimTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        switch (result.status()) {
+            case CLAIMED -> {
+                claimed.increment();
+                return new TokenClaim(high, low, false, null);
+            }
+            case COMPLETED -> {
+                replayed.increment();
+                return new TokenClaim(high, low, true, result.result());
+            }
+            case IN_PROGRESS -> {
+                rejectedInProgress.increment();
+                throw new DuplicateRequestException("该token对应的请求正在处理中，请勿重复提交");
+            }
+            case EXPIRED -> {
+                rejectedExpired.increment();
+                throw new InvalidTokenException("当前token已经过期，请重新获取token后提交");
+            }
+            default -> {
+                rejectedUnknown.increment();
+                throw new InvalidTokenException("无效或已经过期的token");
+            }
         }
-        // 判断Token是否在有效期内
-        if (Instant.now().getEpochSecond() > expiry) {
-            throw new InvalidTokenException("token有效期为5分钟，当前token已经过期，请重新提交");
+    }
+
+    // token存储的写入是否随调用方的数据库事务提交
+    public boolean joinsTransaction() {
+        return tokenStore.joinsTransaction();
+    }
+
+    // 处理成功，保存结果供重复请求重放
+    public void completeToken(TokenClaim claim) {
+        tokenStore.complete(claim.getHigh(), claim.getLow(), claim.getResult(), Instant.now().getEpochSecond());
+    }
+
+    // 处理失败，释放token，客户端可以用同一个token重试
+    public void releaseToken(TokenClaim claim) {
+        tokenStore.release(claim.getHigh(), claim.getLow(), Instant.now().getEpochSecond());
+    }
+
+    // 接受 22 个字符的 token，以及升级前发放的 UUID 格式 token
+    private TokenGenerator.Token parse(String token) {
+        TokenGenerator.Token parsed = TokenGenerator.decode(token);
+        if (parsed == null) {
+            rejectedInvalid.increment();
+            throw new InvalidTokenException("无效token");
         }
+        return parsed;
     }
 }
@@ -0,0 +1,28 @@
+-- 多实例共享的交易历史二级缓存（transaction.cache.shared.store=jdbc）
+-- 每个账户一个代数，交易写入后加 1，旧代数下的分页不再被读取
+CREATE TABLE cache_generations (
+    account_id BIGINT PRIMARY KEY,
+    generation BIGINT NOT NULL
+);
+
+CREATE TABLE cache_pages (
+    account_id BIGINT NOT NULL,
+    generation BIGINT NOT NULL,
+    page_key VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (account_id, generation, page_key)
+);
+
+-- 后台按过期时间批量清理
+CREATE INDEX idx_cache_pages_expires_at ON cache_pages (expires_at);
+
+-- 缓存失效消息（transaction.cache.bus.type=jdbc）：写入实例插入一行，其他实例按 id 递增轮询后失效本地缓存
+CREATE TABLE cache_invalidations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    origin VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_cache_invalidations_created_at ON cache_invalidations (created_at);
@@ -0,0 +1,4 @@
+-- 交易ID改为在应用内生成的 53 位时间有序ID（见 SnowflakeIdGenerator），超出 INT 范围，相关列改为 BIGINT。
+ALTER TABLE Transactions MODIFY transaction_id BIGINT NOT NULL;
+
+ALTER TABLE TransactionLogs MODIFY transaction_id BIGINT NOT NULL;
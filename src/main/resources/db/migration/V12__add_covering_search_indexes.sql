@@ -0,0 +1,12 @@
+-- 账户交易历史与多条件搜索的覆盖索引：前三列与 V2 相同，账户、del_flag 等值匹配后按 created_at 范围扫描和排序；
+-- 其后追加 TransactionView 的其余字段，交易类型、金额条件在索引内过滤，查询不需要回表（主键已隐含在二级索引中）。
+-- 新索引可以替代 V2 的两个索引，先建新索引再删除旧索引，避免中间状态下查询退化为全表扫描。
+CREATE INDEX idx_transactions_in_account_cover
+    ON Transactions (in_account, del_flag, created_at, transaction_type, amount, out_account, version);
+
+CREATE INDEX idx_transactions_out_account_cover
+    ON Transactions (out_account, del_flag, created_at, transaction_type, amount, in_account, version);
+
+DROP INDEX idx_transactions_in_account ON Transactions;
+
+DROP INDEX idx_transactions_out_account ON Transactions;
@@ -0,0 +1,7 @@
+-- outbox 中继锁：每批发布在事务内先锁住这一行，多个实例同时开启中继时串行发布，
+-- position 始终从表中最大值继续分配，不会重复或跳号
+CREATE TABLE outbox_relay_lock (
+    lock_id INT PRIMARY KEY
+);
+
+INSERT INTO outbox_relay_lock (lock_id) VALUES (1);
@@ -0,0 +1,3 @@
+-- 审计日志表改用与其他表一致的小写下划线命名：实体 TransactionLog 经默认命名策略映射为 transaction_logs，
+-- AuditLogWriter 也按此表名批量写入；保留 V1 中 TransactionLogs 的表名会使所有审计写入失败。
+ALTER TABLE TransactionLogs RENAME TO transaction_logs;
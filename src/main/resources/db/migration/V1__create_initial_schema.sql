@@ -6,7 +6,7 @@ CREATE TABLE Transactions (
     transaction_type ENUM('DEPOSIT', 'WITHDRAWAL', 'TRANSFER') NOT NULL,
     amount DECIMAL(15, 2) NOT NULL CHECK (amount >= 0),
     del_flag TINYINT NOT NULL DEFAULT 0,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 -- 创建交易日志表
@@ -0,0 +1,4 @@
+-- 账户交易历史分页索引：转入、转出两个方向分别按 created_at 有序，支持游标分页直接走索引范围扫描
+CREATE INDEX idx_transactions_in_account ON Transactions (in_account, del_flag, created_at);
+
+CREATE INDEX idx_transactions_out_account ON Transactions (out_account, del_flag, created_at);
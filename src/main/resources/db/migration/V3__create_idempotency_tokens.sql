@@ -0,0 +1,10 @@
+-- 一次性token表，多实例部署时共享（transaction.token.store=jdbc）
+CREATE TABLE idempotency_tokens (
+    token_high BIGINT NOT NULL,
+    token_low BIGINT NOT NULL,
+    expires_at BIGINT NOT NULL,
+    PRIMARY KEY (token_high, token_low)
+);
+
+-- 后台按过期时间批量清理
+CREATE INDEX idx_idempotency_tokens_expires_at ON idempotency_tokens (expires_at);
@@ -0,0 +1,4 @@
+-- token占用状态和处理结果，用于重复请求的结果重放：ISSUED -> CLAIMED -> COMPLETED
+ALTER TABLE idempotency_tokens ADD COLUMN state VARCHAR(16) NOT NULL DEFAULT 'ISSUED';
+
+ALTER TABLE idempotency_tokens ADD COLUMN result_id BIGINT;
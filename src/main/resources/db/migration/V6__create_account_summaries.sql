@@ -0,0 +1,12 @@
+-- 账户汇总投影：每个账户、每种交易类型一行，随交易写入在同一事务内增量更新，
+-- 可通过 POST /api/v1/accounts/summaries/rebuild 从 Transactions 重新计算
+CREATE TABLE account_summaries (
+    account_id BIGINT NOT NULL,
+    transaction_type VARCHAR(16) NOT NULL,
+    credit_amount DECIMAL(19, 2) NOT NULL,
+    debit_amount DECIMAL(19, 2) NOT NULL,
+    credit_count BIGINT NOT NULL,
+    debit_count BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (account_id, transaction_type)
+);
@@ -0,0 +1,2 @@
+-- 交易乐观锁版本号：修改、删除按版本号条件更新，并发修改不再静默覆盖；已有数据从 0 开始
+ALTER TABLE Transactions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
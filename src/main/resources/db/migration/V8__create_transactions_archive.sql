@@ -0,0 +1,23 @@
+-- 交易归档表：超过保留期（transaction.archive.max-age）的交易和已软删除的交易由归档任务分块移入，只读。
+-- archive_month 为交易创建月份（yyyyMM）。MySQL / PostgreSQL 上按该列做范围分区，
+-- 清理历史数据时直接删除整个分区，例如 MySQL：PARTITION BY RANGE (archive_month) (PARTITION p202401 VALUES LESS THAN (202402), ...)
+CREATE TABLE transactions_archive (
+    transaction_id BIGINT NOT NULL,
+    transaction_type VARCHAR(16) NOT NULL,
+    in_account BIGINT NOT NULL,
+    out_account BIGINT NOT NULL,
+    amount DECIMAL(15, 2) NOT NULL,
+    del_flag TINYINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    version BIGINT,
+    archive_month INT NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    -- 分区表的主键需要包含分区列
+    PRIMARY KEY (transaction_id, archive_month)
+);
+
+CREATE INDEX idx_transactions_archive_in_account ON transactions_archive (in_account, del_flag, created_at);
+
+CREATE INDEX idx_transactions_archive_out_account ON transactions_archive (out_account, del_flag, created_at);
+
+CREATE INDEX idx_transactions_archive_month ON transactions_archive (archive_month);
@@ -0,0 +1,14 @@
+-- 事务性 outbox：交易新增、修改、删除时在同一事务内写入一行，由中继按 event_id 顺序批量发布，
+-- 发布时分配连续递增的 position，SSE 客户端以 position 续传。已发布的记录保留 transaction.outbox.relay.retention
+CREATE TABLE outbox (
+    event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    transaction_id BIGINT NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    position BIGINT,
+    published_at TIMESTAMP
+);
+
+-- 未发布的记录 position 为空，中继按 position IS NULL 取待发布记录，续传按 position 范围读取
+CREATE UNIQUE INDEX idx_outbox_position ON outbox (position);
@@ -0,0 +1,92 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.cache.AccountHistoryCache;
+import com.bank.transaction.config.CacheProperties;
+import com.bank.transaction.dto.TransactionPage;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.event.TransactionChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountHistoryCacheTest {
+    private final AccountHistoryCache cache = new AccountHistoryCache(new CacheProperties());
+
+    private static TransactionPage page() {
+        return new TransactionPage(Collections.emptyList(), null);
+    }
+
+    @Test
+    void testGet_CachesPerAccount() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, "p:0:10", () -> { loads.incrementAndGet(); return page(); });
+        cache.get(1L, "p:0:10", () -> { loads.incrementAndGet(); return page(); });
+        cache.get(2L, "p:0:10", () -> { loads.incrementAndGet(); return page(); });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testTransactionChanged_EvictsOnlyAffectedAccounts() {
+        AtomicInteger loads = new AtomicInteger();
+        for (long account = 1; account <= 3; account++) {
+            cache.get(account, "p:0:10", () -> { loads.incrementAndGet(); return page(); });
+        }
+        Transaction transaction = new Transaction();
+        transaction.setInAccount(1L);
+        transaction.setOutAccount(2L);
+        cache.onTransactionChanged(TransactionChangedEvent.created(transaction));
+
+        for (long account = 1; account <= 3; account++) {
+            cache.get(account, "p:0:10", () -> { loads.incrementAndGet(); return page(); });
+        }
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void testGet_CollapsesConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TransactionPage>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get(1L, "p:0:10", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return page();
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            TransactionPage first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<TransactionPage> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGet_FailedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, "p:0:10", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertNotNull(cache.get(1L, "p:0:10", AccountHistoryCacheTest::page));
+    }
+}
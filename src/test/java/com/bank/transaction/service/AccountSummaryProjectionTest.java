@@ -0,0 +1,194 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.SummaryProperties;
+import com.bank.transaction.dto.SummaryRebuildResult;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.bank.transaction.summary.AccountSummaryProjection;
+import com.bank.transaction.summary.AccountSummaryRebuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountSummaryProjectionTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private AccountSummaryProjection projection;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        // 使用发布的迁移脚本建表，V1 等脚本为 MySQL 语法，H2 以 MySQL 兼容模式执行
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(UUID.randomUUID() + ";MODE=MySQL")
+                .addScript("db/migration/V1__create_initial_schema.sql")
+                .addScript("db/migration/V6__create_account_summaries.sql")
+                .addScript("db/migration/V7__add_transactions_version.sql")
+                .addScript("db/migration/V8__create_transactions_archive.sql")
+                .addScript("db/migration/V11__widen_transaction_ids.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        projection = new AccountSummaryProjection(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    // 写入交易表并发布事件，模拟服务层在同一事务内的处理
+    private Transaction create(long in, long out, TransactionType type, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(++nextId);
+        transaction.setInAccount(in);
+        transaction.setOutAccount(out);
+        transaction.setTransactionType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setCreatedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO transactions (transaction_id, in_account, out_account, transaction_type, amount, "
+                            + "del_flag, created_at) VALUES (?, ?, ?, ?, ?, false, ?)", transaction.getTransactionId(),
+                    in, out, type.name(), transaction.getAmount(), transaction.getCreatedAt());
+            projection.onTransactionChanged(TransactionChangedEvent.created(transaction));
+        });
+        return transaction;
+    }
+
+    private void modify(Transaction transaction, long in, long out, String amount) {
+        Transaction before = TransactionChangedEvent.snapshot(transaction);
+        transaction.setInAccount(in);
+        transaction.setOutAccount(out);
+        transaction.setAmount(new BigDecimal(amount));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE transactions SET in_account = ?, out_account = ?, amount = ? WHERE transaction_id = ?",
+                    in, out, transaction.getAmount(), transaction.getTransactionId());
+            projection.onTransactionChanged(TransactionChangedEvent.modified(before, transaction));
+        });
+    }
+
+    private void delete(Transaction transaction) {
+        Transaction before = TransactionChangedEvent.snapshot(transaction);
+        transaction.setDelFlag(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE transactions SET del_flag = true WHERE transaction_id = ?", transaction.getTransactionId());
+            projection.onTransactionChanged(TransactionChangedEvent.deleted(before, transaction));
+        });
+    }
+
+    private BigDecimal balance(long account) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(credit_amount - debit_amount), 0) FROM account_summaries "
+                + "WHERE account_id = ?", BigDecimal.class, account);
+    }
+
+    private List<Map<String, Object>> snapshot() {
+        return jdbcTemplate.queryForList("SELECT account_id, transaction_type, credit_amount, debit_amount, credit_count, "
+                + "debit_count FROM account_summaries ORDER BY account_id, transaction_type");
+    }
+
+    @Test
+    void createModifyAndDeleteKeepBalancesInStep() {
+        Transaction transfer = create(1, 2, TransactionType.TRANSFER, "100.00");
+        create(1, 3, TransactionType.DEPOSIT, "50.00");
+        assertEquals(new BigDecimal("150.00"), balance(1));
+        assertEquals(new BigDecimal("-100.00"), balance(2));
+
+        // 修改转出账户和金额：旧账户冲回，新账户记入
+        modify(transfer, 1, 3, "80.00");
+        assertEquals(new BigDecimal("130.00"), balance(1));
+        assertEquals(new BigDecimal("0.00"), balance(2));
+        assertEquals(new BigDecimal("-130.00"), balance(3));
+
+        delete(transfer);
+        assertEquals(new BigDecimal("50.00"), balance(1));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT credit_count FROM account_summaries "
+                + "WHERE account_id = 1 AND transaction_type = 'TRANSFER'", Long.class));
+    }
+
+    @Test
+    void rolledBackChangesDoNotTouchSummary() {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(1L);
+        transaction.setInAccount(1L);
+        transaction.setOutAccount(2L);
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setAmount(new BigDecimal("10.00"));
+        transactionTemplate.executeWithoutResult(status -> {
+            projection.onTransactionChanged(TransactionChangedEvent.created(transaction));
+            status.setRollbackOnly();
+        });
+        assertTrue(snapshot().isEmpty());
+    }
+
+    @Test
+    void changesInOneTransactionAreAggregated() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 10; i++) {
+                Transaction transaction = new Transaction();
+                transaction.setTransactionId((long) i);
+                transaction.setInAccount(1L);
+                transaction.setOutAccount(2L);
+                transaction.setTransactionType(TransactionType.TRANSFER);
+                transaction.setAmount(new BigDecimal("1.50"));
+                projection.onTransactionChanged(TransactionChangedEvent.created(transaction));
+            }
+        });
+        assertEquals(2, snapshot().size());
+        assertEquals(new BigDecimal("15.00"), balance(1));
+        assertEquals(10L, jdbcTemplate.queryForObject("SELECT debit_count FROM account_summaries WHERE account_id = 2", Long.class));
+    }
+
+    @Test
+    void rebuildMatchesIncrementalProjection() {
+        for (long account = 1; account <= 30; account++) {
+            create(account, account * 1000, TransactionType.TRANSFER, account + ".25");
+            create(account * 1000, account, TransactionType.WITHDRAWAL, "1.00");
+        }
+        Transaction deposit = create(5, 5, TransactionType.DEPOSIT, "7.00");
+        modify(deposit, 6, 7, "8.00");
+        delete(create(9, 10, TransactionType.TRANSFER, "99.00"));
+        List<Map<String, Object>> incremental = snapshot();
+        // 已归档的交易仍然计入余额
+        jdbcTemplate.update("INSERT INTO transactions_archive (transaction_id, transaction_type, in_account, out_account, amount, "
+                + "del_flag, created_at, version, archive_month, archived_at) SELECT transaction_id, transaction_type, in_account, "
+                + "out_account, amount, del_flag, created_at, version, YEAR(created_at) * 100 + MONTH(created_at), CURRENT_TIMESTAMP "
+                + "FROM transactions WHERE in_account IN (3, 4000)");
+        jdbcTemplate.update("DELETE FROM transactions WHERE in_account IN (3, 4000)");
+
+        // 打乱投影后重建，结果应与增量维护的一致（软删除后计数为 0 的行除外）
+        jdbcTemplate.update("UPDATE account_summaries SET credit_amount = 0, credit_count = 0");
+        jdbcTemplate.update("INSERT INTO account_summaries VALUES (123456, 'DEPOSIT', 1, 1, 1, 1, CURRENT_TIMESTAMP)");
+        SummaryProperties properties = new SummaryProperties();
+        properties.getRebuild().setChunkAccounts(8);
+        properties.getRebuild().setParallelism(3);
+        AccountSummaryRebuilder rebuilder = new AccountSummaryRebuilder(jdbcTemplate, transactionTemplate, properties,
+                new SimpleMeterRegistry());
+
+        SummaryRebuildResult result = rebuilder.rebuild();
+
+        incremental.removeIf(row -> ((Long) row.get("CREDIT_COUNT")) == 0 && ((Long) row.get("DEBIT_COUNT")) == 0);
+        assertEquals(incremental, snapshot());
+        assertEquals(incremental.size(), result.getRows());
+        // 账户ID 1..30 与 1000..30000 稀疏分布，空区间不产生分片
+        assertTrue(result.getChunks() < 40, "chunks: " + result.getChunks());
+    }
+}
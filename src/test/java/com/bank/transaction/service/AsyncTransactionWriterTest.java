@@ -0,0 +1,227 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.IngestionProperties;
+import com.bank.transaction.dto.IngestionStatus;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.exception.IngestionRejectedException;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.service.impl.AsyncTransactionWriter;
+import com.bank.transaction.token.TokenClaim;
+import com.bank.transaction.util.TokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AsyncTransactionWriterTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TokenUtil tokenUtil;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private IngestionProperties properties;
+    private AsyncTransactionWriter writer;
+    private final AtomicLong ids = new AtomicLong();
+    // 第一个事务开始后阻塞，直到测试放行，用来让后续请求在队列里积压成一批
+    private final CountDownLatch firstCommitStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstCommit = new CountDownLatch(1);
+    private final AtomicLong commits = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        properties.getAsync().setQueueCapacity(16);
+        properties.getAsync().setMaxBatchSize(10);
+        properties.getAsync().setMaxWait(Duration.ZERO);
+
+        when(tokenUtil.claimToken(anyString())).thenAnswer(inv -> new TokenClaim(1L, ids.incrementAndGet(), false, null));
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> {
+            if (commits.getAndIncrement() == 0) {
+                firstCommitStarted.countDown();
+                releaseFirstCommit.await(5, TimeUnit.SECONDS);
+            }
+            return inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        });
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Transaction> transactions = inv.getArgument(0);
+            if (transactions.stream().anyMatch(t -> t.getAmount().signum() < 0)) {
+                throw new IllegalStateException("constraint violation");
+            }
+            transactions.forEach(t -> t.setTransactionId(ids.incrementAndGet() + 1000));
+            return transactions;
+        });
+        writer = new AsyncTransactionWriter(transactionRepository, transactionTemplate, tokenUtil,
+                eventPublisher, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstCommit.countDown();
+        writer.stop();
+    }
+
+    private static TransactionRequest request(String token, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setInAccount(1L);
+        request.setOutAccount(2L);
+        request.setAmount(new BigDecimal(amount));
+        request.setTransactionType(TransactionType.TRANSFER);
+        request.setToken(token);
+        return request;
+    }
+
+    // 提交第一笔并等待写线程卡在它的事务里，之后提交的请求都会积压在队列中
+    private IngestionStatus submitAndHoldWriter() throws InterruptedException {
+        IngestionStatus first = writer.submit(request("first", "1.00"));
+        assertTrue(firstCommitStarted.await(5, TimeUnit.SECONDS));
+        return first;
+    }
+
+    private IngestionStatus awaitDone(IngestionStatus accepted) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        IngestionStatus status = writer.getStatus(accepted.getRequestId());
+        while (status.getStatus() == IngestionStatus.Status.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = writer.getStatus(accepted.getRequestId());
+        }
+        return status;
+    }
+
+    @Test
+    void submit_GroupsQueuedRequestsIntoOneCommit() throws InterruptedException {
+        writer.start();
+        IngestionStatus first = submitAndHoldWriter();
+        List<IngestionStatus> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            IngestionStatus accepted = writer.submit(request("token-" + i, "100.00"));
+            assertEquals(IngestionStatus.Status.PENDING, accepted.getStatus());
+            queued.add(accepted);
+        }
+        releaseFirstCommit.countDown();
+
+        assertEquals(IngestionStatus.Status.COMMITTED, awaitDone(first).getStatus());
+        for (IngestionStatus accepted : queued) {
+            IngestionStatus done = awaitDone(accepted);
+            assertEquals(IngestionStatus.Status.COMMITTED, done.getStatus());
+            assertNotNull(done.getTransactionId());
+        }
+        // 第一笔单独提交，积压的 5 笔在一个事务中提交
+        assertEquals(2, commits.get());
+        verify(tokenUtil, times(6)).completeToken(any());
+        verify(eventPublisher, times(6)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void submit_FailedGroupCommitRetriesEachRequest() throws InterruptedException {
+        writer.start();
+        submitAndHoldWriter();
+        IngestionStatus good1 = writer.submit(request("good-1", "100.00"));
+        IngestionStatus bad = writer.submit(request("bad", "-1.00"));
+        IngestionStatus good2 = writer.submit(request("good-2", "100.00"));
+        releaseFirstCommit.countDown();
+
+        assertEquals(IngestionStatus.Status.COMMITTED, awaitDone(good1).getStatus());
+        assertEquals(IngestionStatus.Status.FAILED, awaitDone(bad).getStatus());
+        assertEquals(IngestionStatus.Status.COMMITTED, awaitDone(good2).getStatus());
+        verify(tokenUtil, times(1)).releaseToken(any());
+        verify(tokenUtil, times(3)).completeToken(any());
+    }
+
+    @Test
+    void submit_ErrorFailsBatchAndKeepsWriterAlive() throws InterruptedException {
+        releaseFirstCommit.countDown();
+        doThrow(new StackOverflowError("boom"))
+                .doAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        writer.start();
+
+        IngestionStatus lost = writer.submit(request("lost", "100.00"));
+        assertEquals(IngestionStatus.Status.FAILED, awaitDone(lost).getStatus());
+        verify(tokenUtil).releaseToken(any());
+        // 写线程仍在运行，之后受理的请求照常写入
+        IngestionStatus next = writer.submit(request("next", "100.00"));
+        assertEquals(IngestionStatus.Status.COMMITTED, awaitDone(next).getStatus());
+    }
+
+    @Test
+    void submit_RejectsWhenQueueIsFull() throws InterruptedException {
+        properties.getAsync().setQueueCapacity(1);
+        writer = new AsyncTransactionWriter(transactionRepository, transactionTemplate, tokenUtil,
+                eventPublisher, properties, new SimpleMeterRegistry());
+        writer.start();
+        submitAndHoldWriter();
+        writer.submit(request("queued", "100.00"));
+
+        assertThrows(IngestionRejectedException.class, () -> writer.submit(request("overflow", "100.00")));
+        verify(tokenUtil).releaseToken(any());
+    }
+
+    @Test
+    void submit_ReplayReturnsOriginalTransaction() {
+        when(tokenUtil.claimToken("used")).thenReturn(new TokenClaim(1L, 2L, true, 42L));
+        writer.start();
+
+        IngestionStatus status = writer.submit(request("used", "100.00"));
+
+        assertEquals(IngestionStatus.Status.COMMITTED, status.getStatus());
+        assertEquals(42L, status.getTransactionId());
+        assertEquals(status, writer.getStatus(status.getRequestId()));
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void submit_RejectsWhenDisabled() {
+        properties.getAsync().setEnabled(false);
+        writer.start();
+
+        assertThrows(IngestionRejectedException.class, () -> writer.submit(request("token", "100.00")));
+        verify(tokenUtil, never()).claimToken(anyString());
+    }
+
+    @Test
+    void submit_RejectsWhileShardingIsEnabled() {
+        // 异步写线程不按账户分片，开启分片写入时不受理，避免与分片写线程同时写入同一账户
+        properties.getSharded().setEnabled(true);
+        writer = new AsyncTransactionWriter(transactionRepository, transactionTemplate, tokenUtil,
+                eventPublisher, properties, new SimpleMeterRegistry());
+        writer.start();
+
+        assertFalse(writer.isRunning());
+        assertThrows(IngestionRejectedException.class, () -> writer.submit(request("token", "100.00")));
+        verify(tokenUtil, never()).claimToken(anyString());
+    }
+}
@@ -0,0 +1,170 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.audit.AuditEventListener;
+import com.bank.transaction.audit.AuditLogWriter;
+import com.bank.transaction.config.AuditProperties;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.event.TransactionChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogWriterTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private AuditProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        // 使用发布的迁移脚本建表，V1 等脚本为 MySQL 语法，H2 以 MySQL 兼容模式执行
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(UUID.randomUUID() + ";MODE=MySQL")
+                .addScript("db/migration/V1__create_initial_schema.sql")
+                .addScript("db/migration/V11__widen_transaction_ids.sql")
+                .addScript("db/migration/V14__rename_transaction_logs.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        properties = new AuditProperties();
+        properties.setFlushInterval(Duration.ofMillis(20));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+        database.shutdown();
+    }
+
+    private AuditEventListener listener() {
+        writer = new AuditLogWriter(jdbcTemplate, properties, meterRegistry);
+        writer.start();
+        return new AuditEventListener(writer, properties);
+    }
+
+    private static TransactionChangedEvent created(long id) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setInAccount(1L);
+        transaction.setOutAccount(2L);
+        transaction.setAmount(new BigDecimal("10.00"));
+        transaction.setCreatedAt(LocalDateTime.now());
+        return TransactionChangedEvent.created(transaction);
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction_logs", Integer.class);
+    }
+
+    private void awaitRows(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (rows() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, rows());
+    }
+
+    @Test
+    void asyncRecordsAreWrittenAfterCommitInBatches() throws Exception {
+        AuditEventListener listener = listener();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (long id = 1; id <= 3; id++) {
+                listener.onTransactionChanged(created(id));
+            }
+            // 提交前不会进入缓冲区
+            assertEquals(0.0, meterRegistry.get("transaction.audit.queue.size").gauge().value());
+        });
+
+        awaitRows(3);
+        assertEquals("CREATED [type=TRANSFER, in=1, out=2, amount=10.00]",
+                jdbcTemplate.queryForObject("SELECT message FROM transaction_logs WHERE transaction_id = 1", String.class));
+        assertEquals(3.0, meterRegistry.get("transaction.audit.written").counter().count());
+    }
+
+    @Test
+    void rolledBackChangesAreNotAudited() throws Exception {
+        AuditEventListener listener = listener();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            listener.onTransactionChanged(created(1));
+            status.setRollbackOnly();
+        });
+        listener.onTransactionChanged(created(2));
+
+        awaitRows(1);
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT transaction_id FROM transaction_logs", Long.class));
+    }
+
+    @Test
+    void syncRecordsCommitAndRollBackWithTheTransaction() {
+        properties.setDurability(AuditProperties.Durability.SYNC);
+        AuditEventListener listener = listener();
+
+        transactionTemplate.executeWithoutResult(status -> listener.onTransactionChanged(created(1)));
+        // 提交返回时已经写入，不依赖后台线程
+        assertEquals(1, rows());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            listener.onTransactionChanged(created(2));
+            status.setRollbackOnly();
+        });
+        assertEquals(1, rows());
+    }
+
+    @Test
+    void fullBufferAppliesOverflowPolicy() {
+        properties.setBufferSize(2);
+        writer = new AuditLogWriter(jdbcTemplate, properties, meterRegistry);
+        // 不启动后台线程，缓冲区写满后触发溢出策略
+        AuditEventListener dropping = new AuditEventListener(writer, properties);
+        for (long id = 1; id <= 5; id++) {
+            dropping.onTransactionChanged(created(id));
+        }
+        assertEquals(3.0, meterRegistry.get("transaction.audit.dropped").counter().count());
+        assertEquals(2.0, meterRegistry.get("transaction.audit.queue.size").gauge().value());
+
+        properties.setOverflowPolicy(AuditProperties.OverflowPolicy.CALLER_RUNS);
+        dropping.onTransactionChanged(created(6));
+        assertEquals(1, rows());
+        assertEquals(3.0, meterRegistry.get("transaction.audit.dropped").counter().count());
+    }
+
+    @Test
+    void stopFlushesRemainingRecords() {
+        properties.setFlushInterval(Duration.ofMinutes(1));
+        AuditEventListener listener = listener();
+        for (long id = 1; id <= 10; id++) {
+            listener.onTransactionChanged(created(id));
+        }
+
+        writer.stop();
+
+        assertEquals(10, rows());
+        assertFalse(writer.isRunning());
+    }
+}
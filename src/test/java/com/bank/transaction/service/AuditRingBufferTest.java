@@ -0,0 +1,91 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.audit.AuditRecord;
+import com.bank.transaction.audit.AuditRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+
+    private static AuditRecord record(long id) {
+        return new AuditRecord(id, "CREATED", LocalDateTime.now());
+    }
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(8, new AuditRingBuffer(5).capacity());
+        assertEquals(8, new AuditRingBuffer(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new AuditRingBuffer(0));
+    }
+
+    @Test
+    void offerFailsWhenFullAndSlotsAreReusedAfterDrain() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (long i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(record(i)));
+        }
+        assertFalse(buffer.offer(record(4)));
+        assertEquals(4, buffer.size());
+
+        List<AuditRecord> drained = new ArrayList<>();
+        assertEquals(2, buffer.drainTo(drained, 2));
+        assertEquals(List.of(0L, 1L), drained.stream().map(AuditRecord::transactionId).toList());
+
+        // 绕回到数组开头继续写入，顺序保持不变
+        assertTrue(buffer.offer(record(4)));
+        assertTrue(buffer.offer(record(5)));
+        assertFalse(buffer.offer(record(6)));
+        drained.clear();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals(List.of(2L, 3L, 4L, 5L), drained.stream().map(AuditRecord::transactionId).toList());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void concurrentProducersDeliverEveryRecordExactlyOnce() throws Exception {
+        AuditRingBuffer buffer = new AuditRingBuffer(64);
+        int producers = 4;
+        int perProducer = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            executor.submit(() -> {
+                start.await();
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(record(base + i))) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+
+        Set<Long> seen = new HashSet<>();
+        List<AuditRecord> batch = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (seen.size() < producers * perProducer && System.nanoTime() < deadline) {
+            batch.clear();
+            buffer.drainTo(batch, 32);
+            for (AuditRecord record : batch) {
+                assertTrue(seen.add(record.transactionId()), "重复消费：" + record.transactionId());
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(producers * perProducer, seen.size());
+        assertEquals(0, buffer.size());
+    }
+}
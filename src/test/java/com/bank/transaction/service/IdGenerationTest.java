@@ -0,0 +1,152 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.IdGeneratorConfig;
+import com.bank.transaction.config.IdProperties;
+import com.bank.transaction.id.SnowflakeIdGenerator;
+import com.bank.transaction.id.TransactionIdGenerator;
+import com.bank.transaction.token.TokenGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdGenerationTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + 86_400_000L;
+
+    @Test
+    void snowflakeIds_AreIncreasingAndCarryWorker() {
+        SnowflakeIdGenerator ids = new SnowflakeIdGenerator(7, () -> NOW);
+        long prev = 0;
+        for (int i = 0; i < 5000; i++) {
+            long id = ids.nextId();
+            assertTrue(id > prev);
+            assertTrue(id < 1L << 53);
+            assertEquals(7, SnowflakeIdGenerator.workerIdOf(id));
+            prev = id;
+        }
+        // 同一时间片内只有 1024 个序号，超出后顺延到后续时间片
+        assertTrue(SnowflakeIdGenerator.epochMillisOf(prev) > NOW);
+    }
+
+    @Test
+    void snowflakeIds_KeepIncreasingWhenClockMovesBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator ids = new SnowflakeIdGenerator(0, clock::get);
+        long first = ids.nextId();
+        assertEquals(NOW, SnowflakeIdGenerator.epochMillisOf(first));
+
+        clock.set(NOW - 60_000);
+        long second = ids.nextId();
+        assertTrue(second > first);
+
+        clock.set(NOW + 60_000);
+        assertEquals(NOW + 60_000, SnowflakeIdGenerator.epochMillisOf(ids.nextId()));
+    }
+
+    @Test
+    void snowflakeIds_RejectInvalidWorker() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+
+    @Test
+    void snowflakeIds_AreUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator ids = new SnowflakeIdGenerator(1);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        runConcurrently(() -> {
+            for (int i = 0; i < 2000; i++) {
+                assertTrue(seen.add(ids.nextId()));
+            }
+        });
+        assertEquals(16 * 2000, seen.size());
+    }
+
+    @Test
+    void workerId_MustBeConfiguredWhenRequired() {
+        IdGeneratorConfig config = new IdGeneratorConfig();
+        IdProperties properties = new IdProperties();
+        assertEquals(0, workerIdSetting(config, properties));
+
+        properties.setWorkerId(5);
+        properties.setRequireWorkerId(true);
+        assertEquals(5, workerIdSetting(config, properties));
+
+        properties.setWorkerId(null);
+        assertThrows(IllegalStateException.class, () -> config.transactionIdCustomizer(properties));
+    }
+
+    private static Object workerIdSetting(IdGeneratorConfig config, IdProperties properties) {
+        Map<String, Object> settings = new HashMap<>();
+        config.transactionIdCustomizer(properties).customize(settings);
+        return settings.get(TransactionIdGenerator.WORKER_ID_SETTING);
+    }
+
+    @Test
+    void tokens_EncodeAsBase64UrlAndRoundTrip() {
+        TokenGenerator generator = new TokenGenerator(2);
+        for (int i = 0; i < 1000; i++) {
+            TokenGenerator.Token token = generator.next();
+            String encoded = token.encode();
+            byte[] bytes = ByteBuffer.allocate(16).putLong(token.high()).putLong(token.low()).array();
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), encoded);
+            assertEquals(TokenGenerator.TOKEN_LENGTH, encoded.length());
+            assertEquals(token, TokenGenerator.decode(encoded));
+        }
+        assertEquals(new TokenGenerator.Token(-1L, -1L), TokenGenerator.decode(TokenGenerator.encode(-1L, -1L)));
+    }
+
+    @Test
+    void tokens_DecodeLegacyUuid() {
+        UUID uuid = UUID.randomUUID();
+        assertEquals(new TokenGenerator.Token(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()),
+                TokenGenerator.decode(uuid.toString()));
+    }
+
+    @Test
+    void tokens_RejectMalformedInput() {
+        String valid = TokenGenerator.encode(0x0123456789abcdefL, 0x0fedcba987654320L);
+        assertNull(TokenGenerator.decode(null));
+        assertNull(TokenGenerator.decode(""));
+        assertNull(TokenGenerator.decode(valid.substring(1)));
+        assertNull(TokenGenerator.decode("+" + valid.substring(1)));
+        assertNull(TokenGenerator.decode("中" + valid.substring(1)));
+        // 最后一个字符的低 4 位不为 0 时，与合法 token 解析结果相同，必须拒绝
+        assertNull(TokenGenerator.decode(valid.substring(0, 21) + "B"));
+        assertNull(TokenGenerator.decode("zzzzzzzz-zzzz-zzzz-zzzz-zzzzzzzzzzzz"));
+    }
+
+    @Test
+    void tokens_AreUniqueAcrossThreads() throws Exception {
+        TokenGenerator generator = new TokenGenerator(4);
+        Set<TokenGenerator.Token> seen = ConcurrentHashMap.newKeySet();
+        runConcurrently(() -> {
+            for (int i = 0; i < 2000; i++) {
+                assertTrue(seen.add(generator.next()));
+            }
+        });
+        assertEquals(16 * 2000, seen.size());
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = IntStream.range(0, 16).<Future<?>>mapToObj(i -> executor.submit(task)).toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+}
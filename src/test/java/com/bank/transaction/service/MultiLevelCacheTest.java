@@ -0,0 +1,162 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.cache.AccountHistoryCache;
+import com.bank.transaction.cache.InMemorySharedPageCache;
+import com.bank.transaction.cache.JdbcInvalidationBus;
+import com.bank.transaction.cache.JdbcSharedPageCache;
+import com.bank.transaction.cache.LocalInvalidationBus;
+import com.bank.transaction.cache.SharedPageCache;
+import com.bank.transaction.config.CacheProperties;
+import com.bank.transaction.dto.TransactionPage;
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiLevelCacheTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/migration/V10__create_shared_cache.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static TransactionPage page(long transactionId) {
+        TransactionView view = new TransactionView(transactionId, TransactionType.TRANSFER, 1L, 2L,
+                new BigDecimal("10.00"), LocalDateTime.of(2024, 1, 1, 12, 0), 0L);
+        return new TransactionPage(List.of(view), "next");
+    }
+
+    private static TransactionChangedEvent transfer(long inAccount, long outAccount) {
+        Transaction transaction = new Transaction();
+        transaction.setInAccount(inAccount);
+        transaction.setOutAccount(outAccount);
+        return TransactionChangedEvent.created(transaction);
+    }
+
+    @Test
+    void testNodes_ShareSecondLevelAndInvalidateEachOther() {
+        SharedPageCache shared = new InMemorySharedPageCache(Duration.ofMinutes(10), 1000);
+        LocalInvalidationBus bus = new LocalInvalidationBus();
+        AccountHistoryCache nodeA = new AccountHistoryCache(new CacheProperties(), shared, bus);
+        AccountHistoryCache nodeB = new AccountHistoryCache(new CacheProperties(), shared, bus);
+        AtomicInteger loads = new AtomicInteger();
+
+        nodeA.get(1L, "p:0:10", () -> page(loads.incrementAndGet()));
+        // B 本地未命中，从共享缓存读到 A 加载的分页
+        assertEquals(1L, nodeB.get(1L, "p:0:10", () -> page(loads.incrementAndGet())).getContent().get(0).transactionId());
+        assertEquals(1, loads.get());
+
+        // A 上的写入失效共享缓存，并通过总线失效 B 的本地缓存
+        nodeA.onTransactionChanged(transfer(1L, 2L));
+        assertEquals(2L, nodeB.get(1L, "p:0:10", () -> page(loads.incrementAndGet())).getContent().get(0).transactionId());
+        assertEquals(2L, nodeA.get(1L, "p:0:10", () -> page(loads.incrementAndGet())).getContent().get(0).transactionId());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testStalePut_UnderOldGenerationIsUnreachable() {
+        SharedPageCache shared = new InMemorySharedPageCache(Duration.ofMinutes(10), 1000);
+        long before = shared.generation(1L);
+        shared.invalidate(List.of(1L));
+        // 失效前开始的读请求在失效后才写入
+        shared.put(1L, before, "p:0:10", page(1));
+
+        assertNull(shared.get(1L, shared.generation(1L), "p:0:10"));
+        assertEquals(before + 1, shared.generation(1L));
+    }
+
+    @Test
+    void testJdbcSharedCache_RoundTripAndInvalidate() {
+        JdbcSharedPageCache shared = new JdbcSharedPageCache(jdbcTemplate, Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(new SimpleFilterProvider().addFilter(TransactionView.FILTER, SimpleBeanPropertyFilter.serializeAll()))
+                .build(), Duration.ofMinutes(10));
+
+        assertEquals(0, shared.generation(1L));
+        shared.put(1L, 0, "p:0:10", page(1));
+        shared.put(1L, 0, "p:0:10", page(1));
+        assertEquals(page(1), shared.get(1L, 0, "p:0:10"));
+
+        shared.invalidate(List.of(1L, 2L));
+        shared.invalidate(List.of(1L));
+        assertEquals(2, shared.generation(1L));
+        assertEquals(1, shared.generation(2L));
+        assertNull(shared.get(1L, 2, "p:0:10"));
+        // 旧代数的分页在失效时删除
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cache_pages", Integer.class));
+
+        jdbcTemplate.update("INSERT INTO cache_pages (account_id, generation, page_key, payload, expires_at) VALUES (?, ?, ?, ?, ?)",
+                3L, 0L, "p:0:10", "{}", Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+        assertNull(shared.get(3L, 0, "p:0:10"));
+        assertEquals(1, shared.purge());
+    }
+
+    @Test
+    void testJdbcBus_DeliversOtherOriginsAndWaitsForGaps() {
+        CacheProperties.Bus properties = new CacheProperties.Bus();
+        properties.setGapTimeout(Duration.ofMinutes(1));
+        JdbcInvalidationBus busA = new JdbcInvalidationBus(jdbcTemplate, properties);
+        JdbcInvalidationBus busB = new JdbcInvalidationBus(jdbcTemplate, properties);
+        List<Long> receivedA = new ArrayList<>();
+        List<Long> receivedB = new ArrayList<>();
+        busA.subscribe(receivedA::addAll);
+        busB.subscribe(receivedB::addAll);
+        busA.poll();
+        busB.poll();
+
+        busA.publish(Set.of(1L));
+        assertEquals(0, busA.poll());
+        assertEquals(1, busB.poll());
+        assertEquals(List.of(1L), receivedB);
+        assertTrue(receivedA.isEmpty());
+
+        // 跳过一个 id 模拟尚未提交的插入：空缺之后的消息先送达，补上后不会重复送达
+        long last = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cache_invalidations", Long.class);
+        insert(last + 2, 3L);
+        assertEquals(1, busB.poll());
+        insert(last + 1, 2L);
+        assertEquals(1, busB.poll());
+        assertEquals(0, busB.poll());
+        assertEquals(List.of(1L, 3L, 2L), receivedB);
+    }
+
+    private void insert(long id, long accountId) {
+        jdbcTemplate.update("INSERT INTO cache_invalidations (id, account_id, origin, created_at) VALUES (?, ?, ?, ?)",
+                id, accountId, "other", Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
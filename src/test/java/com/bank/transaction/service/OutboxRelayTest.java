@@ -0,0 +1,200 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.OutboxProperties;
+import com.bank.transaction.dto.TransactionChange;
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.bank.transaction.outbox.LocalOutboxSink;
+import com.bank.transaction.outbox.OutboxEventListener;
+import com.bank.transaction.outbox.OutboxRelay;
+import com.bank.transaction.outbox.OutboxSink;
+import com.bank.transaction.outbox.OutboxStore;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxRelayTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private OutboxProperties properties;
+    private OutboxStore store;
+    private LocalOutboxSink localSink;
+    private List<TransactionChange> received;
+    private AtomicBoolean failing;
+    private OutboxRelay relay;
+    private OutboxEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/migration/V9__create_outbox.sql")
+                .addScript("db/migration/V13__create_outbox_relay_lock.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        properties = new OutboxProperties();
+        properties.getRelay().setBatchSize(2);
+        store = new OutboxStore(jdbcTemplate, Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(new SimpleFilterProvider().addFilter(TransactionView.FILTER, SimpleBeanPropertyFilter.serializeAll()))
+                .build());
+        localSink = new LocalOutboxSink();
+        received = new ArrayList<>();
+        localSink.subscribe(received::addAll);
+        failing = new AtomicBoolean();
+        OutboxSink flaky = changes -> {
+            if (failing.get()) {
+                throw new IllegalStateException("sink unavailable");
+            }
+        };
+        relay = new OutboxRelay(store, List.of(flaky, localSink), transactionTemplate, properties, new SimpleMeterRegistry());
+        listener = new OutboxEventListener(store, relay, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static Transaction transaction(long id, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setInAccount(1L);
+        transaction.setOutAccount(2L);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        transaction.setVersion(0L);
+        return transaction;
+    }
+
+    private void commit(TransactionChangedEvent... events) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (TransactionChangedEvent event : events) {
+                listener.onTransactionChanged(event);
+            }
+        });
+    }
+
+    private List<Long> positions(List<TransactionChange> changes) {
+        return changes.stream().map(TransactionChange::position).toList();
+    }
+
+    @Test
+    void relaysCommittedChangesInOrderWithContiguousPositions() throws Exception {
+        Transaction created = transaction(1L, "10.00");
+        Transaction modified = transaction(1L, "12.00");
+        modified.setVersion(1L);
+        commit(TransactionChangedEvent.created(created), TransactionChangedEvent.created(transaction(2L, "5.00")));
+        transactionTemplate.executeWithoutResult(status -> {
+            listener.onTransactionChanged(TransactionChangedEvent.created(transaction(3L, "1.00")));
+            status.setRollbackOnly();
+        });
+        commit(TransactionChangedEvent.modified(created, modified));
+
+        assertEquals(2, relay.relayOnce());
+        assertEquals(1, relay.relayOnce());
+        assertEquals(0, relay.relayOnce());
+
+        assertEquals(List.of(1L, 2L, 3L), positions(received));
+        TransactionChange change = received.get(2);
+        assertEquals(TransactionChangedEvent.ChangeType.MODIFIED, change.changeType());
+        assertEquals(new BigDecimal("10.00"), change.before().amount());
+        assertEquals(new BigDecimal("12.00"), change.after().amount());
+        assertEquals(3L, relay.position());
+        assertEquals(List.of(2L, 3L), positions(store.publishedAfter(1, 10)));
+    }
+
+    @Test
+    void failedBatchIsRetriedWithSamePositions() throws Exception {
+        commit(TransactionChangedEvent.created(transaction(1L, "10.00")));
+        failing.set(true);
+
+        assertThrows(IllegalStateException.class, () -> relay.relayOnce());
+        assertEquals(0, store.maxPosition());
+
+        failing.set(false);
+        commit(TransactionChangedEvent.created(transaction(2L, "5.00")));
+        assertEquals(2, relay.relayOnce());
+
+        assertEquals(List.of(1L, 2L), positions(store.publishedAfter(0, 10)));
+        assertEquals(1L, store.publishedAfter(0, 10).get(0).transactionId());
+    }
+
+    @Test
+    void purgeKeepsLatestPublishedPosition() throws Exception {
+        commit(TransactionChangedEvent.created(transaction(1L, "10.00")), TransactionChangedEvent.created(transaction(2L, "5.00")));
+        relay.relayOnce();
+        properties.getRelay().setRetention(Duration.ofSeconds(-1));
+
+        assertEquals(1, relay.purge());
+        assertEquals(2L, store.minPosition());
+
+        // 重启后从表中保留的最新位置继续编号
+        OutboxRelay restarted = new OutboxRelay(store, List.of(localSink), transactionTemplate, properties, new SimpleMeterRegistry());
+        commit(TransactionChangedEvent.created(transaction(3L, "1.00")));
+        restarted.relayOnce();
+        assertEquals(List.of(3L), positions(store.publishedAfter(2, 10)));
+    }
+
+    @Test
+    void relaysOnSeveralInstancesContinueFromTablePosition() throws Exception {
+        OutboxRelay other = new OutboxRelay(store, List.of(localSink), transactionTemplate, properties, new SimpleMeterRegistry());
+        commit(TransactionChangedEvent.created(transaction(1L, "10.00")));
+        assertEquals(1, relay.relayOnce());
+        commit(TransactionChangedEvent.created(transaction(2L, "5.00")));
+        assertEquals(1, other.relayOnce());
+        commit(TransactionChangedEvent.created(transaction(3L, "1.00")));
+        assertEquals(1, relay.relayOnce());
+
+        assertEquals(List.of(1L, 2L, 3L), positions(received));
+        assertEquals(List.of(1L, 2L, 3L), positions(store.publishedAfter(0, 10)));
+        assertEquals(3L, relay.position());
+    }
+
+    @Test
+    void markPublishedRejectsAlreadyPublishedRows() throws Exception {
+        commit(TransactionChangedEvent.created(transaction(1L, "10.00")));
+        long eventId = store.pending(1).get(0).eventId();
+        relay.relayOnce();
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status ->
+                store.markPublished(List.of(eventId), 2, LocalDateTime.now())));
+        assertEquals(List.of(1L), positions(store.publishedAfter(0, 10)));
+    }
+
+    @Test
+    void recreatesMissingRelayLockRow() throws Exception {
+        jdbcTemplate.update("DELETE FROM outbox_relay_lock");
+        commit(TransactionChangedEvent.created(transaction(1L, "10.00")));
+
+        assertEquals(1, relay.relayOnce());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_relay_lock", Integer.class));
+    }
+}
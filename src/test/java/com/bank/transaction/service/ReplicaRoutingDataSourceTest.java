@@ -0,0 +1,147 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.cache.AccountHistoryCache;
+import com.bank.transaction.config.CacheProperties;
+import com.bank.transaction.datasource.ReadRoutingContext;
+import com.bank.transaction.dto.TransactionPage;
+import com.bank.transaction.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        // 两个独立的 H2 实例，各自写入不同的标记行，用于判断查询落在哪个库
+        primary = database("primary");
+        replica = database("replica");
+        meterRegistry = new SimpleMeterRegistry();
+        use(replica);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadRoutingContext.clear();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private EmbeddedDatabase database(String marker) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate template = new JdbcTemplate(database);
+        template.execute("CREATE TABLE marker (name VARCHAR(20))");
+        template.update("INSERT INTO marker VALUES (?)", marker);
+        return database;
+    }
+
+    private void use(DataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replicaDataSource, Duration.ofMinutes(1), meterRegistry));
+        jdbcTemplate = new JdbcTemplate(proxy);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String markerIn(TransactionTemplate template) {
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    private double routes(String target, String reason) {
+        return meterRegistry.counter("transaction.datasource.route", "target", target, "reason", reason).count();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplicaAndOthersUsePrimary() {
+        assertEquals("replica", markerIn(readOnly));
+        assertEquals("primary", markerIn(readWrite));
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM marker", String.class));
+        assertEquals(1, routes("replica", "read_only"));
+    }
+
+    @Test
+    void recentWriterReadsFromPrimary() {
+        ReadRoutingContext.requirePrimary();
+        assertEquals("primary", markerIn(readOnly));
+        ReadRoutingContext.clear();
+        assertEquals("replica", markerIn(readOnly));
+        assertEquals(1, routes("primary", "read_your_writes"));
+    }
+
+    @Test
+    void cacheFillsReadFromPrimary() {
+        AccountHistoryCache cache = new AccountHistoryCache(new CacheProperties());
+        TransactionPage page = cache.get(1L, "first", () -> new TransactionPage(Collections.emptyList(), markerIn(readOnly)));
+        assertEquals("primary", page.getNextCursor());
+        // 缓存之外的只读查询仍然走从库
+        assertFalse(ReadRoutingContext.isPrimaryRequired());
+        assertEquals("replica", markerIn(readOnly));
+    }
+
+    @Test
+    void connectionsWithCredentialsFollowTheSameRouting() throws SQLException {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, Duration.ofMinutes(1), meterRegistry);
+        assertEquals("replica", markerOf(routing.getConnection("sa", "")));
+        ReadRoutingContext.requirePrimary();
+        assertEquals("primary", markerOf(routing.getConnection("sa", "")));
+        assertEquals(1, routes("replica", "read_only"));
+        assertEquals(1, routes("primary", "read_your_writes"));
+    }
+
+    private static String markerOf(Connection connection) throws SQLException {
+        try (connection; var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("SELECT name FROM marker")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    @Test
+    void replicaFailureFallsBackToPrimaryDuringCooldown() {
+        use(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("replica down");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                throw new SQLException("replica down");
+            }
+        });
+
+        assertEquals("primary", markerIn(readOnly));
+        assertEquals("primary", markerIn(readOnly));
+        assertEquals(1, routes("primary", "replica_failure"));
+        assertEquals(1, routes("primary", "replica_cooldown"));
+    }
+}
@@ -0,0 +1,322 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.IngestionProperties;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.exception.IngestionRejectedException;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.service.impl.ShardedTransactionWriter;
+import com.bank.transaction.token.IdempotencyGuard;
+import com.bank.transaction.token.TokenClaim;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShardedTransactionWriterTest {
+
+    private static final long HELD_ACCOUNT = 1L;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private IdempotencyGuard idempotencyGuard;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private IngestionProperties properties;
+    private ShardedTransactionWriter writer;
+    private SimpleMeterRegistry meterRegistry;
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final AtomicLong ids = new AtomicLong();
+    // 按执行顺序记录各分片的写入，创建记为 "金额"，同一事务的多笔以 + 连接
+    private final List<String> applied = new CopyOnWriteArrayList<>();
+    // 转出账户为 HELD_ACCOUNT 的第一个事务开始后阻塞，直到测试放行，用来让后续请求在分片队列里积压
+    private final CountDownLatch firstCommitStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstCommit = new CountDownLatch(1);
+    private final AtomicLong commits = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        properties.getSharded().setEnabled(true);
+        properties.getSharded().setShards(4);
+        properties.getSharded().setQueueCapacity(16);
+
+        when(idempotencyGuard.claim(anyString())).thenAnswer(inv -> new TokenClaim(1L, ids.incrementAndGet(), false, null));
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> {
+            if (commits.getAndIncrement() == 0) {
+                firstCommitStarted.countDown();
+                releaseFirstCommit.await(5, TimeUnit.SECONDS);
+            }
+            return inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        });
+        when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Transaction> transactions = inv.getArgument(0);
+            if (transactions.stream().anyMatch(t -> t.getAmount().signum() < 0)) {
+                throw new IllegalStateException("constraint violation");
+            }
+            transactions.forEach(t -> t.setTransactionId(ids.incrementAndGet() + 1000));
+            applied.add(String.join("+", transactions.stream().map(t -> t.getAmount().toPlainString()).toList()));
+            return transactions;
+        });
+        newWriter();
+    }
+
+    private void newWriter() {
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new ShardedTransactionWriter(transactionRepository, transactionTemplate, idempotencyGuard,
+                eventPublisher, properties, new MockEnvironment(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstCommit.countDown();
+        writer.stop();
+        callers.shutdownNow();
+    }
+
+    private static TransactionRequest request(long outAccount, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setInAccount(100L);
+        request.setOutAccount(outAccount);
+        request.setAmount(new BigDecimal(amount));
+        request.setTransactionType(TransactionType.TRANSFER);
+        request.setToken("token-" + amount);
+        return request;
+    }
+
+    private static TransactionRequest deposit(long inAccount, String amount) {
+        TransactionRequest request = request(-1L, amount);
+        request.setInAccount(inAccount);
+        request.setTransactionType(TransactionType.DEPOSIT);
+        return request;
+    }
+
+    private Future<Long> create(long outAccount, String amount) {
+        return callers.submit(() -> writer.create(request(outAccount, amount)));
+    }
+
+    // 依次入队，等到请求进入分片队列后再提交下一个，保证入队顺序
+    private Future<Long> createQueued(long outAccount, String amount) throws InterruptedException {
+        double before = queued(outAccount);
+        Future<Long> future = create(outAccount, amount);
+        awaitQueued(outAccount, before + 1);
+        return future;
+    }
+
+    private double queued(long account) {
+        return meterRegistry.get("transaction.shard.queue.size")
+                .tag("shard", String.valueOf(writer.shardOf(account))).gauge().value();
+    }
+
+    private void awaitQueued(long account, double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (queued(account) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, queued(account));
+    }
+
+    // 提交第一笔并等待分片写线程卡在它的事务里
+    private Future<Long> createAndHoldShard() throws InterruptedException {
+        Future<Long> first = create(HELD_ACCOUNT, "1");
+        assertTrue(firstCommitStarted.await(5, TimeUnit.SECONDS));
+        return first;
+    }
+
+    @Test
+    void create_SameAccountAppliesInOrderAndGroupsCreates() throws Exception {
+        writer.start();
+        Future<Long> first = createAndHoldShard();
+        Future<Long> second = createQueued(HELD_ACCOUNT, "2");
+        Future<Long> third = createQueued(HELD_ACCOUNT, "3");
+        double before = queued(HELD_ACCOUNT);
+        Future<String> modify = callers.submit(() -> writer.execute(HELD_ACCOUNT, () -> {
+            applied.add("modify");
+            return "modified";
+        }));
+        awaitQueued(HELD_ACCOUNT, before + 1);
+        Future<Long> fourth = createQueued(HELD_ACCOUNT, "4");
+        releaseFirstCommit.countDown();
+
+        for (Future<Long> future : List.of(first, second, third, fourth)) {
+            assertNotNull(future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("modified", modify.get(5, TimeUnit.SECONDS));
+        // 积压的两笔创建合并提交，修改在它们之后、下一笔创建之前执行
+        assertEquals(List.of("1", "2+3", "modify", "4"), applied);
+        verify(eventPublisher, times(4)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void create_OtherShardsAreNotBlocked() throws Exception {
+        writer.start();
+        createAndHoldShard();
+        long other = 2;
+        while (writer.shardOf(other) == writer.shardOf(HELD_ACCOUNT)) {
+            other++;
+        }
+
+        assertNotNull(create(other, "5").get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("5"), applied);
+    }
+
+    @Test
+    void create_DepositsShardByInAccount() throws Exception {
+        writer.start();
+        createAndHoldShard();
+        long other = 2;
+        while (writer.shardOf(other) == writer.shardOf(HELD_ACCOUNT)) {
+            other++;
+        }
+        // 转出账户都是 -1 占位，按转入账户分片：存入其他分片账户的不受阻塞，存入 HELD_ACCOUNT 的排在它的分片里
+        assertNotEquals(writer.shardOf(HELD_ACCOUNT), writer.shardOf(ShardedTransactionWriter.shardAccount(-1L, other)));
+        double before = queued(HELD_ACCOUNT);
+        long depositTo = other;
+        Future<Long> held = callers.submit(() -> writer.create(deposit(HELD_ACCOUNT, "6")));
+        awaitQueued(HELD_ACCOUNT, before + 1);
+
+        assertNotNull(callers.submit(() -> writer.create(deposit(depositTo, "5"))).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("5"), applied);
+        assertFalse(held.isDone());
+        releaseFirstCommit.countDown();
+        assertNotNull(held.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("5", "1", "6"), applied);
+    }
+
+    @Test
+    void create_FailedGroupCommitRetriesEachRequest() throws Exception {
+        writer.start();
+        createAndHoldShard();
+        Future<Long> good1 = createQueued(HELD_ACCOUNT, "10");
+        Future<Long> bad = createQueued(HELD_ACCOUNT, "-1");
+        Future<Long> good2 = createQueued(HELD_ACCOUNT, "20");
+        releaseFirstCommit.countDown();
+
+        assertNotNull(good1.get(5, TimeUnit.SECONDS));
+        assertNotNull(good2.get(5, TimeUnit.SECONDS));
+        Exception e = assertThrows(Exception.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(List.of("1", "10", "20"), applied);
+    }
+
+    @Test
+    void create_ErrorFailsBatchAndKeepsShardAlive() throws Exception {
+        releaseFirstCommit.countDown();
+        doThrow(new StackOverflowError("boom"))
+                .doAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        writer.start();
+
+        // 调用方收到异常而不是一直等待，同一分片之后的请求照常执行
+        assertThrows(StackOverflowError.class, () -> writer.create(request(HELD_ACCOUNT, "1")));
+        assertNotNull(writer.create(request(HELD_ACCOUNT, "2")));
+        assertEquals(List.of("2"), applied);
+    }
+
+    @Test
+    void create_TimesOutWaitingForShard() throws Exception {
+        properties.getSharded().setResultTimeout(Duration.ofMillis(50));
+        newWriter();
+        writer.start();
+        Future<Long> first = createAndHoldShard();
+
+        assertThrows(IngestionRejectedException.class, () -> writer.create(request(HELD_ACCOUNT, "2")));
+        Exception e = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IngestionRejectedException.class, e.getCause());
+        assertEquals(2.0, meterRegistry.counter("transaction.shard.timeout").count());
+    }
+
+    @Test
+    void createAll_QueuesBehindSingleCreatesOfTheSameAccount() throws Exception {
+        writer.start();
+        createAndHoldShard();
+        Future<Long> single = createQueued(HELD_ACCOUNT, "2");
+        when(idempotencyGuard.claim("token-4")).thenReturn(new TokenClaim(1L, 2L, true, 42L));
+        Future<List<CompletableFuture<TokenClaim>>> batch = callers.submit(() ->
+                writer.createAll(List.of(request(HELD_ACCOUNT, "3"), request(HELD_ACCOUNT, "4"))));
+        awaitQueued(HELD_ACCOUNT, 3);
+        releaseFirstCommit.countDown();
+
+        List<CompletableFuture<TokenClaim>> results = batch.get(5, TimeUnit.SECONDS);
+        assertNotNull(single.get(5, TimeUnit.SECONDS));
+        assertFalse(results.get(0).join().isReplay());
+        assertNotNull(results.get(0).join().getResult());
+        assertTrue(results.get(1).join().isReplay());
+        assertEquals(42L, results.get(1).join().getResult());
+        // 批量的交易与同一账户的单笔创建在同一个写线程上依次提交
+        assertEquals(List.of("1", "2+3"), applied);
+    }
+
+    @Test
+    void create_ReplayReturnsOriginalTransaction() {
+        when(idempotencyGuard.claim("token-7")).thenReturn(new TokenClaim(1L, 2L, true, 42L));
+        releaseFirstCommit.countDown();
+        writer.start();
+
+        assertEquals(42L, writer.create(request(HELD_ACCOUNT, "7")));
+        verify(transactionRepository, never()).saveAll(anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void create_RejectsWhenQueueIsFull() throws Exception {
+        properties.getSharded().setQueueCapacity(1);
+        properties.getSharded().setOfferTimeout(Duration.ZERO);
+        newWriter();
+        writer.start();
+        createAndHoldShard();
+        Future<Long> queued = createQueued(HELD_ACCOUNT, "2");
+
+        assertThrows(IngestionRejectedException.class, () -> writer.create(request(HELD_ACCOUNT, "3")));
+        assertEquals(1.0, meterRegistry.counter("transaction.shard.rejected").count());
+        releaseFirstCommit.countDown();
+        assertNotNull(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void create_RejectsWhenDisabled() {
+        properties.getSharded().setEnabled(false);
+        writer.start();
+
+        assertFalse(writer.isRunning());
+        assertThrows(IngestionRejectedException.class, () -> writer.create(request(HELD_ACCOUNT, "1")));
+        verify(idempotencyGuard, never()).claim(anyString());
+    }
+}
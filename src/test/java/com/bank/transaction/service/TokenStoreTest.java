@@ -0,0 +1,194 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.token.IdempotencyGuard;
+import com.bank.transaction.token.InMemoryTokenStore;
+import com.bank.transaction.token.JdbcTokenStore;
+import com.bank.transaction.token.TokenStore;
+import com.bank.transaction.token.TokenStore.ClaimResult;
+import com.bank.transaction.token.TokenStore.ClaimStatus;
+import com.bank.transaction.util.TokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenStoreTest {
+    private static final long NOW = 1_700_000_000L;
+
+    private static void assertClaimLifecycle(TokenStore store) {
+        assertTrue(store.issue(1L, 2L, NOW));
+        assertEquals(1, store.liveTokens());
+        assertEquals(ClaimResult.CLAIMED, store.claim(1L, 2L, NOW + 10));
+        assertEquals(ClaimResult.IN_PROGRESS, store.claim(1L, 2L, NOW + 10));
+        store.release(1L, 2L, NOW + 10);
+        assertEquals(ClaimResult.CLAIMED, store.claim(1L, 2L, NOW + 20));
+        store.complete(1L, 2L, 99L, NOW + 290);
+        // 完成后结果从完成时刻起再保留一个有效期
+        ClaimResult replay = store.claim(1L, 2L, NOW + 500);
+        assertEquals(ClaimStatus.COMPLETED, replay.status());
+        assertEquals(99L, replay.result());
+        assertEquals(ClaimResult.UNKNOWN, store.claim(9L, 9L, NOW + 10));
+    }
+
+    private static void assertExpiry(TokenStore store) {
+        assertTrue(store.issue(3L, 4L, NOW));
+        assertTrue(store.issue(5L, 6L, NOW));
+        assertEquals(ClaimResult.EXPIRED, store.claim(3L, 4L, NOW + 301));
+        store.sweep(NOW + 400);
+        assertEquals(ClaimResult.UNKNOWN, store.claim(5L, 6L, NOW + 400));
+        assertEquals(2, store.expiredTokens());
+    }
+
+    @Test
+    void testInMemory_ClaimLifecycle() {
+        assertClaimLifecycle(new InMemoryTokenStore(300, 30, 1000, 4));
+    }
+
+    @Test
+    void testInMemory_Expiry() {
+        InMemoryTokenStore store = new InMemoryTokenStore(300, 30, 1000, 4);
+        assertExpiry(store);
+    }
+
+    @Test
+    void testInMemory_ValidUntilExactExpiry() {
+        InMemoryTokenStore store = new InMemoryTokenStore(300, 30, 1000, 4);
+        assertTrue(store.issue(7L, 8L, NOW + 17));
+        assertEquals(ClaimResult.CLAIMED, store.claim(7L, 8L, NOW + 317));
+    }
+
+    @Test
+    void testInMemory_BoundedCapacity() {
+        InMemoryTokenStore store = new InMemoryTokenStore(300, 30, 1000, 1);
+        int issued = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (store.issue(random.nextLong(), random.nextLong(), NOW)) {
+            issued++;
+            assertTrue(issued <= 1000, "token数量应当有上限");
+        }
+        assertTrue(issued > 0);
+        // 下一个时间桶不受上一个桶占满的影响
+        assertTrue(store.issue(random.nextLong(), random.nextLong(), NOW + 30));
+    }
+
+    @Test
+    void testInMemory_ManyTokensGrowAndConsume() {
+        InMemoryTokenStore store = new InMemoryTokenStore(300, 30, 100_000, 4);
+        for (long i = 1; i <= 5000; i++) {
+            assertTrue(store.issue(i, -i, NOW + i % 60));
+        }
+        for (long i = 1; i <= 5000; i++) {
+            assertEquals(ClaimResult.CLAIMED, store.claim(i, -i, NOW + 60));
+        }
+        assertEquals(5000, store.liveTokens());
+    }
+
+    @Test
+    void testJdbc_ClaimLifecycleAndExpiry() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript(new ClassPathResource("db/migration/V3__create_idempotency_tokens.sql").getPath())
+                .addScript(new ClassPathResource("db/migration/V4__add_idempotency_token_state.sql").getPath())
+                .build();
+        try {
+            JdbcTokenStore store = new JdbcTokenStore(new JdbcTemplate(database), 300);
+            assertClaimLifecycle(store);
+            assertExpiry(store);
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    @Test
+    void testJdbc_GuardCompletesInsideBusinessTransaction() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript(new ClassPathResource("db/migration/V3__create_idempotency_tokens.sql").getPath())
+                .addScript(new ClassPathResource("db/migration/V4__add_idempotency_token_state.sql").getPath())
+                .build();
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            TokenUtil tokenUtil = new TokenUtil(new JdbcTokenStore(jdbcTemplate, 300), new SimpleMeterRegistry());
+            IdempotencyGuard guard = new IdempotencyGuard(tokenUtil);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+            String token = tokenUtil.generateToken();
+
+            // 提交前的最后时刻，完成状态和结果已经写在同一事务里
+            AtomicReference<String> stateBeforeCommit = new AtomicReference<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                guard.claim(token).succeed(42L);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        stateBeforeCommit.set(jdbcTemplate.queryForObject(
+                                "SELECT state FROM idempotency_tokens", String.class));
+                    }
+                });
+            });
+            assertEquals("COMPLETED", stateBeforeCommit.get());
+            assertTrue(transactionTemplate.execute(status -> guard.claim(token)).isReplay());
+            assertEquals(42L, transactionTemplate.execute(status -> guard.claim(token)).getResult());
+
+            // 业务回滚时占用随事务撤销，同一个token可以重试
+            String retried = tokenUtil.generateToken();
+            transactionTemplate.executeWithoutResult(status -> {
+                guard.claim(retried).succeed(43L);
+                status.setRollbackOnly();
+            });
+            assertFalse(transactionTemplate.execute(status -> guard.claim(retried)).isReplay());
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    @Test
+    void testInMemory_ConcurrentClaimsOnlyOneWins() throws Exception {
+        InMemoryTokenStore store = new InMemoryTokenStore(300, 30, 1000, 4);
+        assertTrue(store.issue(11L, 12L, NOW));
+        int threads = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger claimed = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (store.claim(11L, 12L, NOW + 1) == ClaimResult.CLAIMED) {
+                        claimed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, claimed.get());
+    }
+}
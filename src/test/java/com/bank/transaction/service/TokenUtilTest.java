@@ -1,14 +1,22 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.exception.DuplicateRequestException;
 import com.bank.transaction.exception.InvalidTokenException;
+import com.bank.transaction.exception.TokenCapacityExceededException;
+import com.bank.transaction.token.InMemoryTokenStore;
+import com.bank.transaction.token.TokenClaim;
 import com.bank.transaction.util.TokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.util.UUID;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class TokenUtilTest {
-    private final TokenUtil tokenUtil = new TokenUtil();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenUtil tokenUtil = new TokenUtil(new InMemoryTokenStore(300, 30, 1000, 4), meterRegistry);
 
     @Test
     void testGenerateToken() {
@@ -17,15 +25,67 @@ public class TokenUtilTest {
         assertFalse(token.isEmpty());
     }
 
+    @Test
+    void testGenerateToken_StoreFullAsksToRetryLater() {
+        TokenUtil full = new TokenUtil(new InMemoryTokenStore(300, 30, 1, 1), meterRegistry);
+        TokenCapacityExceededException ex = assertThrows(TokenCapacityExceededException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                full.generateToken();
+            }
+        });
+        // 新token的过期时间进入下一个时间桶后即可再次发放
+        assertTrue(ex.getRetryAfter().toSeconds() >= 1 && ex.getRetryAfter().toSeconds() <= 30);
+        assertEquals(1.0, meterRegistry.counter("transaction.tokens.rejected", "reason", "capacity").count());
+    }
+
     @Test
     void testValidateToken_Success() {
         String token = tokenUtil.generateToken();
-        tokenUtil.validateToken(token);
+        TokenClaim claim = tokenUtil.claimToken(token);
+        assertFalse(claim.isReplay());
+        assertEquals(1.0, meterRegistry.get("transaction.tokens.claimed").counter().count());
+        assertEquals(1, meterRegistry.get("transaction.tokens.claim").timer().count());
     }
 
     @Test
     void testValidateToken_Invalid() {
-        assertThrows(InvalidTokenException.class, () -> tokenUtil.validateToken(null));
-        assertThrows(InvalidTokenException.class, () -> tokenUtil.validateToken(""));
+        assertThrows(InvalidTokenException.class, () -> tokenUtil.claimToken(null));
+        assertThrows(InvalidTokenException.class, () -> tokenUtil.claimToken(""));
+        assertThrows(InvalidTokenException.class, () -> tokenUtil.claimToken(UUID.randomUUID().toString()));
+        assertEquals(1.0, meterRegistry.counter("transaction.tokens.rejected", "reason", "unknown").count());
+    }
+
+    @Test
+    void testValidateToken_InProgress() {
+        String token = tokenUtil.generateToken();
+        tokenUtil.claimToken(token);
+        assertThrows(DuplicateRequestException.class, () -> tokenUtil.claimToken(token));
+        assertEquals(1.0, meterRegistry.counter("transaction.tokens.rejected", "reason", "in_progress").count());
+    }
+
+    @Test
+    void testValidateToken_ReplaysCompletedResult() {
+        String token = tokenUtil.generateToken();
+        TokenClaim claim = tokenUtil.claimToken(token);
+        claim.succeed(42L);
+        tokenUtil.completeToken(claim);
+
+        TokenClaim retry = tokenUtil.claimToken(token);
+        assertTrue(retry.isReplay());
+        assertEquals(42L, retry.getResult());
+        assertEquals(1.0, meterRegistry.counter("transaction.tokens.replayed").count());
+    }
+
+    @Test
+    void testValidateToken_ReleasedTokenCanBeRetried() {
+        String token = tokenUtil.generateToken();
+        tokenUtil.releaseToken(tokenUtil.claimToken(token));
+        assertFalse(tokenUtil.claimToken(token).isReplay());
+    }
+
+    @Test
+    void testValidateToken_Malformed() {
+        assertThrows(InvalidTokenException.class, () -> tokenUtil.claimToken("not-a-token"));
+        assertEquals(1.0, meterRegistry.counter("transaction.tokens.rejected", "reason", "invalid").count());
     }
 }
@@ -0,0 +1,112 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.archive.ArchiveHorizon;
+import com.bank.transaction.archive.TransactionArchiver;
+import com.bank.transaction.config.ArchiveProperties;
+import com.bank.transaction.repository.ArchivedTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TransactionArchiverTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ArchiveProperties properties;
+    private ArchiveHorizon archiveHorizon;
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        // 使用发布的迁移脚本建表，V1 等脚本为 MySQL 语法，H2 以 MySQL 兼容模式执行
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(UUID.randomUUID() + ";MODE=MySQL")
+                .addScript("db/migration/V1__create_initial_schema.sql")
+                .addScript("db/migration/V7__add_transactions_version.sql")
+                .addScript("db/migration/V8__create_transactions_archive.sql")
+                .addScript("db/migration/V11__widen_transaction_ids.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        properties = new ArchiveProperties();
+        properties.setMaxAge(Duration.ofDays(30));
+        properties.setChunkSize(2);
+        archiveHorizon = new ArchiveHorizon(mock(ArchivedTransactionRepository.class), properties);
+        meterRegistry = new SimpleMeterRegistry();
+        archiver = new TransactionArchiver(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(database)),
+                properties, archiveHorizon, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private void insert(long id, LocalDateTime createdAt, boolean deleted) {
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, in_account, out_account, transaction_type, amount, "
+                + "del_flag, created_at, version) VALUES (?, 1, 2, 'TRANSFER', 10.00, ?, ?, 0)", id, deleted, Timestamp.valueOf(createdAt));
+    }
+
+    private List<Long> ids(String table) {
+        return jdbcTemplate.queryForList("SELECT transaction_id FROM " + table + " ORDER BY transaction_id", Long.class);
+    }
+
+    @Test
+    void movesAgedAndDeletedRowsInChunks() {
+        LocalDateTime old = LocalDateTime.of(2024, 3, 15, 10, 0);
+        insert(1, old, false);
+        insert(2, NOW.minusDays(1), false);
+        insert(3, NOW.minusDays(1), true);
+        insert(4, old.minusMonths(1), true);
+        insert(5, old.plusDays(1), false);
+        insert(6, NOW, false);
+
+        assertEquals(4, archiver.archive());
+
+        assertEquals(List.of(2L, 6L), ids("transactions"));
+        assertEquals(List.of(1L, 3L, 4L, 5L), ids("transactions_archive"));
+        assertEquals(202403, jdbcTemplate.queryForObject(
+                "SELECT archive_month FROM transactions_archive WHERE transaction_id = 1", Integer.class));
+        assertEquals(202402, jdbcTemplate.queryForObject(
+                "SELECT archive_month FROM transactions_archive WHERE transaction_id = 4", Integer.class));
+        assertEquals(2.0, meterRegistry.get("transaction.archive.rows").tag("reason", "aged").counter().count());
+        assertEquals(2.0, meterRegistry.get("transaction.archive.rows").tag("reason", "deleted").counter().count());
+        // 再次执行没有可移动的行
+        assertEquals(0, archiver.archive());
+    }
+
+    @Test
+    void horizonFollowsRetentionAndArchivedRows() {
+        assertTrue(archiveHorizon.reaches(null));
+        assertTrue(archiveHorizon.reaches(NOW.minusDays(31)));
+        assertFalse(archiveHorizon.reaches(NOW.minusDays(29)));
+
+        // 调大保留期后，按旧保留期归档的数据仍然需要查询归档表
+        insert(1, NOW.minusDays(20), false);
+        properties.setMaxAge(Duration.ofDays(10));
+        archiver.archive();
+        properties.setMaxAge(Duration.ofDays(30));
+
+        assertTrue(archiveHorizon.reaches(NOW.minusDays(20)));
+        assertFalse(archiveHorizon.reaches(NOW.minusDays(19)));
+    }
+}
@@ -0,0 +1,162 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.archive.ArchiveHorizon;
+import com.bank.transaction.entity.ArchivedTransaction;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.ExportFormat;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.exception.InvalidTransactionException;
+import com.bank.transaction.repository.ArchivedTransactionRepository;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.service.impl.TransactionExporter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExporterTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private ArchiveHorizon archiveHorizon;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private TransactionExporter exporter;
+    private Transaction first;
+    private Transaction second;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new TransactionExporter(transactionRepository, entityManager, objectMapper,
+                archivedTransactionRepository, archiveHorizon);
+        first = newTransaction(1L, LocalDateTime.of(2024, 1, 2, 10, 0), 1L, 2L, "100.00");
+        second = newTransaction(2L, LocalDateTime.of(2024, 1, 3, 10, 0), 3L, 1L, "0.50");
+    }
+
+    private static Transaction newTransaction(Long id, LocalDateTime createdAt, Long inAccount, Long outAccount, String amount) {
+        Transaction t = new Transaction();
+        t.setTransactionId(id);
+        t.setCreatedAt(createdAt);
+        t.setInAccount(inAccount);
+        t.setOutAccount(outAccount);
+        t.setAmount(new BigDecimal(amount));
+        t.setTransactionType(TransactionType.TRANSFER);
+        return t;
+    }
+
+    @Test
+    void export_WritesOneJsonObjectPerLine() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transactionRepository.streamAccountTransactions(1L, FROM, TO))
+                .thenReturn(Stream.of(first, second).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exporter.export(1L, FROM, TO, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        JsonNode row = objectMapper.readTree(lines[1]);
+        assertEquals(2L, row.get("transactionId").asLong());
+        assertEquals("2024-01-03T10:00:00", row.get("createdAt").asText());
+        // 与查询接口的交易视图字段一致，不输出实体的内部字段
+        assertFalse(row.has("delFlag"));
+        assertEquals(List.of("transactionId", "transactionType", "inAccount", "outAccount",
+                "amount", "createdAt", "version"), fieldNames(row));
+        // 每条写出后都从持久化上下文移除，游标结束后关闭
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+        assertTrue(closed.get());
+    }
+
+    private static List<String> fieldNames(JsonNode row) {
+        List<String> names = new ArrayList<>();
+        row.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    @Test
+    void export_WritesCsvWithHeader() throws IOException {
+        when(transactionRepository.streamAccountTransactions(1L, FROM, TO)).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(1L, FROM, TO, ExportFormat.CSV, out);
+
+        assertEquals("transactionId,transactionType,inAccount,outAccount,amount,createdAt\n"
+                        + "1,TRANSFER,1,2,100.00,2024-01-02T10:00\n"
+                        + "2,TRANSFER,3,1,0.50,2024-01-03T10:00\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_MergesArchivedRowsInTimeOrder() throws IOException {
+        ArchivedTransaction archived = new ArchivedTransaction();
+        archived.setTransactionId(5L);
+        archived.setTransactionType(TransactionType.DEPOSIT);
+        archived.setInAccount(1L);
+        archived.setOutAccount(1L);
+        archived.setAmount(new BigDecimal("3.00"));
+        archived.setDelFlag(false);
+        archived.setCreatedAt(LocalDateTime.of(2024, 1, 2, 12, 0));
+        when(archiveHorizon.reaches(FROM)).thenReturn(true);
+        when(transactionRepository.streamAccountTransactions(1L, FROM, TO)).thenReturn(Stream.of(first, second));
+        when(archivedTransactionRepository.streamAccountTransactions(1L, FROM, TO)).thenReturn(Stream.of(archived));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(3, exporter.export(1L, FROM, TO, ExportFormat.CSV, out));
+
+        assertEquals("transactionId,transactionType,inAccount,outAccount,amount,createdAt\n"
+                        + "1,TRANSFER,1,2,100.00,2024-01-02T10:00\n"
+                        + "5,DEPOSIT,1,1,3.00,2024-01-02T12:00\n"
+                        + "2,TRANSFER,3,1,0.50,2024-01-03T10:00\n",
+                out.toString(StandardCharsets.UTF_8));
+        verify(entityManager).detach(archived);
+    }
+
+    @Test
+    void export_EmptyHistory() throws IOException {
+        when(transactionRepository.streamAccountTransactions(1L, FROM, TO)).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, exporter.export(1L, FROM, TO, ExportFormat.NDJSON, out));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void exportFormat_RejectsUnknownFormat() {
+        assertEquals(ExportFormat.CSV, ExportFormat.of("csv"));
+        assertThrows(InvalidTransactionException.class, () -> ExportFormat.of("xml"));
+    }
+}
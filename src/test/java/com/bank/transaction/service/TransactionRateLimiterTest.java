@@ -0,0 +1,208 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.RateLimitProperties;
+import com.bank.transaction.controller.AccountRateLimitAdvice;
+import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.exception.RateLimitedException;
+import com.bank.transaction.ratelimit.AdaptiveConcurrencyLimiter;
+import com.bank.transaction.ratelimit.RateLimitInterceptor;
+import com.bank.transaction.ratelimit.TokenBucket;
+import com.bank.transaction.ratelimit.TransactionRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tokenBucketAllowsBurstThenRefillsAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(1, 0));
+        }
+        assertEquals(SECOND / 10, bucket.tryAcquire(1, 0));
+        assertEquals(0, bucket.tryAcquire(1, SECOND / 10));
+        // 空闲再久也不会超过容量
+        assertEquals(5.0, bucket.available(100 * SECOND), 1e-9);
+        // 超过容量的请求不按容量计费，直接拒绝，等待时间按实际数量计算
+        assertEquals(3 * SECOND / 10, bucket.tryAcquire(8, 100 * SECOND));
+        assertEquals(5.0, bucket.available(100 * SECOND), 1e-9);
+        assertEquals(0, bucket.tryAcquire(5, 100 * SECOND));
+        assertEquals(0.0, bucket.available(100 * SECOND), 1e-9);
+        bucket.refund(2);
+        assertEquals(2.0, bucket.available(100 * SECOND), 1e-9);
+    }
+
+    @Test
+    void tokenBucketNeverOverGrantsUnderContention() throws Exception {
+        TokenBucket bucket = new TokenBucket(0.001, 1000, 0);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryAcquire(1, 0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1000, granted.get());
+    }
+
+    @Test
+    void concurrencyLimitBacksOffOnSlowRequestsAndGrowsWhenHealthy() {
+        long threshold = TimeUnit.MILLISECONDS.toNanos(100);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 20, 0.5, threshold, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        // 同一波慢请求只下调一次
+        limiter.release(1, 1 + 2 * threshold, false);
+        limiter.release(1, 2 + 2 * threshold, false);
+        assertEquals(5, limiter.getLimit());
+        assertEquals(8, limiter.getInflight());
+        assertFalse(limiter.tryAcquire());
+
+        // 下调之后开始的失败请求再次下调
+        limiter.release(3 + 2 * threshold, 4 + 2 * threshold, true);
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 7; i++) {
+            limiter.release(10 * threshold, 10 * threshold + 1, false);
+        }
+        // 只有在途请求达到上限一半以上时才上调
+        assertEquals(0, limiter.getInflight());
+        assertEquals(7, limiter.getLimit());
+    }
+
+    @Test
+    void rejectedAccountRefundsOtherAccountsAndReportsRetryAfter() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setAccount(new RateLimitProperties.Bucket(1, 2, 100, Duration.ofMinutes(1)));
+        properties.getAdaptive().setEnabled(false);
+        TransactionRateLimiter limiter = new TransactionRateLimiter(properties, new SimpleMeterRegistry());
+
+        limiter.acquireAccounts(Map.of(2L, 2));
+        Map<Long, Integer> permits = new LinkedHashMap<>();
+        permits.put(1L, 1);
+        permits.put(2L, 1);
+        RateLimitedException ex = assertThrows(RateLimitedException.class, () -> limiter.acquireAccounts(permits));
+        assertTrue(ex.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertTrue(ex.getRetryAfter().compareTo(Duration.ofSeconds(1)) <= 0);
+
+        assertEquals(2.0, limiter.bucket(TransactionRateLimiter.Scope.ACCOUNT, "1").available(), 1e-3);
+        assertEquals(1L, limiter.snapshot().rejected().get(TransactionRateLimiter.Scope.ACCOUNT));
+        assertNull(limiter.snapshot().concurrencyLimit());
+    }
+
+    @Test
+    void depositsAndWithdrawalsDoNotShareSentinelAccountBucket() {
+        TransactionRateLimiter limiter = accountLimiter(2);
+        AccountRateLimitAdvice advice = new AccountRateLimitAdvice(limiter);
+
+        for (long account = 1; account <= 10; account++) {
+            advice.afterBodyRead(request(TransactionType.DEPOSIT, account, -1L), null, null, null, null);
+            advice.afterBodyRead(request(TransactionType.WITHDRAWAL, -1L, account + 100), null, null, null, null);
+        }
+
+        assertNull(limiter.bucket(TransactionRateLimiter.Scope.ACCOUNT, "-1"));
+        assertEquals(1.0, limiter.bucket(TransactionRateLimiter.Scope.ACCOUNT, "1").available(), 0.5);
+        assertEquals(0L, limiter.snapshot().rejected().get(TransactionRateLimiter.Scope.ACCOUNT));
+    }
+
+    @Test
+    void batchLargerThanBurstIsRejectedWithoutCharging() {
+        TransactionRateLimiter limiter = accountLimiter(100);
+        AccountRateLimitAdvice advice = new AccountRateLimitAdvice(limiter);
+        List<TransactionRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            batch.add(request(TransactionType.DEPOSIT, 777L, -1L));
+        }
+
+        RateLimitedException ex = assertThrows(RateLimitedException.class,
+                () -> advice.afterBodyRead(batch, null, null, null, null));
+        // 容量 100、每秒补充 1 个，超出的 50 个需要 50 秒
+        assertEquals(50, ex.getRetryAfter().toSeconds(), 1);
+        assertEquals(100.0, limiter.bucket(TransactionRateLimiter.Scope.ACCOUNT, "777").available(), 0.5);
+
+        advice.afterBodyRead(batch.subList(0, 100), null, null, null, null);
+        assertEquals(0.0, limiter.bucket(TransactionRateLimiter.Scope.ACCOUNT, "777").available(), 0.5);
+    }
+
+    @Test
+    void tokenRequestsAreLimitedPerClientSeparatelyFromWrites() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setClient(new RateLimitProperties.Bucket(1, 1, 100, Duration.ofMinutes(1)));
+        properties.setToken(new RateLimitProperties.Bucket(1, 2, 100, Duration.ofMinutes(1)));
+        properties.getAdaptive().setEnabled(false);
+        TransactionRateLimiter limiter = new TransactionRateLimiter(properties, new SimpleMeterRegistry());
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(limiter);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(httpRequest("GET", "/api/v1/transactions/token"), response, null));
+        assertTrue(interceptor.preHandle(httpRequest("GET", "/api/v1/transactions/token"), response, null));
+        RateLimitedException ex = assertThrows(RateLimitedException.class,
+                () -> interceptor.preHandle(httpRequest("GET", "/api/v1/transactions/token"), response, null));
+        assertTrue(ex.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertEquals(1L, limiter.snapshot().rejected().get(TransactionRateLimiter.Scope.TOKEN));
+
+        // 其他查询不限流，写请求的令牌不受获取 token 影响
+        assertTrue(interceptor.preHandle(httpRequest("GET", "/api/v1/transactions/1"), response, null));
+        assertTrue(interceptor.preHandle(httpRequest("POST", "/api/v1/transactions"), response, null));
+        assertNull(limiter.bucket(TransactionRateLimiter.Scope.TOKEN, "other"));
+    }
+
+    private static MockHttpServletRequest httpRequest(String method, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.addHeader("X-Client-Id", "client-1");
+        return request;
+    }
+
+    private static TransactionRateLimiter accountLimiter(int burst) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setAccount(new RateLimitProperties.Bucket(1, burst, 100, Duration.ofMinutes(1)));
+        properties.getAdaptive().setEnabled(false);
+        return new TransactionRateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    private static TransactionRequest request(TransactionType type, Long inAccount, Long outAccount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionType(type);
+        request.setInAccount(inAccount);
+        request.setOutAccount(outAccount);
+        request.setAmount(BigDecimal.TEN);
+        return request;
+    }
+}
@@ -0,0 +1,81 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.config.TransactionRuntimeHints;
+import com.bank.transaction.dto.TransactionChange;
+import com.bank.transaction.entity.Transaction;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    TransactionRuntimeHintsTest() {
+        new TransactionRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registersJacksonBindingsAndEntities() throws Exception {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TransactionChange.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(TransactionChange.class.getMethod("after")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Transaction.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+                .test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("com.bank.transaction.exception.ErrorResponse")).test(hints));
+    }
+
+    @Test
+    void registersCaffeineClassesUsedByConfiguredCaches() {
+        Set<String> registered = hints.reflection().typeHints()
+                .map(hint -> hint.getType().getName())
+                .filter(name -> name.startsWith("com.github.benmanes.caffeine.cache."))
+                .collect(Collectors.toSet());
+
+        // 与应用中的缓存配置相同：容量上限 + 访问/写入后过期，可选统计
+        Cache<Object, Object> access = Caffeine.newBuilder().maximumSize(10).expireAfterAccess(Duration.ofMinutes(1)).build();
+        Cache<Object, Object> write = Caffeine.newBuilder().maximumSize(10).expireAfterWrite(Duration.ofMinutes(1)).build();
+        Cache<Object, Object> stats = Caffeine.newBuilder().maximumSize(10).expireAfterWrite(Duration.ofMinutes(1)).recordStats().build();
+        // 共享缓存的代数表：只有写入后过期
+        Cache<Object, Object> generations = Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(1)).build();
+        for (Cache<Object, Object> cache : List.of(access, write, stats, generations)) {
+            cache.put("key", "value");
+            assertTrue(registered.containsAll(generatedClasses(cache)), () -> registered + " 缺少 " + generatedClasses(cache));
+        }
+        for (String name : registered) {
+            assertDoesNotThrow(() -> Class.forName(name), name);
+        }
+    }
+
+    // 通过缓存实例找到 Caffeine 生成的缓存类和节点类
+    private static Set<String> generatedClasses(Cache<Object, Object> cache) {
+        try {
+            var field = cache.getClass().getDeclaredField("cache");
+            field.setAccessible(true);
+            Object local = field.get(cache);
+            var data = local.getClass().getSuperclass();
+            while (!data.getSimpleName().equals("BoundedLocalCache")) {
+                data = data.getSuperclass();
+            }
+            var map = data.getDeclaredField("data");
+            map.setAccessible(true);
+            Object node = ((Map<?, ?>) map.get(local)).values().iterator().next();
+            return Set.of(local.getClass().getName(), node.getClass().getName());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.dto.TransactionCursor;
+import com.bank.transaction.dto.TransactionSearch;
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.ArchivedTransaction;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionDirection;
+import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.repository.TransactionSearchRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在 H2 上用实体定义的表结构和索引执行搜索，对 Hibernate 实际生成的每条 SQL 做 EXPLAIN，
+ * 断言都命中按方向的覆盖索引、没有全表扫描；同时校验各条件组合的查询结果。
+ */
+class TransactionSearchPlanTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 6, 1, 10, 0);
+
+    private final List<String> statements = new ArrayList<>();
+    private EmbeddedDatabase database;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private TransactionSearchRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(database);
+        factory.setPackagesToScan("com.bank.transaction.entity");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.session_factory.statement_inspector", (StatementInspector) sql -> {
+                    if (sql.startsWith("select")) {
+                        statements.add(sql);
+                    }
+                    return sql;
+                }));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        repository = new TransactionSearchRepository(entityManager);
+
+        entityManager.getTransaction().begin();
+        // 账户 1 转入：3 笔；转出：2 笔；另有已删除和其他账户的交易
+        persist(TransactionType.DEPOSIT, 1L, -1L, "100.00", BASE.plusMinutes(1), false);
+        persist(TransactionType.TRANSFER, 1L, 2L, "250.00", BASE.plusMinutes(2), false);
+        persist(TransactionType.TRANSFER, 1L, 3L, "900.00", BASE.plusMinutes(3), false);
+        persist(TransactionType.TRANSFER, 3L, 1L, "300.00", BASE.plusMinutes(4), false);
+        persist(TransactionType.WITHDRAWAL, -1L, 1L, "50.00", BASE.plusMinutes(5), false);
+        persist(TransactionType.TRANSFER, 1L, 2L, "260.00", BASE.plusMinutes(6), true);
+        persist(TransactionType.TRANSFER, 2L, 3L, "270.00", BASE.plusMinutes(7), false);
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        statements.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+        database.shutdown();
+    }
+
+    private void persist(TransactionType type, Long inAccount, Long outAccount, String amount,
+                         LocalDateTime createdAt, boolean deleted) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionType(type);
+        transaction.setInAccount(inAccount);
+        transaction.setOutAccount(outAccount);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setCreatedAt(createdAt);
+        transaction.setDelFlag(deleted);
+        entityManager.persist(transaction);
+    }
+
+    private static TransactionSearch search(Long accountId) {
+        TransactionSearch search = new TransactionSearch();
+        search.setAccountId(accountId);
+        return search;
+    }
+
+    private List<BigDecimal> amounts(List<TransactionView> views) {
+        return views.stream().map(TransactionView::amount).map(BigDecimal::stripTrailingZeros).toList();
+    }
+
+    private static List<BigDecimal> amounts(String... values) {
+        return Arrays.stream(values).map(BigDecimal::new).map(BigDecimal::stripTrailingZeros).toList();
+    }
+
+    // 对每条执行过的 SQL 做 EXPLAIN，返回执行计划
+    private List<String> plans() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        assertFalse(statements.isEmpty());
+        return statements.stream()
+                .map(sql -> jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class))
+                .toList();
+    }
+
+    private void assertIndexOnly(String index) {
+        for (String plan : plans()) {
+            assertTrue(plan.contains(index), plan);
+            assertFalse(plan.contains("tableScan"), plan);
+        }
+    }
+
+    @Test
+    void filtersByDirectionAndExcludesDeleted() {
+        List<TransactionView> incoming = repository.search(Transaction.class, TransactionDirection.IN, search(1L), null, 10);
+        assertEquals(amounts("900", "250", "100"), amounts(incoming));
+        assertIndexOnly("IDX_TRANSACTIONS_IN_ACCOUNT_COVER");
+
+        statements.clear();
+        List<TransactionView> outgoing = repository.search(Transaction.class, TransactionDirection.OUT, search(1L), null, 10);
+        assertEquals(amounts("50", "300"), amounts(outgoing));
+        assertIndexOnly("IDX_TRANSACTIONS_OUT_ACCOUNT_COVER");
+    }
+
+    @Test
+    void combinesTypeAmountAndDateFiltersOnIndex() {
+        TransactionSearch search = search(1L);
+        search.setTransactionType(TransactionType.TRANSFER);
+        search.setMinAmount(new BigDecimal("200"));
+        search.setMaxAmount(new BigDecimal("500"));
+        search.setFrom(BASE);
+        search.setTo(BASE.plusMinutes(10));
+
+        assertEquals(amounts("250"), amounts(repository.search(Transaction.class, TransactionDirection.IN, search, null, 10)));
+        assertEquals(amounts("300"), amounts(repository.search(Transaction.class, TransactionDirection.OUT, search, null, 10)));
+        assertEquals(2, statements.size());
+        for (String plan : plans()) {
+            assertFalse(plan.contains("tableScan"), plan);
+            // 账户、delFlag、时间区间及类型、金额都作为索引条件，在索引内过滤
+            String indexCondition = plan.substring(plan.indexOf("_ACCOUNT_COVER:"), plan.indexOf("*/"));
+            for (String column : List.of("_ACCOUNT = ?1", "DEL_FLAG = FALSE", "CREATED_AT >=", "CREATED_AT <",
+                    "TRANSACTION_TYPE =", "AMOUNT >=", "AMOUNT <=")) {
+                assertTrue(indexCondition.contains(column), plan);
+            }
+        }
+    }
+
+    @Test
+    void continuesFromCursorOnIndex() {
+        List<TransactionView> first = repository.search(Transaction.class, TransactionDirection.IN, search(1L), null, 2);
+        assertEquals(amounts("900", "250"), amounts(first));
+        TransactionCursor cursor = TransactionCursor.of(first.get(1));
+
+        List<TransactionView> next = repository.search(Transaction.class, TransactionDirection.IN, search(1L), cursor, 2);
+        assertEquals(amounts("100"), amounts(next));
+        assertIndexOnly("IDX_TRANSACTIONS_IN_ACCOUNT_COVER");
+    }
+
+    @Test
+    void archiveSearchUsesArchiveIndexes() {
+        repository.search(ArchivedTransaction.class, TransactionDirection.IN, search(1L), null, 10);
+        assertIndexOnly("IDX_TRANSACTIONS_ARCHIVE_IN_ACCOUNT");
+
+        statements.clear();
+        repository.search(ArchivedTransaction.class, TransactionDirection.OUT, search(1L), null, 10);
+        assertIndexOnly("IDX_TRANSACTIONS_ARCHIVE_OUT_ACCOUNT");
+    }
+
+    @Test
+    void rejectsCombinedDirection() {
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.search(Transaction.class, TransactionDirection.BOTH, search(1L), null, 10));
+    }
+}
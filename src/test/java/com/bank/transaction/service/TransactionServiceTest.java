@@ -1,27 +1,66 @@
 package com.bank.transaction.service;
 
+import com.bank.transaction.archive.ArchiveHorizon;
+import com.bank.transaction.cache.AccountHistoryCache;
+import com.bank.transaction.config.CacheProperties;
+import com.bank.transaction.config.IngestionProperties;
+import com.bank.transaction.dto.BatchItemResult;
+import com.bank.transaction.dto.TransactionCursor;
+import com.bank.transaction.dto.TransactionPage;
 import com.bank.transaction.dto.TransactionRequest;
+import com.bank.transaction.dto.TransactionSearch;
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.entity.ArchivedTransaction;
 import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.enums.TransactionDirection;
 import com.bank.transaction.enums.TransactionType;
+import com.bank.transaction.event.TransactionChangedEvent;
+import com.bank.transaction.exception.DuplicateRequestException;
+import com.bank.transaction.exception.InvalidTransactionException;
+import com.bank.transaction.exception.PreconditionFailedException;
+import com.bank.transaction.metrics.TransactionMetrics;
+import com.bank.transaction.repository.ArchivedTransactionRepository;
 import com.bank.transaction.repository.TransactionLogRepository;
 import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.repository.TransactionSearchRepository;
+import com.bank.transaction.service.impl.ShardedTransactionWriter;
 import com.bank.transaction.service.impl.TransactionServiceImpl;
+import com.bank.transaction.token.IdempotencyGuard;
+import com.bank.transaction.token.TokenClaim;
 import com.bank.transaction.util.TokenUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,9 +72,47 @@ class TransactionServiceTest {
     @Mock
     private TokenUtil tokenUtil;
 
+    @Mock
+    private IdempotencyGuard idempotencyGuard;
+
     @Mock
     private TransactionLogRepository transactionLogRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private ArchiveHorizon archiveHorizon;
+
+    @Spy
+    private AccountHistoryCache accountHistoryCache = new AccountHistoryCache(new CacheProperties());
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ShardedTransactionWriter shardedTransactionWriter;
+
+    @Mock
+    private TransactionSearchRepository transactionSearchRepository;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private IngestionProperties ingestionProperties = new IngestionProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private TransactionMetrics transactionMetrics = new TransactionMetrics(meterRegistry);
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -50,36 +127,376 @@ class TransactionServiceTest {
         request.setAmount(new BigDecimal("100.00"));
         request.setTransactionType(TransactionType.TRANSFER);
         request.setToken("token valid");
+        request.setPage(0);
+        request.setSize(10);
+
+        transaction = newTransaction(10L, LocalDateTime.of(2024, 1, 1, 10, 0), 1L, 2L);
+    }
+
+    private static Transaction newTransaction(Long id, LocalDateTime createdAt, Long inAccount, Long outAccount) {
+        Transaction t = new Transaction();
+        t.setTransactionId(id);
+        t.setCreatedAt(createdAt);
+        t.setInAccount(inAccount);
+        t.setOutAccount(outAccount);
+        t.setAmount(new BigDecimal("100.00"));
+        t.setTransactionType(TransactionType.TRANSFER);
+        return t;
     }
 
     @Test
     void createTransaction_Success() {
+        runTransactionsInline();
+        TokenClaim claim = new TokenClaim(1L, 2L, false, null);
+        when(idempotencyGuard.claim("token valid")).thenReturn(claim);
         when(transactionRepository.save(any(Transaction.class)))
                 .thenReturn(transaction);
         assertDoesNotThrow(() -> transactionService.createTransaction(request));
 
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(eventPublisher).publishEvent(any(TransactionChangedEvent.class));
+    }
+
+    @Test
+    void createTransaction_ReplaysCompletedToken() {
+        runTransactionsInline();
+        when(idempotencyGuard.claim("token valid")).thenReturn(new TokenClaim(1L, 2L, true, 7L));
+
+        assertEquals(7L, transactionService.createTransaction(request));
+
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void createTransaction_RunsOnShardWhenEnabled() {
+        when(shardedTransactionWriter.isRunning()).thenReturn(true);
+        when(shardedTransactionWriter.create(request)).thenReturn(7L);
+
+        assertEquals(7L, transactionService.createTransaction(request));
+
+        verify(transactionTemplate, never()).execute(any());
+        verify(idempotencyGuard, never()).claim(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createTransactions_RejectsInvalidItemsAndWritesTheRest() {
+        TransactionRequest invalid = new TransactionRequest();
+        invalid.setToken("token invalid");
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(idempotencyGuard.claim("token valid")).thenReturn(new TokenClaim(1L, 2L, false, null));
+
+        List<BatchItemResult> results = transactionService.createTransactions(List.of(invalid, request));
+
+        assertEquals(BatchItemResult.Status.REJECTED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(1).getStatus());
+        verify(idempotencyGuard, never()).claim("token invalid");
+        verify(transactionRepository).saveAll(argThat((List<Transaction> list) -> list.size() == 1));
+        verify(transactionRepository).flush();
+    }
+
+    @Test
+    void createTransactions_RunsOnShardsWhenEnabled() {
+        TransactionRequest replayed = copyOf(request, "token replayed");
+        TransactionRequest duplicate = copyOf(request, "token duplicate");
+        TransactionRequest slow = copyOf(request, "token slow");
+        when(shardedTransactionWriter.isRunning()).thenReturn(true);
+        when(shardedTransactionWriter.createAll(List.of(request, replayed, duplicate, slow))).thenReturn(List.of(
+                CompletableFuture.completedFuture(new TokenClaim(1L, 2L, false, 7L)),
+                CompletableFuture.completedFuture(new TokenClaim(1L, 3L, true, 8L)),
+                CompletableFuture.failedFuture(new DuplicateRequestException("请求正在处理中")),
+                new CompletableFuture<>()));
+
+        List<BatchItemResult> results = transactionService.createTransactions(List.of(request, replayed, duplicate, slow));
+
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(7L, results.get(0).getTransactionId());
+        assertEquals(BatchItemResult.Status.REPLAYED, results.get(1).getStatus());
+        assertEquals(8L, results.get(1).getTransactionId());
+        assertEquals(BatchItemResult.Status.REJECTED, results.get(2).getStatus());
+        assertEquals(BatchItemResult.Status.FAILED, results.get(3).getStatus());
+        // 批量创建不绕过分片写线程直接写库
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+        verify(idempotencyGuard, never()).claim(any());
+    }
+
+    private static TransactionRequest copyOf(TransactionRequest source, String token) {
+        TransactionRequest copy = new TransactionRequest();
+        copy.setInAccount(source.getInAccount());
+        copy.setOutAccount(source.getOutAccount());
+        copy.setAmount(source.getAmount());
+        copy.setTransactionType(source.getTransactionType());
+        copy.setToken(token);
+        copy.setPage(source.getPage());
+        copy.setSize(source.getSize());
+        return copy;
+    }
+
+    // 让 TransactionTemplate 直接执行回调
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private double conflicts(String operation, String outcome) {
+        return meterRegistry.counter("transaction.conflicts", "operation", operation, "outcome", outcome).count();
     }
 
     @Test
     void deleteTransaction_NotFound() {
+        runTransactionsInline();
         when(transactionRepository.findByTransactionIdAndDelFlagFalse(1L))
                 .thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () ->
-                transactionService.deleteTransaction(1L));
+                transactionService.deleteTransaction(1L, null));
+    }
+
+    @Test
+    void deleteTransaction_RejectsStaleVersion() {
+        runTransactionsInline();
+        transaction.setVersion(3L);
+        when(transactionRepository.findByTransactionIdAndDelFlagFalse(10L)).thenReturn(Optional.of(transaction));
+
+        assertThrows(PreconditionFailedException.class, () -> transactionService.deleteTransaction(10L, 2L));
+
+        assertFalse(transaction.getDelFlag());
+        verify(transactionRepository, never()).saveAndFlush(any());
+        assertEquals(1.0, conflicts("delete", "precondition_failed"));
+    }
+
+    @Test
+    void modifyTransaction_RetriesVersionConflictInNewTransaction() {
+        runTransactionsInline();
+        ingestionProperties.getConflictRetry().setBackoff(Duration.ZERO);
+        transaction.setVersion(1L);
+        when(idempotencyGuard.claim("token valid")).thenReturn(new TokenClaim(1L, 2L, false, null));
+        when(transactionRepository.findByTransactionIdAndDelFlagFalse(10L)).thenReturn(Optional.of(transaction));
+        when(transactionRepository.saveAndFlush(transaction))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Transaction.class, 10L))
+                .thenAnswer(inv -> {
+                    transaction.setVersion(2L);
+                    return transaction;
+                });
+
+        assertEquals(2L, transactionService.modifyTransaction(10L, request, 1L));
+
+        verify(transactionRepository, times(2)).saveAndFlush(transaction);
+        verify(eventPublisher, times(1)).publishEvent(any(TransactionChangedEvent.class));
+        assertEquals(1.0, conflicts("modify", "retried"));
+    }
+
+    @Test
+    void modifyTransaction_ReenqueuesEachAttemptOnShard() {
+        runTransactionsInline();
+        ingestionProperties.getConflictRetry().setBackoff(Duration.ZERO);
+        when(shardedTransactionWriter.isRunning()).thenReturn(true);
+        // 每次尝试单独提交到分片，退避发生在两次提交之间，分片任务内不等待
+        when(shardedTransactionWriter.execute(eq(2L), any())).thenAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
+        when(idempotencyGuard.claim("token valid")).thenReturn(new TokenClaim(1L, 2L, false, null));
+        when(transactionRepository.findByTransactionIdAndDelFlagFalse(10L)).thenReturn(Optional.of(transaction));
+        when(transactionRepository.saveAndFlush(transaction))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Transaction.class, 10L))
+                .thenReturn(transaction);
+
+        transactionService.modifyTransaction(10L, request, null);
+
+        verify(shardedTransactionWriter, times(2)).execute(eq(2L), any());
+        verify(transactionRepository, times(2)).saveAndFlush(transaction);
+        assertEquals(1.0, conflicts("modify", "retried"));
+    }
+
+    @Test
+    void modifyTransaction_GivesUpAfterMaxAttempts() {
+        runTransactionsInline();
+        ingestionProperties.getConflictRetry().setBackoff(Duration.ZERO);
+        when(idempotencyGuard.claim("token valid")).thenReturn(new TokenClaim(1L, 2L, false, null));
+        when(transactionRepository.findByTransactionIdAndDelFlagFalse(10L)).thenReturn(Optional.of(transaction));
+        when(transactionRepository.saveAndFlush(transaction))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Transaction.class, 10L));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> transactionService.modifyTransaction(10L, request, null));
+
+        verify(transactionRepository, times(3)).saveAndFlush(transaction);
+        verify(eventPublisher, never()).publishEvent(any());
+        assertEquals(2.0, conflicts("modify", "retried"));
+        assertEquals(1.0, conflicts("modify", "conflict"));
     }
 
     @Test
     void listTransactions_Success() {
-        List<Transaction> transactions = Collections.singletonList(transaction);
-        when(transactionRepository.findByInAccountOrOutAccountAndDelFlagFalse(1L, 1L))
+        List<TransactionView> transactions = List.of(TransactionView.of(transaction));
+        when(transactionRepository.findAccountTransactions(1L, PageRequest.of(1, 10)))
                 .thenReturn(transactions);
 
-        List<Transaction> result = transactionService.listTransactions(1L, 1, 10);
+        TransactionPage result = transactionService.listTransactions(1L, 1, 10);
 
         assertNotNull(result);
-        assertEquals(1, result.size());
-        verify(transactionRepository).findByTransactionIdAndDelFlagFalse(1L);
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getNextCursor());
+        verify(transactionRepository).findAccountTransactions(1L, PageRequest.of(1, 10));
+        assertEquals(1.0, meterRegistry.get("transaction.history.rows").tag("query", "offset").summary().totalAmount());
+    }
+
+    @Test
+    void listTransactionsByCursor_MergesBothDirections() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 10, 0);
+        TransactionView in1 = view(5L, base.plusMinutes(5), 1L, 3L);
+        TransactionView in2 = view(2L, base.plusMinutes(2), 1L, 3L);
+        TransactionView self = view(4L, base.plusMinutes(4), 1L, 1L);
+        TransactionView out1 = view(3L, base.plusMinutes(3), 3L, 1L);
+        when(transactionRepository.findIncoming(1L, PageRequest.ofSize(3)))
+                .thenReturn(List.of(in1, self, in2));
+        when(transactionRepository.findOutgoing(1L, PageRequest.ofSize(3)))
+                .thenReturn(List.of(self, out1));
+
+        TransactionPage result = transactionService.listTransactionsByCursor(1L, null, 3);
+
+        assertEquals(List.of(in1, self, out1), result.getContent());
+        TransactionCursor next = TransactionCursor.decode(result.getNextCursor());
+        assertEquals(out1.createdAt(), next.getCreatedAt());
+        assertEquals(out1.transactionId(), next.getTransactionId());
+        assertEquals(3.0, meterRegistry.get("transaction.history.rows").tag("query", "incoming").summary().totalAmount());
+        assertEquals(2.0, meterRegistry.get("transaction.history.rows").tag("query", "outgoing").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("transaction.history.merge").timer().count());
+    }
+
+    @Test
+    void listTransactionsByCursor_ContinuesFromCursor() {
+        TransactionCursor cursor = TransactionCursor.of(TransactionView.of(transaction));
+        when(transactionRepository.findIncomingBefore(1L, transaction.getCreatedAt(), 10L, PageRequest.ofSize(10)))
+                .thenReturn(Collections.emptyList());
+        when(transactionRepository.findOutgoingBefore(1L, transaction.getCreatedAt(), 10L, PageRequest.ofSize(10)))
+                .thenReturn(Collections.emptyList());
+
+        TransactionPage result = transactionService.listTransactionsByCursor(1L, cursor.encode(), 10);
+
+        assertTrue(result.getContent().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    private static TransactionView view(Long id, LocalDateTime createdAt, Long inAccount, Long outAccount) {
+        return TransactionView.of(newTransaction(id, createdAt, inAccount, outAccount));
+    }
+
+    @Test
+    void listTransactionsByCursor_SkipsArchiveWhenPageIsNewerThanHorizon() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 10, 0);
+        TransactionView newer = view(2L, base.plusMinutes(2), 1L, 3L);
+        TransactionView older = view(1L, base.plusMinutes(1), 1L, 3L);
+        when(transactionRepository.findIncoming(1L, PageRequest.ofSize(2))).thenReturn(List.of(newer, older));
+        when(archiveHorizon.reaches(older.createdAt())).thenReturn(false);
+
+        assertEquals(List.of(newer, older), transactionService.listTransactionsByCursor(1L, null, 2).getContent());
+
+        verifyNoInteractions(archivedTransactionRepository);
+    }
+
+    @Test
+    void listTransactionsByCursor_MergesArchiveBeyondHorizon() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 10, 0);
+        TransactionView hotNewest = view(9L, base.plusMinutes(9), 1L, 3L);
+        // 尚未归档的旧交易与归档表中的交易时间交错
+        TransactionView hotOld = view(3L, base.plusMinutes(3), 3L, 1L);
+        TransactionView archivedNewer = view(5L, base.plusMinutes(5), 1L, 4L);
+        TransactionView archivedOlder = view(1L, base.plusMinutes(1), 4L, 1L);
+        when(transactionRepository.findIncoming(1L, PageRequest.ofSize(3))).thenReturn(List.of(hotNewest));
+        when(transactionRepository.findOutgoing(1L, PageRequest.ofSize(3))).thenReturn(List.of(hotOld));
+        when(archivedTransactionRepository.findIncoming(1L, PageRequest.ofSize(3))).thenReturn(List.of(archivedNewer));
+        when(archivedTransactionRepository.findOutgoing(1L, PageRequest.ofSize(3))).thenReturn(List.of(archivedOlder));
+
+        TransactionPage result = transactionService.listTransactionsByCursor(1L, null, 3);
+
+        assertEquals(List.of(9L, 5L, 3L), result.getContent().stream().map(TransactionView::transactionId).toList());
+        assertEquals(3L, TransactionCursor.decode(result.getNextCursor()).getTransactionId());
+        assertEquals(2.0, meterRegistry.get("transaction.history.rows").tag("query", "archive").summary().totalAmount());
+    }
+
+    @Test
+    void listTransactions_MergesArchiveForDeepPages() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 10, 0);
+        TransactionView t4 = view(4L, base.plusMinutes(4), 1L, 3L);
+        TransactionView t3 = view(3L, base.plusMinutes(3), 1L, 3L);
+        TransactionView t2 = view(2L, base.plusMinutes(2), 1L, 3L);
+        TransactionView t1 = view(1L, base.plusMinutes(1), 1L, 3L);
+        when(transactionRepository.findAccountTransactions(1L, PageRequest.of(1, 2))).thenReturn(List.of(t2));
+        when(transactionRepository.findAccountTransactions(1L, PageRequest.ofSize(4))).thenReturn(List.of(t4, t2));
+        when(archivedTransactionRepository.findAccountTransactions(1L, PageRequest.ofSize(4)))
+                .thenReturn(List.of(t3, t1));
+
+        TransactionPage result = transactionService.listTransactions(1L, 1, 2);
+
+        assertEquals(List.of(2L, 1L), result.getContent().stream().map(TransactionView::transactionId).toList());
+    }
+
+    @Test
+    void listTransactionsByCursor_InvalidCursor() {
+        assertThrows(InvalidTransactionException.class, () ->
+                transactionService.listTransactionsByCursor(1L, "not-a-cursor", 10));
+    }
+
+    @Test
+    void searchTransactions_MergesBothDirectionsAndArchive() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 10, 0);
+        TransactionView in = view(5L, base.plusMinutes(5), 1L, 3L);
+        TransactionView self = view(4L, base.plusMinutes(4), 1L, 1L);
+        TransactionView archived = view(2L, base.plusMinutes(2), 3L, 1L);
+        TransactionSearch search = new TransactionSearch();
+        search.setAccountId(1L);
+        search.setTransactionType(TransactionType.TRANSFER);
+        when(transactionSearchRepository.search(Transaction.class, TransactionDirection.IN, search, null, 3))
+                .thenReturn(List.of(in, self));
+        when(transactionSearchRepository.search(Transaction.class, TransactionDirection.OUT, search, null, 3))
+                .thenReturn(List.of(self));
+        when(transactionSearchRepository.search(ArchivedTransaction.class, TransactionDirection.IN, search, null, 3))
+                .thenReturn(Collections.emptyList());
+        when(transactionSearchRepository.search(ArchivedTransaction.class, TransactionDirection.OUT, search, null, 3))
+                .thenReturn(List.of(archived));
+
+        TransactionPage result = transactionService.searchTransactions(search, null, 3);
+
+        assertEquals(List.of(in, self, archived), result.getContent());
+        assertEquals(2L, TransactionCursor.decode(result.getNextCursor()).getTransactionId());
+        assertEquals(4.0, meterRegistry.get("transaction.history.rows").tag("query", "search").summary().totalAmount());
+    }
+
+    @Test
+    void searchTransactions_QueriesOnlyRequestedDirection() {
+        TransactionCursor cursor = TransactionCursor.of(TransactionView.of(transaction));
+        TransactionSearch search = new TransactionSearch();
+        search.setAccountId(2L);
+        search.setDirection(TransactionDirection.OUT);
+        search.setMinAmount(new BigDecimal("50.00"));
+        List<TransactionView> page = List.of(TransactionView.of(transaction));
+        when(transactionSearchRepository.search(eq(Transaction.class), eq(TransactionDirection.OUT), eq(search), any(), eq(1)))
+                .thenReturn(page);
+        when(archiveHorizon.reaches(transaction.getCreatedAt())).thenReturn(false);
+
+        assertEquals(page, transactionService.searchTransactions(search, cursor.encode(), 1).getContent());
+
+        verify(transactionSearchRepository, never()).search(any(), eq(TransactionDirection.IN), any(), any(), anyInt());
+        verify(transactionSearchRepository, never()).search(eq(ArchivedTransaction.class), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void searchTransactions_RejectsInvalidRanges() {
+        TransactionSearch amounts = new TransactionSearch();
+        amounts.setAccountId(1L);
+        amounts.setMinAmount(new BigDecimal("10"));
+        amounts.setMaxAmount(new BigDecimal("1"));
+        assertThrows(InvalidTransactionException.class, () -> transactionService.searchTransactions(amounts, null, 10));
+
+        TransactionSearch dates = new TransactionSearch();
+        dates.setAccountId(1L);
+        dates.setFrom(LocalDateTime.of(2024, 2, 1, 0, 0));
+        dates.setTo(LocalDateTime.of(2024, 1, 1, 0, 0));
+        assertThrows(InvalidTransactionException.class, () -> transactionService.searchTransactions(dates, null, 10));
+
+        assertThrows(InvalidTransactionException.class, () -> transactionService.searchTransactions(new TransactionSearch(), null, 10));
+        verifyNoInteractions(transactionSearchRepository);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.dto.TransactionView;
+import com.bank.transaction.enums.TransactionType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionViewSerializationTest {
+
+    private static final TransactionView VIEW = new TransactionView(7L, TransactionType.TRANSFER, 1L, 2L,
+            new BigDecimal("12.50"), LocalDateTime.of(2024, 1, 1, 10, 0), 3L);
+
+    // 与 JacksonConfig 一致：默认输出全部字段
+    private static Jackson2ObjectMapperBuilder builder() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(new SimpleFilterProvider().addFilter(TransactionView.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    @Test
+    void serializesAllFieldsWithoutInternalOnes() throws Exception {
+        JsonNode json = builder().build().valueToTree(VIEW);
+        Set<String> names = new HashSet<>();
+        json.fieldNames().forEachRemaining(names::add);
+
+        assertEquals(Set.of("transactionId", "transactionType", "inAccount", "outAccount", "amount", "createdAt", "version"), names);
+        assertEquals("2024-01-01T10:00:00", json.get("createdAt").asText());
+    }
+
+    @Test
+    void selectedFieldsOnly() throws Exception {
+        ObjectMapper objectMapper = builder().build();
+        String json = objectMapper.writer(new SimpleFilterProvider().addFilter(TransactionView.FILTER,
+                SimpleBeanPropertyFilter.filterOutAllExcept("transactionId", "amount"))).writeValueAsString(List.of(VIEW));
+
+        assertEquals("[{\"transactionId\":7,\"amount\":12.50}]", json);
+    }
+
+    @Test
+    void smileIsSmallerAndRoundTrips() throws Exception {
+        byte[] json = builder().build().writeValueAsBytes(List.of(VIEW, VIEW));
+        ObjectMapper smile = builder().factory(new SmileFactory()).build();
+        byte[] binary = smile.writeValueAsBytes(List.of(VIEW, VIEW));
+
+        assertTrue(binary.length < json.length);
+        TransactionView[] decoded = smile.readValue(binary, TransactionView[].class);
+        assertEquals(VIEW, decoded[0]);
+    }
+}
@@ -0,0 +1,58 @@
+#!/bin/bash
+# 分别以平台线程和虚拟线程模式启动服务，用 stress-test.jmx 压测并输出各接口的吞吐量和 p99
+# 用法：stress-test/compare-threading.sh [线程数] [循环次数]
+set -e
+cd "$(dirname "$0")/.."
+
+THREADS=${1:-500}
+LOOPS=${2:-20}
+OUT=target/threading-comparison
+mkdir -p "$OUT"
+
+mvn -B -q -DskipTests package
+# 压测期间 Maven 不再重新打包，但仍复制一份，避免运行中的 jar 被覆盖
+cp target/transaction-1.0-SNAPSHOT.jar "$OUT/app.jar"
+JAR="$OUT/app.jar"
+
+summarize() {
+  # CSV 列：timeStamp,elapsed,label,responseCode,...,success,...
+  awk -F, -v OFS='\t' 'NR > 1 {
+      print $3, $2, $1, ($8 == "true" ? 0 : 1)
+    }' "$1" | sort -t $'\t' -k1,1 -k2,2n | awk -F '\t' '
+    function report() {
+      if (n == 0) return
+      p99 = lat[int(n * 0.99 + 0.999)]
+      secs = (last - first) / 1000; if (secs <= 0) secs = 1
+      printf "  %-22s count=%-7d throughput=%8.1f/s  p99=%5dms  errors=%d\n", label, n, n / secs, p99, errors
+    }
+    $1 != label { report(); label = $1; n = 0; errors = 0; first = 0; last = 0 }
+    {
+      lat[++n] = $2; errors += $4
+      if (first == 0 || $3 < first) first = $3
+      if ($3 + $2 > last) last = $3 + $2
+    }
+    END { report() }'
+}
+
+for mode in platform virtual; do
+  # 压测计划所有线程使用同一客户端和账户，关闭限流以测量服务本身的吞吐量
+  args="--transaction.rate-limit.enabled=false"
+  jvm=""
+  if [ "$mode" = virtual ]; then
+    args="$args --spring.profiles.active=virtual"
+    # 打印虚拟线程被 synchronized / native 调用钉住载体线程时的栈
+    jvm="-Djdk.tracePinnedThreads=short"
+  fi
+  "${JAVA_HOME:+$JAVA_HOME/bin/}java" $jvm -jar "$JAR" $args > "$OUT/app-$mode.log" 2>&1 &
+  pid=$!
+  for i in $(seq 1 120); do curl -s localhost:8080/actuator/health > /dev/null && break; sleep 1; done
+
+  rm -rf target/jmeter/results
+  mvn -B -q -Pstress jmeter:configure@configuration jmeter:jmeter@jmeter-tests -Dstress.threads="$THREADS" -Dstress.loops="$LOOPS" > "$OUT/jmeter-$mode.log" 2>&1 || true
+  cp target/jmeter/results/summary.jtl "$OUT/$mode.jtl"
+
+  kill $pid; wait $pid 2> /dev/null || true
+  echo "$mode (threads=$THREADS, loops=$LOOPS):"
+  summarize "$OUT/$mode.jtl"
+  echo "  pinned stacks: $(grep -c '<== monitors' "$OUT/app-$mode.log" || true)"
+done
@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# 测量从启动 JVM 到第一个业务请求（GET /api/v1/transactions/token）成功返回的耗时，重复多次取中位数
+# 用法：stress-test/startup-time.sh 次数 java参数...
+#   stress-test/startup-time.sh 5 -jar target/transaction-1.0-SNAPSHOT.jar
+#   stress-test/startup-time.sh 5 -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar app/transaction-1.0-SNAPSHOT.jar
+set -euo pipefail
+
+RUNS="${1:?次数}"
+shift
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+URL="http://localhost:8080/api/v1/transactions/token"
+
+times=()
+for i in $(seq 1 "$RUNS"); do
+  start=$(date +%s%N)
+  "$JAVA" "$@" > /dev/null 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "$URL"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "服务启动失败" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  end=$(date +%s%N)
+  kill "$pid"; wait "$pid" 2> /dev/null || true
+  elapsed=$(( (end - start) / 1000000 ))
+  echo "run $i: ${elapsed}ms"
+  times+=("$elapsed")
+done
+printf '%s\n' "${times[@]}" | sort -n | awk '{ a[NR] = $1 } END { printf "median: %dms\n", a[int((NR + 1) / 2)] }'